@@ -0,0 +1,343 @@
+package cli;
+
+import data.UniversityTable;
+import logic.EligibilityProfile;
+import logic.RecommendationEngine.Bucket;
+import logic.RecommendationEngine.Page;
+import logic.RecommendationEngine.Result;
+import logic.RecommendationEngine.ScoredUniversity;
+import logic.RecommendationTrace;
+import model.CourseType;
+import model.Region;
+import model.University;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts applicant records (CSV rows or JSON objects) to
+ * {@link EligibilityProfile}s and engine results to JSON.
+ *
+ * Accepts the same fields and ranges the interactive CLI prompts for.
+ */
+public final class ApplicantCodec {
+
+    private ApplicantCodec() {
+    }
+
+    // ---------- Input ----------
+
+    /**
+     * Builds a profile from a flat record. Field names are matched
+     * case-insensitively, ignoring '_', '-' and spaces; values may be strings
+     * (CSV) or JSON numbers / booleans / arrays.
+     *
+     * @throws IllegalArgumentException if a field is missing or out of range
+     */
+    public static EligibilityProfile toProfile(Map<String, ?> record) {
+        Map<String, Object> f = new LinkedHashMap<>();
+        record.forEach((k, v) -> f.put(norm(k), v));
+
+        double cgpa = number(f, 0.0, 10.0, null, "cgpa");
+        double ielts = number(f, 0.0, 9.0, null, "ielts");
+
+        Object greFlag = first(f, "hasgre", "gre");
+        boolean hasGre = greFlag != null && !text(greFlag).isEmpty()
+                ? bool(greFlag)
+                : present(f, "grequant") || present(f, "greverbal");
+        int greQ = 0;
+        int greV = 0;
+        if (hasGre) {
+            greQ = (int) number(f, 130, 170, null, "grequant");
+            greV = (int) number(f, 130, 170, null, "greverbal");
+        }
+
+        int yearsExp = (int) number(f, 0, 15, 0.0, "yearsexperience", "experience");
+        int papers = (int) number(f, 0, 10, 0.0, "numpapers", "papers");
+        double budget = number(f, 0, 500000, 0.0, "budgetusd", "budget");
+
+        Object ct = first(f, "coursetype", "course");
+        if (ct == null || text(ct).isEmpty()) {
+            throw new IllegalArgumentException("Missing field: course_type");
+        }
+        CourseType courseType = CourseType.fromString(text(ct));
+        if (courseType == CourseType.OTHER) {
+            throw new IllegalArgumentException("Unknown course type: " + text(ct));
+        }
+
+        return new EligibilityProfile(cgpa, ielts, hasGre, greQ, greV, yearsExp, papers, budget,
+                courseType, regions(first(f, "regions", "region")), words(first(f, "interests", "interest")),
+                words(first(f, "topics", "topic")));
+    }
+
+    /** Optional list field: a JSON array or one string split on ';', '|' or ','. */
+    private static List<String> words(Object raw) {
+        List<String> words = new ArrayList<>();
+        if (raw instanceof List<?> list) {
+            for (Object o : list) words.add(text(o));
+        } else if (raw != null) {
+            for (String p : text(raw).split("[;|,]")) words.add(p);
+        }
+        return words;
+    }
+
+    private static Set<Region> regions(Object raw) {
+        List<String> names = new ArrayList<>();
+        if (raw instanceof List<?> list) {
+            for (Object o : list) names.add(text(o));
+        } else if (raw != null) {
+            for (String p : text(raw).split("[;|,]")) names.add(p);
+        }
+        Set<Region> set = new LinkedHashSet<>();
+        for (String n : names) {
+            if (n.isBlank()) continue;
+            Region r = Region.fromString(n, null);
+            if (r == Region.OTHER) {
+                throw new IllegalArgumentException("Unknown region: " + n.trim());
+            }
+            set.add(r);
+        }
+        if (set.isEmpty()) {
+            throw new IllegalArgumentException("Missing field: regions");
+        }
+        if (set.size() > 3) {
+            throw new IllegalArgumentException("At most 3 regions are allowed");
+        }
+        return set;
+    }
+
+    /** Optional record id, echoed back in the output; null when absent. */
+    public static String id(Map<String, ?> record) {
+        for (Map.Entry<String, ?> e : record.entrySet()) {
+            String k = norm(e.getKey());
+            if ((k.equals("id") || k.equals("applicantid")) && e.getValue() != null) {
+                return text(e.getValue());
+            }
+        }
+        return null;
+    }
+
+    private static double number(Map<String, Object> f, double lo, double hi, Double fallback, String... keys) {
+        String key = keys[0];
+        Object v = first(f, keys);
+        if (v == null || text(v).isEmpty()) {
+            if (fallback != null) return fallback;
+            throw new IllegalArgumentException("Missing field: " + key);
+        }
+        double d;
+        if (v instanceof Number n) {
+            d = n.doubleValue();
+        } else {
+            try {
+                d = Double.parseDouble(text(v));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number for " + key + ": " + text(v));
+            }
+        }
+        if (Double.isNaN(d)) {
+            throw new IllegalArgumentException("Not a number for " + key + ": " + text(v));
+        }
+        if (d < lo || d > hi) {
+            throw new IllegalArgumentException(key + " must be between " + lo + " and " + hi);
+        }
+        return d;
+    }
+
+    private static boolean bool(Object v) {
+        if (v instanceof Boolean b) return b;
+        String s = text(v).toLowerCase(Locale.ROOT);
+        return s.startsWith("y") || s.equals("true") || s.equals("1");
+    }
+
+    private static Object first(Map<String, Object> f, String... keys) {
+        for (String k : keys) {
+            if (f.containsKey(k)) return f.get(k);
+        }
+        return null;
+    }
+
+    private static boolean present(Map<String, Object> f, String key) {
+        Object v = f.get(key);
+        return v != null && !text(v).isEmpty();
+    }
+
+    private static String text(Object v) {
+        if (v == null) return "";
+        if (v instanceof Double d && d == Math.rint(d) && !Double.isInfinite(d)) {
+            return Long.toString(d.longValue());
+        }
+        return v.toString().trim();
+    }
+
+    private static String norm(String key) {
+        return key == null ? "" : key.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    // ---------- Output ----------
+
+    /** One-line JSON document for a result (suitable for JSON-lines output). */
+    public static String toJson(String id, Result r) {
+        return toJson(id, r, null);
+    }
+
+    /** As {@link #toJson(String, Result)}, plus a "trace" object when {@code trace} is non-null. */
+    public static String toJson(String id, Result r, RecommendationTrace trace) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append('{');
+        if (id != null) {
+            sb.append("\"id\":");
+            Json.appendQuoted(sb, id);
+            sb.append(',');
+        }
+        sb.append("\"mode\":\"").append(r.mode.name()).append('"');
+        sb.append(",\"generatedAt\":\"")
+                .append(r.generatedAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append('"');
+        sb.append(",\"profileScore\":").append(String.format(Locale.US, "%.2f", r.profileScore));
+        sb.append(",\"tier\":\"").append(r.tier.name()).append('"');
+        sb.append(",\"totalUniversities\":").append(r.totalUniversities);
+        sb.append(",\"excludedByIelts\":").append(r.excludedByIelts);
+        appendBucket(sb, "ambitious", r.ambitious);
+        appendBucket(sb, "target", r.target);
+        appendBucket(sb, "safe", r.safe);
+        if (trace != null) {
+            sb.append(",\"trace\":");
+            appendTrace(sb, trace);
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Trace as JSON: tier boundaries, quotas, drop counts per filter and one
+     * entry per candidate with its bucket (null if filtered) and outcome.
+     */
+    static void appendTrace(StringBuilder sb, RecommendationTrace trace) {
+        UniversityTable t = trace.table();
+        sb.append("{\"tier\":\"").append(trace.tier().name()).append('"');
+        sb.append(",\"b1\":").append(trace.ambitiousBound());
+        sb.append(",\"b2\":").append(trace.targetBound());
+        int[] q = trace.quotas();
+        sb.append(",\"targetCount\":").append(trace.targetCount());
+        if (q == null) {
+            sb.append(",\"quotas\":null");
+        } else {
+            sb.append(",\"quotas\":{\"ambitious\":").append(q[0])
+                    .append(",\"target\":").append(q[1])
+                    .append(",\"safe\":").append(q[2]).append('}');
+        }
+        sb.append(",\"dropped\":{\"courseType\":").append(trace.droppedByCourseType())
+                .append(",\"region\":").append(trace.droppedByRegion())
+                .append(",\"topic\":").append(trace.count(RecommendationTrace.Outcome.TOPIC))
+                .append(",\"ielts\":").append(trace.count(RecommendationTrace.Outcome.IELTS))
+                .append(",\"budget\":").append(trace.count(RecommendationTrace.Outcome.BUDGET)).append('}');
+        sb.append(",\"candidates\":[");
+        for (int i = 0; i < trace.size(); i++) {
+            int row = trace.row(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"name\":");
+            Json.appendQuoted(sb, t.name(row));
+            sb.append(",\"program\":");
+            Json.appendQuoted(sb, t.program(row));
+            sb.append(",\"globalRank\":").append(t.globalRank(row));
+            sb.append(",\"ieltsMin\":").append(t.ieltsMin(row));
+            sb.append(",\"totalUsd\":").append((long) t.totalUsd(row));
+            Bucket b = trace.bucket(i);
+            sb.append(",\"bucket\":").append(b == null ? "null" : "\"" + b.name() + "\"");
+            sb.append(",\"outcome\":\"").append(trace.outcome(i).name()).append("\"}");
+        }
+        sb.append("]}");
+    }
+
+    /** One-line JSON document for a VIEW_ALL page; items carry their bucket. */
+    public static String toJson(String id, Page page) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append('{');
+        if (id != null) {
+            sb.append("\"id\":");
+            Json.appendQuoted(sb, id);
+            sb.append(',');
+        }
+        sb.append("\"profileScore\":").append(String.format(Locale.US, "%.2f", page.profileScore));
+        sb.append(",\"tier\":\"").append(page.tier.name()).append('"');
+        sb.append(",\"totalUniversities\":").append(page.totalUniversities);
+        sb.append(",\"excludedByIelts\":").append(page.excludedByIelts);
+        sb.append(",\"items\":[");
+        for (int k = 0; k < page.items.size(); k++) {
+            if (k > 0) sb.append(',');
+            appendUniversity(sb, page.items.get(k), true);
+        }
+        sb.append("],\"nextCursor\":");
+        if (page.nextCursor == null) {
+            sb.append("null");
+        } else {
+            Json.appendQuoted(sb, page.nextCursor);
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /** One result entry as a JSON object, including its bucket (streaming output). */
+    public static String toJson(ScoredUniversity s) {
+        StringBuilder sb = new StringBuilder(192);
+        appendUniversity(sb, s, true);
+        return sb.toString();
+    }
+
+    /** JSON error record; {@code line} is the input line number, or 0 to omit it. */
+    public static String errorJson(String id, long line, String message) {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append('{');
+        if (id != null) {
+            sb.append("\"id\":");
+            Json.appendQuoted(sb, id);
+            sb.append(',');
+        }
+        if (line > 0) {
+            sb.append("\"line\":").append(line).append(',');
+        }
+        sb.append("\"error\":");
+        Json.appendQuoted(sb, message == null ? "error" : message);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static void appendBucket(StringBuilder sb, String name, List<ScoredUniversity> list) {
+        sb.append(",\"").append(name).append("\":[");
+        for (int k = 0; k < list.size(); k++) {
+            if (k > 0) sb.append(',');
+            appendUniversity(sb, list.get(k), false);
+        }
+        sb.append(']');
+    }
+
+    static void appendUniversity(StringBuilder sb, ScoredUniversity s, boolean withBucket) {
+        University u = s.uni;
+        sb.append("{\"name\":");
+        Json.appendQuoted(sb, u.getName());
+        if (withBucket) {
+            sb.append(",\"bucket\":\"").append(s.bucket.name()).append('"');
+        }
+        sb.append(",\"country\":");
+        Json.appendQuoted(sb, u.getCountry());
+        sb.append(",\"region\":\"").append(u.getRegion().name()).append('"');
+        sb.append(",\"courseType\":\"").append(u.getCourseType().name()).append('"');
+        sb.append(",\"globalRank\":").append(u.getGlobalRank());
+        sb.append(",\"minIelts\":").append(u.getMinIelts());
+        sb.append(",\"greRequired\":").append(u.isGreRequired());
+        sb.append(",\"totalUsd\":").append(String.format(Locale.US, "%.0f", u.getEstimatedTotalUsd()));
+        sb.append(",\"fitScore\":").append(s.fitScore);
+        sb.append(",\"reasons\":[");
+        List<String> reasons = s.reasons();
+        for (int k = 0; k < reasons.size(); k++) {
+            if (k > 0) sb.append(',');
+            Json.appendQuoted(sb, reasons.get(k));
+        }
+        sb.append("]}");
+    }
+}
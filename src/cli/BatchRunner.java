@@ -0,0 +1,220 @@
+package cli;
+
+import data.UniversityRepository;
+import data.UniversityTable;
+import logic.EligibilityProfile;
+import logic.RecommendationEngine;
+import logic.RecommendationEngine.Mode;
+import logic.RecommendationEngine.Result;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Non-interactive front-end: reads applicant profiles from a CSV or
+ * JSON-lines file and writes one JSON result per applicant.
+ *
+ * Input is streamed in fixed-size chunks, each chunk is scored with
+ * {@link RecommendationEngine#recommendBatch} and written out before the
+ * next one is read, so memory stays bounded regardless of input size.
+ *
+ * Usage:
+ *   java -cp out cli.BatchRunner INPUT [OUTPUT] [--mode predict|view_all] [--count N]
+ *
+ * CSV input needs a header row; columns: id (optional), cgpa, ielts, gre,
+ * gre_quant, gre_verbal, experience, papers, budget, course_type, regions
+ * (regions separated by ';'), and optionally interests and topics (also
+ * ';'-separated). JSON-lines input uses the same field names,
+ * one object per line. OUTPUT defaults to stdout.
+ *
+ * Exits with status 2 on a usage error and 1 when the dataset or the
+ * input / output files cannot be read or written; invalid applicant lines
+ * become error records and do not change the status.
+ */
+public class BatchRunner {
+
+    private static final Path DATA_PATH = Paths.get("data", "universities_complete.csv");
+
+    private static final String USAGE = "Usage: BatchRunner INPUT [OUTPUT] [--mode predict|view_all] [--count N]";
+
+    // Profiles scored per round trip to the engine
+    private static final int CHUNK_SIZE = 4096;
+
+    public static void main(String[] args) {
+        Path input = null;
+        Path output = null;
+        Mode mode = Mode.PREDICT;
+        int desiredCount = 10;
+
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if ((a.equals("--mode") || a.equals("--count")) && i + 1 == args.length) {
+                usageError(a + " needs a value");
+            } else if (a.equals("--mode")) {
+                String m = args[++i].trim().toUpperCase(Locale.ROOT).replace('-', '_');
+                if (m.equals("PREDICT")) {
+                    mode = Mode.PREDICT;
+                } else if (m.equals("VIEW_ALL")) {
+                    mode = Mode.VIEW_ALL;
+                } else {
+                    usageError("--mode must be predict or view_all: " + args[i]);
+                }
+            } else if (a.equals("--count")) {
+                String n = args[++i].trim();
+                try {
+                    desiredCount = Integer.parseInt(n);
+                } catch (NumberFormatException e) {
+                    usageError("--count must be a number: " + n);
+                }
+            } else if (input == null) {
+                input = Paths.get(a);
+            } else if (output == null) {
+                output = Paths.get(a);
+            } else {
+                usageError("Unexpected argument: " + a);
+            }
+        }
+        if (input == null) {
+            usageError("Missing INPUT");
+        }
+
+        UniversityTable table;
+        try {
+            table = new UniversityRepository(DATA_PATH).getTable();
+        } catch (IOException e) {
+            System.err.println("Failed to load dataset from " + DATA_PATH + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        try (Writer out = output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            long written = run(table, input, out, mode, desiredCount);
+            System.err.println("Processed " + written + " applicants from " + input);
+        } catch (IOException e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Prints {@code message} and the usage line, then exits with status 2. */
+    private static void usageError(String message) {
+        System.err.println(message);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    /**
+     * Streams {@code input} through the engine and writes JSON lines to {@code out}.
+     *
+     * @return number of records written (results and per-line errors)
+     */
+    public static long run(UniversityTable table, Path input, Writer out, Mode mode, int desiredCount)
+            throws IOException {
+        String fileName = input.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean json = fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson") || fileName.endsWith(".json");
+
+        long written = 0;
+        try (BufferedReader br = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            List<String> headers = null;
+            if (!json) {
+                String headerLine = br.readLine();
+                if (headerLine == null) return 0;
+                headers = UniversityRepository.parseCsvLine(headerLine);
+            }
+
+            Chunk chunk = new Chunk();
+            long lineNo = json ? 0 : 1;
+            String line;
+            while ((line = br.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+
+                Map<String, ?> record;
+                String id = null;
+                try {
+                    record = json ? Json.parseObject(line) : toRecord(headers, line);
+                    id = ApplicantCodec.id(record);
+                    chunk.add(lineNo, id, ApplicantCodec.toProfile(record), null);
+                } catch (IllegalArgumentException e) {
+                    chunk.add(lineNo, id, null, e.getMessage());
+                }
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    written += chunk.flush(table, out, mode, desiredCount);
+                }
+            }
+            written += chunk.flush(table, out, mode, desiredCount);
+        }
+        out.flush();
+        return written;
+    }
+
+    private static Map<String, String> toRecord(List<String> headers, String line) {
+        List<String> cells = UniversityRepository.parseCsvLine(line);
+        Map<String, String> m = new LinkedHashMap<>();
+        for (int i = 0; i < headers.size() && i < cells.size(); i++) {
+            m.put(headers.get(i), cells.get(i));
+        }
+        return m;
+    }
+
+    /** Buffered input lines of one round; invalid lines keep their error in place. */
+    private static final class Chunk {
+        private final List<Long> lines = new ArrayList<>();
+        private final List<String> ids = new ArrayList<>();
+        private final List<EligibilityProfile> profiles = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+
+        void add(long line, String id, EligibilityProfile profile, String error) {
+            lines.add(line);
+            ids.add(id);
+            profiles.add(profile);
+            errors.add(error);
+        }
+
+        int size() {
+            return lines.size();
+        }
+
+        long flush(UniversityTable table, Writer out, Mode mode, int desiredCount) throws IOException {
+            List<EligibilityProfile> valid = new ArrayList<>(profiles.size());
+            for (EligibilityProfile p : profiles) {
+                if (p != null) valid.add(p);
+            }
+            List<Result> results = RecommendationEngine.recommendBatch(
+                    table, valid, mode, desiredCount, ForkJoinPool.commonPool());
+
+            int next = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                String json = profiles.get(i) != null
+                        ? ApplicantCodec.toJson(ids.get(i), results.get(next++))
+                        : ApplicantCodec.errorJson(ids.get(i), lines.get(i), errors.get(i));
+                out.write(json);
+                out.write('\n');
+            }
+            out.flush();
+
+            long n = lines.size();
+            lines.clear();
+            ids.clear();
+            profiles.clear();
+            errors.clear();
+            return n;
+        }
+    }
+}
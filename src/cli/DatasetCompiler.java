@@ -0,0 +1,42 @@
+package cli;
+
+import data.TableSnapshot;
+import data.UniversityRepository;
+import data.UniversityTable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Compiles the dataset CSV into a binary snapshot ({@link TableSnapshot})
+ * next to it. {@link UniversityRepository} picks the snapshot up
+ * automatically as long as the CSV has not changed since.
+ *
+ * Usage: java -cp out cli.DatasetCompiler [CSV] [SNAPSHOT]
+ *
+ * Exits with status 1 if the CSV cannot be read or the snapshot cannot be written.
+ */
+public class DatasetCompiler {
+
+    private static final Path DATA_PATH = Paths.get("data", "universities_complete.csv");
+
+    public static void main(String[] args) {
+        Path csv = args.length > 0 ? Paths.get(args[0]) : DATA_PATH;
+        Path out = args.length > 1 ? Paths.get(args[1]) : TableSnapshot.siblingOf(csv);
+
+        try {
+            long start = System.nanoTime();
+            long crc = TableSnapshot.checksum(csv);
+            UniversityTable table = new UniversityRepository(csv).getTable();
+            TableSnapshot.write(table, csv, crc, out);
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Wrote " + out + ": " + table.liveCount() + " universities, "
+                    + Files.size(out) + " bytes (" + ms + " ms)");
+        } catch (IOException e) {
+            System.err.println("Failed to compile " + csv + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
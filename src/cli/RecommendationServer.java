@@ -0,0 +1,380 @@
+package cli;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import data.UniversityRepository;
+import data.UniversityTable;
+import logic.EligibilityProfile;
+import logic.FitScorer;
+import logic.RecommendationCache;
+import logic.RecommendationEngine;
+import logic.RecommendationEngine.Mode;
+import logic.RecommendationEngine.Page;
+import logic.RecommendationEngine.Result;
+import logic.RecommendationEngine.ScoredUniversity;
+import logic.RecommendationTrace;
+import metrics.Metrics;
+import model.University;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-running HTTP front-end with the catalog kept warm in memory.
+ *
+ * Endpoints:
+ *   POST /recommend  body: profile JSON (same fields as {@link BatchRunner};
+ *                    "topics" keeps only programs on one of those topics),
+ *                    plus optional "mode" (predict | view_all) and "count".
+ *                    view_all also takes "pageSize" (1..1000, + "cursor" from the
+ *                    previous page) for one page, or "stream": true for
+ *                    JSON lines sent as they are produced (a failure part-way
+ *                    ends the stream with an {"error": ...} line); "explain": true
+ *                    adds a "trace" object saying why each candidate was
+ *                    dropped or kept (uncached); "order": "fit" orders each
+ *                    bucket by fit score (optional "weights", e.g.
+ *                    {"subject_rank": 2, "cost_headroom": 1}; uncached)
+ *   GET  /search?q=stanf&limit=10
+ *                    type-ahead over university names, cities and
+ *                    countries (typo-tolerant), best global rank first
+ *   GET  /health     liveness probe
+ *   GET  /stats      result cache counters
+ *   GET  /metrics    engine / dataset / cache metrics, Prometheus text format
+ *                    (the same engine numbers are in JMX as unirec:type=EngineMetrics)
+ *
+ * Usage: java -cp out cli.RecommendationServer [PORT]
+ *
+ * With {@code -Dunirec.traceSample=0.01}, about 1% of recommend requests are
+ * also traced and the trace is logged to stderr as one JSON line.
+ */
+public class RecommendationServer {
+
+    private static final Path DATA_PATH = Paths.get("data", "universities_complete.csv");
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int CACHE_ENTRIES = 10_000;
+    private static final int STREAM_FLUSH_EVERY = 64;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final long CACHE_TTL_MINUTES = 10;
+    private static final String USAGE = "Usage: RecommendationServer [PORT]";
+    private static final double TRACE_SAMPLE_RATE = Double.parseDouble(System.getProperty("unirec.traceSample", "0"));
+
+    private final UniversityRepository repo;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final RecommendationCache cache = new RecommendationCache(CACHE_ENTRIES, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+
+    public RecommendationServer(UniversityRepository repo, int port) throws IOException {
+        this.repo = repo;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        // Requests are short and CPU-bound: one worker per core, plus slack for slow clients
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        server.setExecutor(workers);
+        server.createContext("/recommend", this::handleRecommend);
+        server.createContext("/search", this::handleSearch);
+        server.createContext("/health", ex -> send(ex, 200, "{\"status\":\"ok\"}"));
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        if (args.length > 0) {
+            try {
+                port = Integer.parseInt(args[0].trim());
+            } catch (NumberFormatException e) {
+                port = -1;
+            }
+            if (port < 0 || port > 65535) {
+                System.err.println("PORT must be a number from 0 to 65535: " + args[0]);
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        }
+
+        UniversityRepository repo;
+        try {
+            repo = new UniversityRepository(DATA_PATH);
+            // Pick up dataset edits without a restart
+            repo.startWatching();
+        } catch (IOException e) {
+            System.err.println("Failed to load dataset from " + DATA_PATH + ": " + e.getMessage());
+            return;
+        }
+
+        try {
+            Metrics.registerMBean();
+            RecommendationServer s = new RecommendationServer(repo, port);
+            s.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(s::stop));
+            System.out.println("Dataset loaded: " + repo.getTable().liveCount() + " universities");
+            System.out.println("Listening on http://localhost:" + port + "/recommend");
+        } catch (IOException e) {
+            System.err.println("Failed to start server on port " + port + ": " + e.getMessage());
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        workers.shutdown();
+        repo.close();
+    }
+
+    // ---------- Handlers ----------
+
+    private void handleRecommend(HttpExchange ex) throws IOException {
+        try {
+            if (!ex.getRequestMethod().equalsIgnoreCase("POST")) {
+                ex.getResponseHeaders().add("Allow", "POST");
+                send(ex, 405, ApplicantCodec.errorJson(null, 0, "Use POST"));
+                return;
+            }
+
+            Map<String, Object> body;
+            EligibilityProfile profile;
+            try {
+                body = Json.parseObject(readBody(ex.getRequestBody()));
+                profile = ApplicantCodec.toProfile(body);
+            } catch (IllegalArgumentException e) {
+                send(ex, 400, ApplicantCodec.errorJson(null, 0, e.getMessage()));
+                return;
+            }
+
+            Mode mode = parseMode(body.get("mode"));
+            int count = body.get("count") instanceof Number n ? n.intValue() : 10;
+            FitScorer scorer;
+            try {
+                scorer = parseScorer(body.get("order"), body.get("weights"));
+                if (scorer != null && mode == Mode.VIEW_ALL
+                        && (Boolean.TRUE.equals(body.get("stream")) || body.get("pageSize") != null)) {
+                    throw new IllegalArgumentException("Paged and streamed view_all are rank-ordered only");
+                }
+            } catch (IllegalArgumentException e) {
+                send(ex, 400, ApplicantCodec.errorJson(null, 0, e.getMessage()));
+                return;
+            }
+            // One snapshot per request; a concurrent reload only affects later requests
+            UniversityTable table = repo.getTable();
+
+            if (mode == Mode.VIEW_ALL && Boolean.TRUE.equals(body.get("stream"))) {
+                stream(ex, table, profile);
+                return;
+            }
+            if (mode == Mode.VIEW_ALL && body.get("pageSize") instanceof Number size) {
+                Object cursor = body.get("cursor");
+                Page page;
+                try {
+                    if (size.doubleValue() > MAX_PAGE_SIZE) {
+                        throw new IllegalArgumentException("pageSize must be at most " + MAX_PAGE_SIZE);
+                    }
+                    page = RecommendationEngine.viewAllPage(table, profile,
+                            cursor == null ? null : cursor.toString(), size.intValue());
+                } catch (IllegalArgumentException e) {
+                    send(ex, 400, ApplicantCodec.errorJson(null, 0, e.getMessage()));
+                    return;
+                }
+                send(ex, 200, ApplicantCodec.toJson(ApplicantCodec.id(body), page));
+                return;
+            }
+            if (Boolean.TRUE.equals(body.get("explain"))) {
+                RecommendationTrace trace = new RecommendationTrace();
+                Result r = RecommendationEngine.recommend(table, profile, mode, count, scorer, trace);
+                send(ex, 200, ApplicantCodec.toJson(ApplicantCodec.id(body), r, trace));
+                return;
+            }
+            // Fit scores depend on the whole profile and the weights; the cache key covers neither
+            Result r = scorer != null
+                    ? RecommendationEngine.recommend(table, profile, mode, count, scorer, null)
+                    : cache.recommend(table, profile, mode, count);
+            send(ex, 200, ApplicantCodec.toJson(ApplicantCodec.id(body), r));
+            if (TRACE_SAMPLE_RATE > 0 && ThreadLocalRandom.current().nextDouble() < TRACE_SAMPLE_RATE) {
+                // After the response, so sampled requests are not slower for the client
+                RecommendationTrace trace = new RecommendationTrace();
+                Result traced = RecommendationEngine.recommend(table, profile, mode, count, scorer, trace);
+                System.err.println(ApplicantCodec.toJson(ApplicantCodec.id(body), traced, trace));
+            }
+        } catch (RuntimeException e) {
+            send(ex, 500, ApplicantCodec.errorJson(null, 0, "Internal error"));
+            System.err.println("Request failed: " + e);
+        }
+    }
+
+    /**
+     * Chunked JSON-lines response: one line per university, flushed in small
+     * batches. The 200 is already sent when the first line is written, so a
+     * failure part-way ends the stream with an {@code {"error":...}} line
+     * rather than going through {@link #send}.
+     */
+    private static void stream(HttpExchange ex, UniversityTable table, EligibilityProfile profile) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        ex.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8))) {
+            try {
+                Iterator<ScoredUniversity> it = RecommendationEngine.viewAllIterator(table, profile);
+                int n = 0;
+                while (it.hasNext()) {
+                    out.write(ApplicantCodec.toJson(it.next()));
+                    out.write('\n');
+                    if (++n % STREAM_FLUSH_EVERY == 0) out.flush();
+                }
+            } catch (RuntimeException e) {
+                out.write(ApplicantCodec.errorJson(null, 0, "Internal error"));
+                out.write('\n');
+                System.err.println("Stream failed: " + e);
+            }
+        }
+    }
+
+    private void handleSearch(HttpExchange ex) throws IOException {
+        try {
+            if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+                ex.getResponseHeaders().add("Allow", "GET");
+                send(ex, 405, ApplicantCodec.errorJson(null, 0, "Use GET"));
+                return;
+            }
+            Map<String, String> params = queryParams(ex.getRequestURI().getRawQuery());
+            String q = params.getOrDefault("q", "");
+            int limit;
+            try {
+                limit = Integer.parseInt(params.getOrDefault("limit", "10").trim());
+            } catch (NumberFormatException e) {
+                send(ex, 400, ApplicantCodec.errorJson(null, 0, "limit must be a number"));
+                return;
+            }
+            List<University> hits = repo.search(q, Math.max(0, Math.min(limit, MAX_SEARCH_RESULTS)));
+
+            StringBuilder sb = new StringBuilder(64 + hits.size() * 128);
+            sb.append("{\"query\":");
+            Json.appendQuoted(sb, q);
+            sb.append(",\"results\":[");
+            for (int i = 0; i < hits.size(); i++) {
+                University u = hits.get(i);
+                if (i > 0) sb.append(',');
+                sb.append("{\"name\":");
+                Json.appendQuoted(sb, u.getName());
+                sb.append(",\"city\":");
+                Json.appendQuoted(sb, u.getCity());
+                sb.append(",\"country\":");
+                Json.appendQuoted(sb, u.getCountry());
+                sb.append(",\"region\":\"").append(u.getRegion().name()).append('"');
+                sb.append(",\"globalRank\":").append(u.getGlobalRank()).append('}');
+            }
+            sb.append("]}");
+            send(ex, 200, sb.toString());
+        } catch (RuntimeException e) {
+            send(ex, 500, ApplicantCodec.errorJson(null, 0, "Internal error"));
+            System.err.println("Search failed: " + e);
+        }
+    }
+
+    /** Decoded {@code key=value} pairs of a raw query string; later keys win. */
+    private static Map<String, String> queryParams(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private void handleStats(HttpExchange ex) throws IOException {
+        RecommendationCache.Stats s = cache.stats();
+        send(ex, 200, String.format(Locale.US,
+                "{\"cache\":{\"size\":%d,\"hits\":%d,\"misses\":%d,\"hitRate\":%.4f,"
+                        + "\"evictions\":%d,\"expirations\":%d,\"invalidations\":%d}}",
+                s.size, s.hits, s.misses, s.hitRate(), s.evictions, s.expirations, s.invalidations));
+    }
+
+    private void handleMetrics(HttpExchange ex) throws IOException {
+        StringBuilder sb = new StringBuilder(8192);
+        Metrics.appendText(sb);
+        RecommendationCache.Stats s = cache.stats();
+        Metrics.gauge(sb, "unirec_cache_entries", "Result cache entries.", s.size);
+        Metrics.counter(sb, "unirec_cache_hits_total", "Result cache hits.", s.hits);
+        Metrics.counter(sb, "unirec_cache_misses_total", "Result cache misses (engine calls).", s.misses);
+        Metrics.counter(sb, "unirec_cache_evictions_total", "LRU evictions.", s.evictions);
+        Metrics.counter(sb, "unirec_cache_expirations_total", "TTL expirations.", s.expirations);
+        Metrics.counter(sb, "unirec_cache_invalidations_total", "Drops on a dataset version change.", s.invalidations);
+
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        ex.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static Mode parseMode(Object raw) {
+        if (raw == null) return Mode.PREDICT;
+        String m = raw.toString().trim().toUpperCase(Locale.ROOT);
+        return m.startsWith("VIEW") ? Mode.VIEW_ALL : Mode.PREDICT;
+    }
+
+    /** Null (rank order) unless {@code order} is "fit"; weights default to {@link FitScorer#DEFAULT}. */
+    private static FitScorer parseScorer(Object order, Object weights) {
+        String o = order == null ? "rank" : order.toString().trim().toLowerCase(Locale.ROOT);
+        if (o.equals("rank")) {
+            if (weights != null) throw new IllegalArgumentException("\"weights\" needs \"order\": \"fit\"");
+            return null;
+        }
+        if (!o.equals("fit")) {
+            throw new IllegalArgumentException("Unknown order: " + order + " (use rank or fit)");
+        }
+        if (weights == null) return FitScorer.DEFAULT;
+        if (weights instanceof Map<?, ?> m) {
+            FitScorer.Builder b = FitScorer.builder();
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                if (!(e.getValue() instanceof Number w)) {
+                    throw new IllegalArgumentException("Weight for " + e.getKey() + " must be a number");
+                }
+                b.weight(FitScorer.feature(e.getKey().toString()), w.doubleValue());
+            }
+            return b.build();
+        }
+        return FitScorer.parse(weights.toString());
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("Request body too large");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange ex, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package cli;
 
 import data.UniversityRepository;
+import data.UniversityTable;
 import logic.EligibilityProfile;
 import logic.RecommendationEngine;
 import logic.RecommendationEngine.Mode;
@@ -26,22 +27,23 @@ public class UniversityRecommendationSystem {
         System.out.println("      UNIVERSITY RECOMMENDATION SYSTEM");
         System.out.println("===============================================");
 
-        List<University> all;
+        UniversityTable all;
         try {
             UniversityRepository repo = new UniversityRepository(DATA_PATH);
-            all = repo.getAll();
+            all = repo.getTable();
         } catch (IOException e) {
             System.err.println("Failed to load dataset from " + DATA_PATH + ": " + e.getMessage());
             return;
         }
 
-        System.out.println("Dataset loaded: " + all.size() + " universities");
+        System.out.println("Dataset loaded: " + all.liveCount() + " universities");
         System.out.println();
 
         Scanner sc = new Scanner(System.in);
 
         CourseType courseType = askCourseType(sc);
         Set<Region> regions = askRegions(sc);
+        List<String> topics = askTopics(sc);
 
         Mode mode = askMode(sc);
 
@@ -75,7 +77,9 @@ public class UniversityRecommendationSystem {
                 papers,
                 budget,
                 courseType,
-                regions
+                regions,
+                List.of(),
+                topics
         );
 
         Result result = RecommendationEngine.recommend(all, profile, mode, desiredCount);
@@ -180,6 +184,17 @@ public class UniversityRecommendationSystem {
         }
     }
 
+    private static List<String> askTopics(Scanner sc) {
+        System.out.println();
+        System.out.println("Only show programs on these topics (comma-separated, e.g. crypto, network security),");
+        System.out.print("or press Enter for any: ");
+        List<String> topics = new ArrayList<>();
+        for (String p : sc.nextLine().split(",")) {
+            if (!p.isBlank()) topics.add(p.trim());
+        }
+        return topics;
+    }
+
     private static Mode askMode(Scanner sc) {
         while (true) {
             System.out.println();
@@ -299,7 +314,7 @@ public class UniversityRecommendationSystem {
                     u.getMinIelts(),
                     greLabel,
                     u.getGlobalRank(),
-                    String.join("|", s.reasons)
+                    String.join("|", s.reasons())
             );
         }
         System.out.println();
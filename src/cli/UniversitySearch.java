@@ -0,0 +1,100 @@
+package cli;
+
+import data.NameIndex;
+import data.UniversityRepository;
+import model.University;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Type-ahead lookup of universities by name, city or country, tolerant of
+ * typos ("stanfrd", "cambrige univ"); see {@link NameIndex}.
+ *
+ * Usage: java -cp out cli.UniversitySearch [--limit N] [QUERY...]
+ *
+ * With a query, prints the matches and exits. Without one, reads one query
+ * per line from stdin and prints the matches with the lookup time; an empty
+ * line or end of input quits.
+ */
+public class UniversitySearch {
+
+    private static final Path DATA_PATH = Paths.get("data", "universities_complete.csv");
+    private static final String USAGE = "Usage: UniversitySearch [--limit N] [QUERY...]";
+
+    public static void main(String[] args) {
+        int limit = 10;
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--limit") && i + 1 < args.length) {
+                String n = args[++i].trim();
+                try {
+                    limit = Integer.parseInt(n);
+                } catch (NumberFormatException e) {
+                    System.err.println("--limit must be a number: " + n);
+                    System.err.println(USAGE);
+                    return;
+                }
+            } else {
+                if (query.length() > 0) query.append(' ');
+                query.append(args[i]);
+            }
+        }
+
+        UniversityRepository repo;
+        try {
+            repo = new UniversityRepository(DATA_PATH);
+        } catch (IOException e) {
+            System.err.println("Failed to load dataset from " + DATA_PATH + ": " + e.getMessage());
+            return;
+        }
+
+        if (query.length() > 0) {
+            print(repo.search(query.toString(), limit));
+            return;
+        }
+
+        long start = System.nanoTime();
+        int size = repo.getTable().names().size();
+        System.out.printf("Indexed %d universities in %d ms. Type a few letters (Enter to quit).%n",
+                size, (System.nanoTime() - start) / 1_000_000);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        try {
+            String line;
+            while (true) {
+                System.out.print("search> ");
+                System.out.flush();
+                if ((line = in.readLine()) == null || line.isBlank()) break;
+                long t = System.nanoTime();
+                List<University> hits = repo.search(line, limit);
+                double ms = (System.nanoTime() - t) / 1e6;
+                print(hits);
+                System.out.printf("(%d in %.3f ms)%n", hits.size(), ms);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read input: " + e.getMessage());
+        }
+    }
+
+    private static void print(List<University> hits) {
+        if (hits.isEmpty()) {
+            System.out.println("(no match)");
+            return;
+        }
+        System.out.printf("%-3s %-40s %-16s %-12s %-8s%n", "#", "University", "City", "Country", "GlobRank");
+        int idx = 1;
+        for (University u : hits) {
+            System.out.printf("%-3d %-40s %-16s %-12s %-8s%n",
+                    idx++,
+                    u.getName(),
+                    u.getCity(),
+                    u.getCountry(),
+                    u.getGlobalRank() > 0 ? Integer.toString(u.getGlobalRank()) : "-");
+        }
+    }
+}
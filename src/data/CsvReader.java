@@ -0,0 +1,425 @@
+package data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV reader working directly on UTF-8 bytes in a {@link ByteBuffer}
+ * (typically a memory-mapped file).
+ *
+ * Each {@link #next()} call records field boundaries as byte offsets; no
+ * text is copied until a field is asked for. Quoted fields may contain
+ * commas, line breaks and doubled quotes ({@code ""}). Both LF and CRLF line
+ * endings are accepted, and blank lines are skipped.
+ *
+ * With interning on, repeated cell values (countries, regions, course
+ * types, flags, common numbers) are decoded once and the same
+ * {@link String} is returned for every later occurrence.
+ */
+public final class CsvReader {
+
+    // Distinct values cached per reader; past this, fields are decoded without caching
+    private static final int MAX_INTERNED = 1 << 16;
+
+    // Exact doubles 1e0..1e22 for parsing decimals without decoding them
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ByteBuffer buf;
+    private final int limit;
+    private final boolean intern;
+
+    private int pos;
+    private int fieldCount;
+    // Per field: content start / end (quotes excluded) and whether "" escapes must be undone
+    private int[] starts = new int[32];
+    private int[] ends = new int[32];
+    private boolean[] escaped = new boolean[32];
+
+    private byte[] scratch = new byte[256];
+    private final List<String> fieldView = new AbstractList<>() {
+        @Override
+        public String get(int index) {
+            return field(index);
+        }
+
+        @Override
+        public int size() {
+            return fieldCount;
+        }
+    };
+
+    // Open-addressing intern table keyed by the raw field bytes
+    private String[] internValues = new String[1024];
+    private byte[][] internKeys = new byte[1024][];
+    private int internCount;
+
+    public CsvReader(ByteBuffer buf, boolean intern) {
+        this(buf, intern, true);
+    }
+
+    /** @param skipBom false for readers over a chunk in the middle of a file */
+    CsvReader(ByteBuffer buf, boolean intern, boolean skipBom) {
+        this.buf = buf;
+        this.limit = buf.limit();
+        this.intern = intern;
+        this.pos = buf.position();
+        // UTF-8 byte order mark
+        if (skipBom && limit - pos >= 3 && (buf.get(pos) & 0xFF) == 0xEF
+                && (buf.get(pos + 1) & 0xFF) == 0xBB && (buf.get(pos + 2) & 0xFF) == 0xBF) {
+            pos += 3;
+        }
+    }
+
+    /** Memory-maps {@code file} (read-only) with interning on. */
+    public static CsvReader open(Path file) throws IOException {
+        return new CsvReader(map(file), true);
+    }
+
+    /** Maps a whole file read-only; the mapping stays valid after this returns. */
+    public static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) {
+                throw new IOException("CSV file too large to map: " + file);
+            }
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+    }
+
+    /**
+     * Splits the bytes {@code [from, to)} into at most {@code parts} ranges
+     * that each start at a record boundary. Quotes are tracked while
+     * scanning, so a line break inside a quoted cell never ends a range.
+     *
+     * @return ascending boundaries, first {@code from} and last {@code to}
+     */
+    public static int[] split(ByteBuffer buf, int from, int to, int parts) {
+        int[] bounds = new int[parts + 1];
+        bounds[0] = from;
+        int count = 1;
+        boolean inQuotes = false;
+        int next = from + (int) ((long) (to - from) / parts);
+        for (int p = from; p < to && count < parts; p++) {
+            byte b = buf.get(p);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes && p + 1 >= next && p + 1 < to) {
+                bounds[count++] = p + 1;
+                next = from + (int) ((long) (to - from) * count / parts);
+            }
+        }
+        bounds[count] = to;
+        return Arrays.copyOf(bounds, count + 1);
+    }
+
+    /** Parses a single line of text (quoted line breaks are not expected here). */
+    public static List<String> parseLine(String line) {
+        CsvReader r = new CsvReader(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)), false);
+        if (!r.next()) return List.of("");
+        return List.copyOf(r.fields());
+    }
+
+    // ---------- Records ----------
+
+    /**
+     * Advances to the next non-blank record.
+     *
+     * @return false at end of input
+     */
+    public boolean next() {
+        while (pos < limit) {
+            readRecord();
+            if (!isBlankRecord()) return true;
+        }
+        fieldCount = 0;
+        return false;
+    }
+
+    private void readRecord() {
+        fieldCount = 0;
+        while (true) {
+            int start = pos;
+            int end;
+            boolean quoted = false;
+            boolean hasEscapes = false;
+
+            if (pos < limit && buf.get(pos) == '"') {
+                quoted = true;
+                start = ++pos;
+                while (true) {
+                    if (pos >= limit) {
+                        // Unterminated quote: take the rest of the input
+                        end = limit;
+                        break;
+                    }
+                    byte b = buf.get(pos);
+                    if (b == '"') {
+                        if (pos + 1 < limit && buf.get(pos + 1) == '"') {
+                            hasEscapes = true;
+                            pos += 2;
+                            continue;
+                        }
+                        end = pos++;
+                        break;
+                    }
+                    pos++;
+                }
+                // Anything between the closing quote and the delimiter is dropped
+                while (pos < limit && buf.get(pos) != ',' && buf.get(pos) != '\n') pos++;
+            } else {
+                while (pos < limit && buf.get(pos) != ',' && buf.get(pos) != '\n') pos++;
+                end = pos;
+            }
+
+            if (!quoted && end > start && buf.get(end - 1) == '\r' && (pos >= limit || buf.get(pos) == '\n')) {
+                end--;
+            }
+            addField(start, end, hasEscapes);
+
+            if (pos >= limit) return;
+            byte delim = buf.get(pos++);
+            if (delim == '\n') return;
+        }
+    }
+
+    private boolean isBlankRecord() {
+        if (fieldCount != 1) return false;
+        for (int i = starts[0]; i < ends[0]; i++) {
+            byte b = buf.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') return false;
+        }
+        return true;
+    }
+
+    private void addField(int start, int end, boolean hasEscapes) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            escaped = Arrays.copyOf(escaped, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        escaped[fieldCount] = hasEscapes;
+        fieldCount++;
+    }
+
+    /** Byte offset just past the current record (where the next one starts). */
+    public int position() {
+        return pos;
+    }
+
+    // ---------- Fields ----------
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /** Byte offset where field {@code i}'s content starts (after an opening quote). */
+    public int fieldStart(int i) {
+        return starts[i];
+    }
+
+    /** Byte offset just past field {@code i}'s content (before a closing quote). */
+    public int fieldEnd(int i) {
+        return ends[i];
+    }
+
+    /** Decoded, unescaped text of field {@code i} of the current record. */
+    public String field(int i) {
+        if (i < 0 || i >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + i + " of " + fieldCount);
+        }
+        int len = copyField(i);
+        if (len == 0) return "";
+        return intern ? intern(len) : new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fields of the current record as a list. The list is reused and
+     * reflects whatever record is current, so copy it to keep values past
+     * the next {@link #next()} call.
+     */
+    public List<String> fields() {
+        return fieldView;
+    }
+
+    /**
+     * Field {@code i} as an int, read from its bytes without decoding; same
+     * result as {@code Integer.parseInt(field(i).trim())}, or {@code fallback}
+     * when the field is missing, blank or not a number.
+     */
+    public int intField(int i, int fallback) {
+        if (i < 0 || i >= fieldCount) return fallback;
+        int p = trimmedStart(i);
+        int end = trimmedEnd(i, p);
+        if (p == end) return fallback;
+        boolean negative = buf.get(p) == '-';
+        if (negative || buf.get(p) == '+') p++;
+        // Up to 9 ASCII digits cannot overflow; anything else takes the String path
+        if (p == end || end - p > 9) return slowInt(i, fallback);
+        int v = 0;
+        for (; p < end; p++) {
+            int d = buf.get(p) - '0';
+            if (d < 0 || d > 9) return slowInt(i, fallback);
+            v = v * 10 + d;
+        }
+        return negative ? -v : v;
+    }
+
+    /**
+     * Field {@code i} as a double, read from its bytes without decoding; same
+     * result as {@code Double.parseDouble(field(i).trim())}, or {@code fallback}
+     * when the field is missing, blank or not a number.
+     */
+    public double doubleField(int i, double fallback) {
+        if (i < 0 || i >= fieldCount) return fallback;
+        int p = trimmedStart(i);
+        int end = trimmedEnd(i, p);
+        if (p == end) return fallback;
+        boolean negative = buf.get(p) == '-';
+        if (negative || buf.get(p) == '+') p++;
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        for (; p < end; p++) {
+            byte b = buf.get(p);
+            if (b >= '0' && b <= '9') {
+                if (digits == 18) return slowDouble(i, fallback);
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (dot) scale++;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                // Exponents, hex, NaN / Infinity and the like
+                return slowDouble(i, fallback);
+            }
+        }
+        // An exact mantissa divided by an exact power of ten rounds like parseDouble
+        if (digits == 0 || mantissa >= 1L << 53 || scale >= POW10.length) return slowDouble(i, fallback);
+        double v = scale == 0 ? mantissa : mantissa / POW10[scale];
+        return negative ? -v : v;
+    }
+
+    /** Whether field {@code i} is missing or {@link String#isBlank() blank}, checked on its bytes. */
+    public boolean isBlank(int i) {
+        if (i < 0 || i >= fieldCount) return true;
+        for (int p = starts[i]; p < ends[i]; p++) {
+            int b = buf.get(p) & 0xFF;
+            if (b >= 0x80) return field(i).isBlank();
+            if (!Character.isWhitespace(b)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether field {@code i}, trimmed, equals {@code word} (lower-case
+     * ASCII) ignoring case; compared on the bytes without decoding.
+     */
+    public boolean fieldEqualsIgnoreCase(int i, String word) {
+        if (i < 0 || i >= fieldCount) return word.isEmpty();
+        int p = trimmedStart(i);
+        if (trimmedEnd(i, p) - p != word.length()) return false;
+        for (int k = 0; k < word.length(); k++) {
+            int b = buf.get(p + k);
+            if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+            if (b != word.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    // Same cut-off as String.trim(): every byte up to ' ' (UTF-8 continuation bytes are above it)
+    private int trimmedStart(int i) {
+        int p = starts[i];
+        while (p < ends[i] && (buf.get(p) & 0xFF) <= ' ') p++;
+        return p;
+    }
+
+    private int trimmedEnd(int i, int from) {
+        int end = ends[i];
+        while (end > from && (buf.get(end - 1) & 0xFF) <= ' ') end--;
+        return end;
+    }
+
+    private int slowInt(int i, int fallback) {
+        try {
+            return Integer.parseInt(field(i).trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private double slowDouble(int i, double fallback) {
+        try {
+            return Double.parseDouble(field(i).trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /** Copies field bytes into {@link #scratch}, collapsing {@code ""}; returns the length. */
+    private int copyField(int i) {
+        int start = starts[i];
+        int len = ends[i] - start;
+        if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length * 2)];
+        if (!escaped[i]) {
+            buf.get(start, scratch, 0, len);
+            return len;
+        }
+        int n = 0;
+        for (int p = start; p < ends[i]; p++) {
+            byte b = buf.get(p);
+            scratch[n++] = b;
+            if (b == '"') p++;
+        }
+        return n;
+    }
+
+    private String intern(int len) {
+        int h = 1;
+        for (int k = 0; k < len; k++) h = 31 * h + scratch[k];
+        int mask = internKeys.length - 1;
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (internKeys[slot] != null) {
+            if (Arrays.equals(internKeys[slot], 0, internKeys[slot].length, scratch, 0, len)) {
+                return internValues[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        String s = new String(scratch, 0, len, StandardCharsets.UTF_8);
+        if (internCount >= MAX_INTERNED) return s;
+        internKeys[slot] = Arrays.copyOf(scratch, len);
+        internValues[slot] = s;
+        if (++internCount * 2 > internKeys.length) rehash();
+        return s;
+    }
+
+    private void rehash() {
+        byte[][] oldKeys = internKeys;
+        String[] oldValues = internValues;
+        internKeys = new byte[oldKeys.length * 2][];
+        internValues = new String[oldKeys.length * 2];
+        int mask = internKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            byte[] key = oldKeys[j];
+            if (key == null) continue;
+            int h = 1;
+            for (byte b : key) h = 31 * h + b;
+            int slot = (h ^ (h >>> 16)) & mask;
+            while (internKeys[slot] != null) slot = (slot + 1) & mask;
+            internKeys[slot] = key;
+            internValues[slot] = oldValues[j];
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package data;
+
+import model.CourseType;
+import model.Region;
+import model.University;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns {@link CsvReader} records straight into {@link UniversityTable.Builder}
+ * rows, with the same rules as {@link University#fromCells} but without a
+ * {@link University} or a String per cell: numbers and flags are parsed from
+ * the field bytes and only the text columns are decoded. Region, course type
+ * and mode labels repeat, so each is parsed once per distinct value.
+ */
+final class CsvRowParser {
+
+    // Distinct labels remembered per column; past this, labels are parsed every time
+    private static final int MAX_CACHED_LABELS = 1024;
+
+    private static final String[] TRUE_WORDS = {"y", "yes", "true", "1", "req", "required"};
+    private static final String[] FALSE_WORDS = {"n", "no", "false", "0", "opt", "optional"};
+
+    private final University.Columns cols;
+    // Region label → country → region (the country decides when the label is blank or unknown)
+    private final Map<String, Map<String, Region>> regions = new HashMap<>();
+    private int cachedRegions;
+    private final Map<String, CourseType> courseTypes = new HashMap<>();
+    private final Map<String, Boolean> onCampusByMode = new HashMap<>();
+
+    CsvRowParser(University.Columns cols) {
+        this.cols = cols;
+    }
+
+    /** Adds the reader's current record to {@code table}. */
+    void addTo(UniversityTable.Builder table, CsvReader r) {
+        String name = text(r, cols.name);
+        String country = text(r, cols.country);
+        int globalRank = r.intField(cols.globalRank, 9999);
+        boolean hasResearchLab = !r.isBlank(cols.researchLab)
+                ? flag(r, cols.researchLab, true)
+                // Heuristic: top 200 assumed to have decent research infra
+                : globalRank > 0 && globalRank <= 200;
+
+        table.add(
+                name.isBlank() ? "Unknown University" : name,
+                country.isBlank() ? "Unknown" : country,
+                text(r, cols.city),
+                region(text(r, cols.region), country),
+                courseType(text(r, cols.courseType)),
+                text(r, cols.program),
+                text(r, cols.degree),
+                r.doubleField(cols.minIelts, 6.5),
+                flag(r, cols.greRequired, false),
+                globalRank,
+                r.intField(cols.subjectRank, 0),
+                r.doubleField(cols.totalUsd, 0.0),
+                r.doubleField(cols.tuitionUsd, 0.0),
+                hasResearchLab,
+                onCampus(text(r, cols.mode)),
+                text(r, cols.focus).trim()
+        );
+    }
+
+    private static String text(CsvReader r, int col) {
+        return col < 0 || col >= r.fieldCount() ? "" : r.field(col);
+    }
+
+    // Same words as University.parseBool, matched on the bytes
+    private static boolean flag(CsvReader r, int col, boolean fallback) {
+        for (String w : TRUE_WORDS) {
+            if (r.fieldEqualsIgnoreCase(col, w)) return true;
+        }
+        for (String w : FALSE_WORDS) {
+            if (r.fieldEqualsIgnoreCase(col, w)) return false;
+        }
+        return fallback;
+    }
+
+    private Region region(String label, String country) {
+        Map<String, Region> byCountry = regions.get(label);
+        Region cached = byCountry == null ? null : byCountry.get(country);
+        if (cached != null) return cached;
+        Region region = University.parseRegion(label, country);
+        if (cachedRegions < MAX_CACHED_LABELS) {
+            regions.computeIfAbsent(label, k -> new HashMap<>()).put(country, region);
+            cachedRegions++;
+        }
+        return region;
+    }
+
+    private CourseType courseType(String label) {
+        CourseType type = courseTypes.get(label);
+        if (type == null) {
+            type = University.parseCourseType(label);
+            if (courseTypes.size() < MAX_CACHED_LABELS) courseTypes.put(label, type);
+        }
+        return type;
+    }
+
+    private boolean onCampus(String mode) {
+        Boolean campus = onCampusByMode.get(mode);
+        if (campus == null) {
+            campus = University.parseOnCampus(mode);
+            if (onCampusByMode.size() < MAX_CACHED_LABELS) onCampusByMode.put(mode, campus);
+        }
+        return campus;
+    }
+}
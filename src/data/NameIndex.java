@@ -0,0 +1,429 @@
+package data;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Autocomplete index over university names, cities and countries, built
+ * once per table snapshot (see {@link UniversityTable#names()}).
+ *
+ * One entry per distinct (name, country) among live rows, numbered in
+ * {@link UniversityTable#compareRank} order of its best-ranked row, so a
+ * lower entry id is a better rank and the first k set bits of a match
+ * bitmap are the top k. Every entry is indexed under the words of its
+ * name, cities and country (lower-case, accents folded: "Zürich" → zurich).
+ *
+ * Each query word is a prefix: "stan univ" finds "Stanford University".
+ * Prefixes are a binary search in the sorted word list. Words of 4+ letters
+ * also match with typos: one edit up to 7 letters, two from 8 ("stanfrod",
+ * "cambrige"). Typo candidates come from a trigram index over the word list
+ * and are confirmed with an edit distance against the word's prefix.
+ * Entries matching every query word without typos come first; typo matches
+ * only fill the remaining places.
+ *
+ * Immutable; {@link #search} is safe to call from any thread.
+ */
+public final class NameIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int[] NO_ROWS = new int[0];
+    private static final int DENSE_SHARE = 32;
+
+    // Entry id -> best-ranked live row of that (name, country)
+    private final int[] entryRow;
+
+    // Sorted distinct words; word id -> entry ids, ascending (CSR layout)
+    private final String[] words;
+    private final int[] wordStart;
+    private final int[] wordEntries;
+    // Postings of words in more than 1 / DENSE_SHARE of the entries as a
+    // bitmap too ("university"), so a broad prefix ORs words, not entries
+    private final BitSet[] dense;
+
+    // Trigram of " " + word + " " -> word ids, ascending (CSR layout)
+    private final Map<Long, Integer> gramIds;
+    private final int[] gramStart;
+    private final int[] gramWords;
+
+    NameIndex(UniversityTable table) {
+        StringDictionary strings = table.strings();
+
+        // ---------- Entries ----------
+        // Walking rows in rank order, the first row of each (name, country) is its best one
+        Map<Long, Integer> byKey = new HashMap<>();
+        int[] rowEntry = new int[table.size()];
+        Arrays.fill(rowEntry, -1);
+        int[] best = new int[64];
+        int n = 0;
+        for (int row : rowsInRankOrder(table)) {
+            long key = (long) table.nameId(row) << 32 | table.countryId(row);
+            Integer e = byKey.putIfAbsent(key, n);
+            if (e == null) {
+                if (n == best.length) best = Arrays.copyOf(best, n * 2);
+                best[n] = row;
+                rowEntry[row] = n++;
+            } else {
+                rowEntry[row] = e;
+            }
+        }
+        entryRow = Arrays.copyOf(best, n);
+
+        // Live rows grouped by entry, in entry order (counting sort)
+        int[] rowStart = new int[n + 1];
+        for (int e : rowEntry) {
+            if (e >= 0) rowStart[e + 1]++;
+        }
+        for (int e = 0; e < n; e++) rowStart[e + 1] += rowStart[e];
+        int[] rowsByEntry = new int[rowStart[n]];
+        int[] fill = Arrays.copyOf(rowStart, n);
+        for (int row = 0; row < rowEntry.length; row++) {
+            if (rowEntry[row] >= 0) rowsByEntry[fill[rowEntry[row]]++] = row;
+        }
+
+        // ---------- Words ----------
+        // String id -> word ids; each distinct name / city / country is split once
+        int[][] wordsOf = new int[strings.size()][];
+        Map<String, Integer> wordIds = new HashMap<>();
+        List<String> found = new ArrayList<>();
+        for (int row : rowsByEntry) {
+            split(strings, table.nameId(row), wordsOf, wordIds, found);
+            split(strings, table.cityId(row), wordsOf, wordIds, found);
+            split(strings, table.countryId(row), wordsOf, wordIds, found);
+        }
+        words = found.toArray(new String[0]);
+        Arrays.sort(words);
+        int[] sortedId = new int[words.length];
+        for (int w = 0; w < words.length; w++) sortedId[wordIds.get(words[w])] = w;
+        for (int[] ws : wordsOf) {
+            if (ws == null) continue;
+            for (int i = 0; i < ws.length; i++) ws[i] = sortedId[ws[i]];
+        }
+
+        // Two passes over the entries in order: count, then fill, so postings come out sorted
+        int[] lastEntry = new int[words.length];
+        Arrays.fill(lastEntry, -1);
+        wordStart = new int[words.length + 1];
+        for (int e = 0; e < n; e++) {
+            for (int i = rowStart[e]; i < rowStart[e + 1]; i++) {
+                int row = rowsByEntry[i];
+                count(wordsOf[table.nameId(row)], e, lastEntry, wordStart);
+                count(wordsOf[table.cityId(row)], e, lastEntry, wordStart);
+                count(wordsOf[table.countryId(row)], e, lastEntry, wordStart);
+            }
+        }
+        for (int w = 0; w < words.length; w++) wordStart[w + 1] += wordStart[w];
+        wordEntries = new int[wordStart[words.length]];
+        int[] next = Arrays.copyOf(wordStart, words.length);
+        Arrays.fill(lastEntry, -1);
+        for (int e = 0; e < n; e++) {
+            for (int i = rowStart[e]; i < rowStart[e + 1]; i++) {
+                int row = rowsByEntry[i];
+                post(wordsOf[table.nameId(row)], e, lastEntry, next, wordEntries);
+                post(wordsOf[table.cityId(row)], e, lastEntry, next, wordEntries);
+                post(wordsOf[table.countryId(row)], e, lastEntry, next, wordEntries);
+            }
+        }
+
+        dense = new BitSet[words.length];
+        for (int w = 0; w < words.length; w++) {
+            if ((long) (wordStart[w + 1] - wordStart[w]) * DENSE_SHARE > n) {
+                dense[w] = new BitSet(n);
+                for (int i = wordStart[w]; i < wordStart[w + 1]; i++) dense[w].set(wordEntries[i]);
+            }
+        }
+
+        // ---------- Trigrams ----------
+        gramIds = new HashMap<>();
+        long[][] gramsOf = new long[words.length][];
+        int[] gramCount = new int[64];
+        for (int w = 0; w < words.length; w++) {
+            long[] gs = trigrams(words[w], true);
+            gramsOf[w] = gs;
+            for (long g : gs) {
+                int id = gramIds.computeIfAbsent(g, k -> gramIds.size());
+                if (id == gramCount.length) gramCount = Arrays.copyOf(gramCount, id * 2);
+                gramCount[id]++;
+            }
+        }
+        gramStart = new int[gramIds.size() + 1];
+        for (int g = 0; g < gramIds.size(); g++) gramStart[g + 1] = gramStart[g] + gramCount[g];
+        gramWords = new int[gramStart[gramIds.size()]];
+        int[] gramNext = Arrays.copyOf(gramStart, gramIds.size());
+        for (int w = 0; w < words.length; w++) {
+            for (long g : gramsOf[w]) gramWords[gramNext[gramIds.get(g)]++] = w;
+        }
+    }
+
+    /**
+     * Live rows in {@link UniversityTable#compareRank} order: a heap merge
+     * of the partitions, which are each in that order already, so only
+     * about log2(partitions) comparisons per row.
+     */
+    private static int[] rowsInRankOrder(UniversityTable table) {
+        int k = UniversityTable.partitionCount();
+        int[][] parts = new int[k][];
+        int[] head = new int[k];
+        int[] heap = new int[k];
+        int h = 0;
+        int total = 0;
+        for (int p = 0; p < k; p++) {
+            parts[p] = table.partitionRows(p);
+            total += parts[p].length;
+            if (parts[p].length > 0) heap[h++] = p;
+        }
+        for (int i = h / 2 - 1; i >= 0; i--) siftDown(table, parts, head, heap, h, i);
+        int[] out = new int[total];
+        for (int i = 0; i < total; i++) {
+            int p = heap[0];
+            out[i] = parts[p][head[p]++];
+            if (head[p] == parts[p].length) heap[0] = heap[--h];
+            siftDown(table, parts, head, heap, h, 0);
+        }
+        return out;
+    }
+
+    private static void siftDown(UniversityTable table, int[][] parts, int[] head, int[] heap, int h, int i) {
+        while (true) {
+            int least = i;
+            for (int c = 2 * i + 1; c <= 2 * i + 2 && c < h; c++) {
+                if (table.compareRank(parts[heap[c]][head[heap[c]]], parts[heap[least]][head[heap[least]]]) < 0) {
+                    least = c;
+                }
+            }
+            if (least == i) return;
+            int t = heap[i];
+            heap[i] = heap[least];
+            heap[least] = t;
+            i = least;
+        }
+    }
+
+    private static void split(StringDictionary strings, int stringId, int[][] wordsOf,
+                              Map<String, Integer> wordIds, List<String> found) {
+        if (wordsOf[stringId] != null) return;
+        List<String> ws = words(strings.get(stringId));
+        int[] ids = new int[ws.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = wordIds.computeIfAbsent(ws.get(i), w -> {
+                found.add(w);
+                return found.size() - 1;
+            });
+        }
+        wordsOf[stringId] = ids;
+    }
+
+    private static void count(int[] ws, int entry, int[] lastEntry, int[] wordStart) {
+        for (int w : ws) {
+            if (lastEntry[w] == entry) continue;
+            lastEntry[w] = entry;
+            wordStart[w + 1]++;
+        }
+    }
+
+    private static void post(int[] ws, int entry, int[] lastEntry, int[] next, int[] wordEntries) {
+        for (int w : ws) {
+            if (lastEntry[w] == entry) continue;
+            lastEntry[w] = entry;
+            wordEntries[next[w]++] = entry;
+        }
+    }
+
+    /** Lower-case words of {@code text} with accents and apostrophes dropped ("King's" → kings). */
+    static List<String> words(String text) {
+        List<String> out = new ArrayList<>();
+        StringBuilder w = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) return foldedWords(text);
+            if (c >= 'A' && c <= 'Z') {
+                w.append((char) (c + ('a' - 'A')));
+            } else if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                w.append(c);
+            } else if (c != '\'' && w.length() > 0) {
+                out.add(w.toString());
+                w.setLength(0);
+            }
+        }
+        if (w.length() > 0) out.add(w.toString());
+        return out;
+    }
+
+    /** Slow path of {@link #words} for non-ASCII text. */
+    private static List<String> foldedWords(String text) {
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        folded = folded.toLowerCase(Locale.ROOT).replace("'", "").replace("\u2019", "");
+        List<String> out = new ArrayList<>();
+        for (String w : NON_WORD.split(folded)) {
+            if (!w.isEmpty()) out.add(w);
+        }
+        return out;
+    }
+
+    /**
+     * Distinct trigrams of " " + word (+ " " when {@code whole}), three
+     * chars packed into a long. A query word is a prefix, so it gets no
+     * trailing pad.
+     */
+    private static long[] trigrams(String word, boolean whole) {
+        String padded = whole ? " " + word + " " : " " + word;
+        int k = padded.length() - 2;
+        if (k <= 0) return new long[0];
+        long[] gs = new long[k];
+        for (int i = 0; i < k; i++) {
+            gs[i] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+        }
+        Arrays.sort(gs);
+        int d = 0;
+        for (int i = 0; i < k; i++) {
+            if (i == 0 || gs[i] != gs[i - 1]) gs[d++] = gs[i];
+        }
+        return Arrays.copyOf(gs, d);
+    }
+
+    /** Edits allowed in a query word: none up to 3 letters, one up to 7, then two. */
+    static int maxEdits(int length) {
+        return length <= 3 ? 0 : length <= 7 ? 1 : 2;
+    }
+
+    /** Number of indexed (name, country) entries. */
+    public int size() {
+        return entryRow.length;
+    }
+
+    // ---------- Search ----------
+
+    /**
+     * Best-ranked row of each of the top {@code limit} universities matching
+     * {@code query}, best match first: entries matching every query word as
+     * a prefix, in rank order, then typo matches in rank order.
+     */
+    public int[] search(String query, int limit) {
+        List<String> terms = words(query);
+        if (terms.isEmpty() || limit <= 0) return NO_ROWS;
+
+        BitSet exact = null;
+        BitSet any = null;
+        for (String term : terms) {
+            BitSet termExact = new BitSet(entryRow.length);
+            BitSet termAny = new BitSet(entryRow.length);
+            match(term, termExact, termAny);
+            termAny.or(termExact);
+            if (termAny.isEmpty()) return NO_ROWS;
+            if (exact == null) {
+                exact = termExact;
+                any = termAny;
+            } else {
+                exact.and(termExact);
+                any.and(termAny);
+            }
+        }
+
+        int[] out = new int[Math.min(limit, any.cardinality())];
+        int k = 0;
+        for (int e = exact.nextSetBit(0); e >= 0 && k < out.length; e = exact.nextSetBit(e + 1)) {
+            out[k++] = entryRow[e];
+        }
+        any.andNot(exact);
+        for (int e = any.nextSetBit(0); e >= 0 && k < out.length; e = any.nextSetBit(e + 1)) {
+            out[k++] = entryRow[e];
+        }
+        return out;
+    }
+
+    /** Sets the entries having a word that starts with {@code term} in {@code exact}, typo matches in {@code typo}. */
+    private void match(String term, BitSet exact, BitSet typo) {
+        int lo = lowerBound(term);
+        int hi = lo;
+        while (hi < words.length && words[hi].startsWith(term)) {
+            setEntries(hi++, exact);
+        }
+
+        int edits = maxEdits(term.length());
+        if (edits == 0) return;
+        // A prefix within `edits` edits shares all but 3 * edits of the term's trigrams
+        long[] grams = trigrams(term, false);
+        int needed = Math.max(1, grams.length - 3 * edits);
+        int[] shared = new int[words.length];
+        int[] row = new int[3 * (term.length() + edits + 1)];
+        for (long g : grams) {
+            Integer id = gramIds.get(g);
+            if (id == null) continue;
+            for (int i = gramStart[id]; i < gramStart[id + 1]; i++) {
+                int w = gramWords[i];
+                if (++shared[w] == needed && (w < lo || w >= hi)
+                        && prefixDistance(term, words[w], edits, row) <= edits) {
+                    setEntries(w, typo);
+                }
+            }
+        }
+    }
+
+    private void setEntries(int word, BitSet out) {
+        if (dense[word] != null) {
+            out.or(dense[word]);
+            return;
+        }
+        for (int i = wordStart[word]; i < wordStart[word + 1]; i++) {
+            out.set(wordEntries[i]);
+        }
+    }
+
+    /** First word id whose word is >= {@code term}. */
+    private int lowerBound(String term) {
+        int lo = 0;
+        int hi = words.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (words[mid].compareTo(term) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Smallest edit distance (insert, delete, substitute, swap two adjacent
+     * letters) between {@code term} and any prefix of {@code word}, or
+     * {@code max + 1} once it must exceed {@code max}. {@code rows} is
+     * scratch space for three DP rows.
+     */
+    static int prefixDistance(String term, String word, int max, int[] rows) {
+        int n = term.length();
+        int m = Math.min(word.length(), n + max);
+        int w = m + 1;
+        // Rolling rows i - 2, i - 1 and i over the first m letters of word
+        for (int j = 0; j <= m; j++) rows[j] = j;
+        for (int i = 1; i <= n; i++) {
+            int cur = (i % 3) * w;
+            int prev = ((i + 2) % 3) * w;
+            int prev2 = ((i + 1) % 3) * w;
+            rows[cur] = i;
+            int rowMin = i;
+            char a = term.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char b = word.charAt(j - 1);
+                int d = Math.min(Math.min(rows[prev + j] + 1, rows[cur + j - 1] + 1),
+                        rows[prev + j - 1] + (a == b ? 0 : 1));
+                if (i > 1 && j > 1 && a == word.charAt(j - 2) && term.charAt(i - 2) == b) {
+                    d = Math.min(d, rows[prev2 + j - 2] + 1);
+                }
+                rows[cur + j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max) return max + 1;
+        }
+        int last = (n % 3) * w;
+        int best = max + 1;
+        for (int j = Math.max(0, n - max); j <= m; j++) {
+            best = Math.min(best, rows[last + j]);
+        }
+        return best;
+    }
+}
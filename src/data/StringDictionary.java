@@ -0,0 +1,77 @@
+package data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Append-only string table: each distinct value is stored once and rows
+ * refer to it by an int id. Countries, regions and cities repeat heavily
+ * across a catalog, so this keeps the columnar store small.
+ *
+ * A dictionary is filled while its table is built and only read after
+ * that; a derived table interns its new strings into an {@link #extend()}.
+ */
+public final class StringDictionary {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Shared with an in-place extension, which only writes past this dictionary's size
+    private String[] values;
+    private final Map<String, Integer> ids;
+    private int size;
+    // Set once an extension appends to the shared arrays; any later one copies
+    private final AtomicBoolean extended = new AtomicBoolean();
+
+    public StringDictionary() {
+        this(new String[INITIAL_CAPACITY], new HashMap<>(), 0);
+    }
+
+    private StringDictionary(String[] values, Map<String, Integer> ids, int size) {
+        this.values = values;
+        this.ids = ids;
+        this.size = size;
+    }
+
+    /** Returns the id for {@code value}, adding it if it is new. */
+    public int intern(String value) {
+        if (extended.get()) {
+            throw new IllegalStateException("Dictionary has been extended; intern into the extension");
+        }
+        String v = value == null ? "" : value;
+        Integer id = ids.get(v);
+        if (id != null) return id;
+        if (size == values.length) values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        values[size] = v;
+        ids.put(v, size);
+        return size++;
+    }
+
+    /**
+     * Dictionary with the same ids that new strings can be interned into,
+     * leaving this one unchanged. The first extension appends to this
+     * dictionary's storage in place (this one keeps reading only its own
+     * first {@link #size()} entries), so a chain of deltas copies nothing;
+     * a second extension of the same dictionary copies it.
+     */
+    public StringDictionary extend() {
+        if (extended.compareAndSet(false, true)) {
+            return new StringDictionary(values, ids, size);
+        }
+        String[] copy = new String[Math.max(INITIAL_CAPACITY, size + (size >> 1))];
+        System.arraycopy(values, 0, copy, 0, size);
+        Map<String, Integer> copyIds = new HashMap<>(size * 2);
+        for (int id = 0; id < size; id++) copyIds.put(copy[id], id);
+        return new StringDictionary(copy, copyIds, size);
+    }
+
+    public String get(int id) {
+        if (id >= size) throw new IndexOutOfBoundsException("String " + id + " of " + size);
+        return values[id];
+    }
+
+    public int size() {
+        return size;
+    }
+}
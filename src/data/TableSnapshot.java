@@ -0,0 +1,288 @@
+package data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a {@link UniversityTable}, so a process can start
+ * without parsing the CSV.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header   magic, format version, rows, strings, partitions,
+ *            source CSV size + CRC32, payload length, payload CRC32
+ *   payload  int/double columns (one array per field, row-id order)
+ *            byte columns: region, course type, flags
+ *            per partition: length, rows, IELTS-order offsets, cost-order offsets
+ *            string table: end offsets, then UTF-8 bytes
+ * </pre>
+ * Partitions are stored presorted, so loading is bulk copies out of a
+ * memory-mapped file plus one decode per distinct string.
+ */
+public final class TableSnapshot {
+
+    /** "UNIS" */
+    private static final int MAGIC = 0x554E4953;
+    private static final int FORMAT_VERSION = 4;
+    private static final int HEADER_BYTES = 5 * 4 + 4 * 8;
+
+    private TableSnapshot() {
+    }
+
+    /** Snapshot file next to a CSV: {@code foo.csv} → {@code foo.snap}. */
+    public static Path siblingOf(Path csv) {
+        String name = csv.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return csv.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".snap");
+    }
+
+    // ---------- Writing ----------
+
+    /**
+     * Writes the live rows of {@code table} to {@code out}, recording the
+     * size of {@code sourceCsv} and {@code sourceCrc} for {@link #isFresh}.
+     * The file is written to a temporary sibling and moved into place.
+     *
+     * @param sourceCrc {@link #checksum} of {@code sourceCsv}, taken before
+     *                  {@code table} was loaded from it: if the file changes
+     *                  in between, the snapshot is then stale rather than
+     *                  wrongly fresh
+     */
+    public static void write(UniversityTable table, Path sourceCsv, long sourceCrc, Path out) throws IOException {
+        // Live rows are renumbered densely; tombstones are dropped
+        int n = table.liveCount();
+        int[] newId = new int[table.size()];
+        int[] oldId = new int[n];
+        for (int row = 0, j = 0; row < table.size(); row++) {
+            if (table.isLive(row)) {
+                newId[row] = j;
+                oldId[j++] = row;
+            }
+        }
+
+        StringDictionary strings = new StringDictionary();
+        int[][] stringIds = new int[6][n];
+        for (int i = 0; i < n; i++) {
+            int row = oldId[i];
+            stringIds[0][i] = strings.intern(table.name(row));
+            stringIds[1][i] = strings.intern(table.country(row));
+            stringIds[2][i] = strings.intern(table.city(row));
+            stringIds[3][i] = strings.intern(table.program(row));
+            stringIds[4][i] = strings.intern(table.degree(row));
+            stringIds[5][i] = strings.intern(table.focus(row));
+        }
+        byte[][] utf8 = new byte[strings.size()][];
+        int stringBytes = 0;
+        for (int id = 0; id < utf8.length; id++) {
+            utf8[id] = strings.get(id).getBytes(StandardCharsets.UTF_8);
+            stringBytes += utf8[id].length;
+        }
+
+        int partitions = UniversityTable.partitionCount();
+        long payload = (long) n * (2 * 4 + 3 * 8 + 6 * 4 + 3)
+                + (long) partitions * 4 + (long) table.liveCount() * 3 * 4
+                + (long) (utf8.length + 1) * 4 + stringBytes;
+        if (payload > Integer.MAX_VALUE - HEADER_BYTES) {
+            throw new IOException("Dataset too large for a snapshot");
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + (int) payload);
+        buf.position(HEADER_BYTES);
+        for (int i = 0; i < n; i++) buf.putInt(table.globalRank(oldId[i]));
+        for (int i = 0; i < n; i++) buf.putInt(table.subjectRank(oldId[i]));
+        for (int i = 0; i < n; i++) buf.putDouble(table.ieltsMin(oldId[i]));
+        for (int i = 0; i < n; i++) buf.putDouble(table.totalUsd(oldId[i]));
+        for (int i = 0; i < n; i++) buf.putDouble(table.tuitionUsd(oldId[i]));
+        for (int[] ids : stringIds) {
+            for (int i = 0; i < n; i++) buf.putInt(ids[i]);
+        }
+        for (int i = 0; i < n; i++) buf.put((byte) table.regionOrdinal(oldId[i]));
+        for (int i = 0; i < n; i++) buf.put((byte) table.courseTypeOrdinal(oldId[i]));
+        for (int i = 0; i < n; i++) buf.put(table.flags(oldId[i]));
+        for (int p = 0; p < partitions; p++) {
+            int[] rows = table.partitionRows(p);
+            buf.putInt(rows.length);
+            for (int row : rows) buf.putInt(newId[row]);
+            for (int off : table.partitionByIelts(p)) buf.putInt(off);
+            for (int off : table.partitionByCost(p)) buf.putInt(off);
+        }
+        int end = 0;
+        for (byte[] b : utf8) {
+            end += b.length;
+            buf.putInt(end);
+        }
+        buf.putInt(end);
+        for (byte[] b : utf8) buf.put(b);
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), HEADER_BYTES, (int) payload);
+
+        buf.position(0);
+        buf.putInt(MAGIC);
+        buf.putInt(FORMAT_VERSION);
+        buf.putInt(n);
+        buf.putInt(utf8.length);
+        buf.putInt(partitions);
+        buf.putLong(Files.size(sourceCsv));
+        buf.putLong(sourceCrc);
+        buf.putLong(payload);
+        buf.putLong(crc.getValue());
+
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        Files.write(tmp, buf.array());
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** CRC32 of a file's bytes; about a second per GB, far below parsing it. */
+    public static long checksum(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+            while (ch.read(buf) >= 0) {
+                buf.flip();
+                crc.update(buf);
+                buf.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    // ---------- Reading ----------
+
+    /**
+     * True if {@code snapshot} exists, has a supported header and was
+     * compiled from {@code sourceCsv} as it currently is: same size and
+     * same CRC32 of the bytes, so a touched but unchanged CSV keeps its
+     * snapshot and an edit that keeps size and timestamp does not. The
+     * payload checksum is verified by {@link #read}.
+     */
+    public static boolean isFresh(Path snapshot, Path sourceCsv) {
+        if (!Files.isRegularFile(snapshot) || !Files.isRegularFile(sourceCsv)) return false;
+        try (FileChannel ch = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) return false;
+            ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES);
+            while (h.hasRemaining() && ch.read(h) >= 0) {
+                // read the whole header
+            }
+            h.flip();
+            if (h.getInt() != MAGIC || h.getInt() != FORMAT_VERSION) return false;
+            h.position(20);
+            return h.getLong() == Files.size(sourceCsv) && h.getLong() == checksum(sourceCsv);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Memory-maps a snapshot and builds the table from it.
+     *
+     * @throws IOException if the file is truncated, has an unknown format
+     *                     version or fails its checksum
+     */
+    public static UniversityTable read(Path snapshot) throws IOException {
+        try (FileChannel ch = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) {
+                throw new IOException("Not a dataset snapshot: " + snapshot);
+            }
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+
+            if (buf.getInt() != MAGIC) {
+                throw new IOException("Not a dataset snapshot: " + snapshot);
+            }
+            int format = buf.getInt();
+            if (format != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format " + format + ": " + snapshot);
+            }
+            int n = buf.getInt();
+            int stringCount = buf.getInt();
+            int partitions = buf.getInt();
+            buf.getLong(); // source size
+            buf.getLong(); // source CRC32
+            long payload = buf.getLong();
+            long expectedCrc = buf.getLong();
+            if (partitions != UniversityTable.partitionCount()) {
+                throw new IOException("Snapshot was built for different region / course type enums: " + snapshot);
+            }
+            if (payload != ch.size() - HEADER_BYTES) {
+                throw new IOException("Truncated snapshot: " + snapshot);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buf.slice());
+            if (crc.getValue() != expectedCrc) {
+                throw new IOException("Snapshot checksum mismatch: " + snapshot);
+            }
+
+            try {
+                int[] globalRank = ints(buf, n);
+                int[] subjectRank = ints(buf, n);
+                double[] ieltsMin = doubles(buf, n);
+                double[] totalUsd = doubles(buf, n);
+                double[] tuitionUsd = doubles(buf, n);
+                int[] nameId = ints(buf, n);
+                int[] countryId = ints(buf, n);
+                int[] cityId = ints(buf, n);
+                int[] programId = ints(buf, n);
+                int[] degreeId = ints(buf, n);
+                int[] focusId = ints(buf, n);
+                byte[] region = bytes(buf, n);
+                byte[] courseType = bytes(buf, n);
+                byte[] flags = bytes(buf, n);
+
+                int[][] rows = new int[partitions][];
+                int[][] byIelts = new int[partitions][];
+                int[][] byCost = new int[partitions][];
+                for (int p = 0; p < partitions; p++) {
+                    int len = buf.getInt();
+                    rows[p] = ints(buf, len);
+                    byIelts[p] = ints(buf, len);
+                    byCost[p] = ints(buf, len);
+                }
+
+                int[] ends = ints(buf, stringCount + 1);
+                byte[] utf8 = bytes(buf, ends[stringCount]);
+                StringDictionary strings = new StringDictionary();
+                for (int id = 0, start = 0; id < stringCount; id++) {
+                    strings.intern(new String(utf8, start, ends[id] - start, StandardCharsets.UTF_8));
+                    start = ends[id];
+                }
+
+                return new UniversityTable(n, globalRank, subjectRank, ieltsMin, totalUsd, tuitionUsd,
+                        region, courseType, flags,
+                        strings, nameId, countryId, cityId, programId, degreeId, focusId,
+                        rows, byIelts, byCost);
+            } catch (RuntimeException e) {
+                // Checksum passed but the layout does not add up (writer bug or format drift)
+                throw new IOException("Corrupt snapshot: " + snapshot, e);
+            }
+        }
+    }
+
+    private static int[] ints(ByteBuffer buf, int n) {
+        int[] out = new int[n];
+        buf.asIntBuffer().get(out);
+        buf.position(buf.position() + n * 4);
+        return out;
+    }
+
+    private static double[] doubles(ByteBuffer buf, int n) {
+        double[] out = new double[n];
+        buf.asDoubleBuffer().get(out);
+        buf.position(buf.position() + n * 8);
+        return out;
+    }
+
+    private static byte[] bytes(ByteBuffer buf, int n) {
+        byte[] out = new byte[n];
+        buf.get(out);
+        return out;
+    }
+}
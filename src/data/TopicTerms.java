@@ -0,0 +1,140 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Term dictionary behind the table's topic index. Focus tags and program
+ * names are split into lower-case words ("systems+crypto", "MS in Network
+ * Security" → systems, crypto, ms, network, security); each word gets an
+ * int id, and each distinct focus / program string is split only once.
+ *
+ * Filled while a table is built and read-only afterwards. A derived table
+ * gets an {@link #extend()}: the terms and strings it adds sit in a small
+ * overlay over the shared, unchanged terms of the table it came from.
+ */
+final class TopicTerms {
+
+    private static final int[] NONE = new int[0];
+    private static final Set<String> STOP_WORDS = Set.of("in", "of", "and", "the", "for", "with");
+
+    // Terms of the table this one extends; null for a root. Never modified through an overlay
+    private final TopicTerms base;
+    // Own terms; an overlay's ids continue after its base's
+    private final Map<String, Integer> ids = new HashMap<>();
+    // Root: string dictionary id -> term ids, null until that string is indexed
+    private int[][] byString = new int[64][];
+    private int indexed;
+    // Overlay: the strings it indexed
+    private final Map<Integer, int[]> added = new HashMap<>();
+
+    TopicTerms() {
+        this(null);
+    }
+
+    private TopicTerms(TopicTerms base) {
+        this.base = base;
+    }
+
+    /** Lower-case words of {@code text}, without stop words; '_' and '+' separate words too. */
+    static List<String> split(String text) {
+        List<String> words = new ArrayList<>();
+        for (String w : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!w.isEmpty() && !STOP_WORDS.contains(w)) words.add(w);
+        }
+        return words;
+    }
+
+    /** Id of {@code term} (already split), or -1 if no indexed string contains it. */
+    int id(String term) {
+        Integer id = ids.get(term);
+        if (id != null) return id;
+        return base == null ? -1 : base.id(term);
+    }
+
+    int size() {
+        return (base == null ? 0 : base.size()) + ids.size();
+    }
+
+    /** Term ids of string {@code stringId}, assigning ids to new words. */
+    int[] index(StringDictionary strings, int stringId) {
+        int[] terms = indexed(stringId);
+        if (terms == null) {
+            List<String> words = split(strings.get(stringId));
+            terms = words.isEmpty() ? NONE : new int[words.size()];
+            for (int i = 0; i < terms.length; i++) {
+                int id = id(words.get(i));
+                if (id < 0) {
+                    id = size();
+                    ids.put(words.get(i), id);
+                }
+                terms[i] = id;
+            }
+            if (base != null) {
+                added.put(stringId, terms);
+            } else {
+                if (stringId >= byString.length) {
+                    byString = Arrays.copyOf(byString, Math.max(stringId + 1, byString.length * 2));
+                }
+                byString[stringId] = terms;
+                indexed++;
+            }
+        }
+        return terms;
+    }
+
+    private int[] indexed(int stringId) {
+        if (base != null) {
+            int[] terms = added.get(stringId);
+            return terms != null ? terms : base.indexed(stringId);
+        }
+        return stringId < byString.length ? byString[stringId] : null;
+    }
+
+    /** Term ids of an already indexed string; never modifies the dictionary. */
+    int[] of(StringDictionary strings, int stringId) {
+        int[] terms = indexed(stringId);
+        if (terms != null) return terms;
+        List<String> words = split(strings.get(stringId));
+        int[] out = new int[words.size()];
+        for (int i = 0; i < out.length; i++) out[i] = id(words.get(i));
+        return out;
+    }
+
+    /**
+     * Terms with the same ids that a derived table can add to, leaving these
+     * unchanged. The root is shared; only the overlay of terms and strings
+     * added since the root is copied, and once that outgrows the root both
+     * are merged into a new root.
+     */
+    TopicTerms extend() {
+        TopicTerms root = base == null ? this : base;
+        if (ids.size() + added.size() > root.ids.size() + root.indexed) {
+            TopicTerms merged = new TopicTerms();
+            merged.ids.putAll(root.ids);
+            merged.ids.putAll(ids);
+            merged.byString = Arrays.copyOf(root.byString, root.byString.length);
+            merged.indexed = root.indexed;
+            for (Map.Entry<Integer, int[]> e : added.entrySet()) {
+                int id = e.getKey();
+                if (id >= merged.byString.length) {
+                    merged.byString = Arrays.copyOf(merged.byString, Math.max(id + 1, merged.byString.length * 2));
+                }
+                merged.byString[id] = e.getValue();
+                merged.indexed++;
+            }
+            return new TopicTerms(merged);
+        }
+        TopicTerms t = new TopicTerms(root);
+        if (base != null) {
+            t.ids.putAll(ids);
+            t.added.putAll(added);
+        }
+        return t;
+    }
+}
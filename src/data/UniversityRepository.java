@@ -1,23 +1,194 @@
 package data;
 
+import metrics.Metrics;
 import model.University;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
 
-public class UniversityRepository {
+public class UniversityRepository implements AutoCloseable {
 
-    private final List<University> universities;
+    // Quiet period after a file change before re-reading it
+    private static final long RELOAD_SETTLE_MS = 200;
+
+    // Files smaller than this per core are parsed on the calling thread
+    private static final int MIN_PARALLEL_CHUNK_BYTES = 1 << 20;
+
+    private final Path csvPath;
+    private final boolean keepRawRows;
+
+    // Current immutable snapshot; replaced wholesale on reload
+    private final AtomicReference<UniversityTable> current;
+    private final Object reloadLock = new Object();
+    private volatile Thread watcher;
 
     // Instance-based API (still works for future use)
     public UniversityRepository(Path csvPath) throws IOException {
-        this.universities = loadInternal(csvPath);
+        this(csvPath, false);
+    }
+
+    /**
+     * @param keepRawRows also keep the header → cell map on every record
+     *                    (debugging only; roughly doubles memory per row)
+     */
+    public UniversityRepository(Path csvPath, boolean keepRawRows) throws IOException {
+        this.csvPath = csvPath;
+        this.keepRawRows = keepRawRows;
+        this.current = new AtomicReference<>(loadInternal(csvPath, keepRawRows));
     }
 
     public List<University> getAll() {
-        return Collections.unmodifiableList(universities);
+        return current.get().asList();
+    }
+
+    /**
+     * Columnar view used by the engine's fast path. Callers should fetch the
+     * table once per request and use it throughout, so a concurrent reload
+     * never mixes two snapshots.
+     */
+    public UniversityTable getTable() {
+        return current.get();
+    }
+
+    /**
+     * Type-ahead search over university names, cities and countries of the
+     * current snapshot: one record per university (its best-ranked program),
+     * prefix matches in global-rank order first, then typo-tolerant matches.
+     * See {@link NameIndex}.
+     */
+    public List<University> search(String query, int limit) {
+        UniversityTable table = current.get();
+        int[] rows = table.names().search(query, limit);
+        List<University> out = new ArrayList<>(rows.length);
+        for (int row : rows) out.add(table.get(row));
+        return out;
+    }
+
+    // ---------- Reloading ----------
+
+    /**
+     * Re-reads the CSV, builds a new table with all its indexes off to the
+     * side and then swaps it in atomically. Readers are never blocked; on
+     * failure the current snapshot stays in place.
+     */
+    public UniversityTable reload() throws IOException {
+        synchronized (reloadLock) {
+            UniversityTable next = loadInternal(csvPath, keepRawRows);
+            warmNames(next);
+            current.set(next);
+            return next;
+        }
+    }
+
+    /**
+     * Applies a delta CSV to the current snapshot without re-reading the full
+     * dataset. The file uses the dataset's header names plus an optional
+     * {@code op} column: {@code upsert} (default) adds the row or replaces the
+     * one with the same name, program and degree; {@code delete} removes it
+     * (only those three columns are needed). The new table shares every
+     * partition the delta does not touch and is swapped in atomically.
+     */
+    public UniversityTable applyDelta(Path deltaCsv) throws IOException {
+        List<University> upserts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        CsvReader reader = CsvReader.open(deltaCsv);
+        if (!reader.next()) {
+            throw new IOException("Empty CSV: " + deltaCsv);
+        }
+        List<String> headers = List.copyOf(reader.fields());
+        University.Columns columns = University.Columns.resolve(headers);
+        int opCol = -1;
+        for (int i = 0; i < headers.size(); i++) {
+            if (headers.get(i).trim().equalsIgnoreCase("op")) opCol = i;
+        }
+
+        while (reader.next()) {
+            List<String> cells = reader.fields();
+            String op = opCol >= 0 && opCol < cells.size() ? cells.get(opCol).trim() : "";
+            University u = University.fromCells(columns, cells, null);
+            if (op.equalsIgnoreCase("delete")) {
+                deletes.add(UniversityTable.rowKey(u.getName(), u.getProgram(), u.getDegree()));
+            } else if (op.isEmpty() || op.equalsIgnoreCase("upsert")) {
+                upserts.add(u);
+            } else {
+                throw new IOException("Unknown op '" + op + "' in " + deltaCsv);
+            }
+        }
+
+        synchronized (reloadLock) {
+            UniversityTable next = current.get().withChanges(upserts, deletes);
+            warmNames(next);
+            current.set(next);
+            return next;
+        }
+    }
+
+    /** Builds the name index before the swap if the outgoing snapshot was being searched. */
+    private void warmNames(UniversityTable next) {
+        if (current.get().hasNames()) next.names();
+    }
+
+    /**
+     * Starts a daemon thread that reloads the dataset whenever the CSV file
+     * changes on disk (NIO {@link WatchService} on its directory).
+     */
+    public synchronized void startWatching() throws IOException {
+        if (watcher != null) return;
+        Path dir = csvPath.toAbsolutePath().getParent();
+        Path fileName = csvPath.getFileName();
+        WatchService ws = dir.getFileSystem().newWatchService();
+        dir.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread t = new Thread(() -> watchLoop(ws, fileName), "dataset-watcher");
+        t.setDaemon(true);
+        watcher = t;
+        t.start();
+    }
+
+    private void watchLoop(WatchService ws, Path fileName) {
+        try (ws) {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = ws.take();
+                boolean changed = false;
+                for (WatchEvent<?> ev : key.pollEvents()) {
+                    if (fileName.equals(ev.context())) changed = true;
+                }
+                key.reset();
+                if (!changed) continue;
+
+                // Editors and copy tools write in several steps; let them settle
+                Thread.sleep(RELOAD_SETTLE_MS);
+                // Drop events from the same write burst
+                WatchKey pending;
+                while ((pending = ws.poll()) != null) {
+                    pending.pollEvents();
+                    pending.reset();
+                }
+                try {
+                    UniversityTable t = reload();
+                    System.err.println("Dataset reloaded: " + t.liveCount() + " universities");
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Dataset reload failed, keeping previous snapshot: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ClosedWatchServiceException e) {
+            // watcher stopped
+        }
+    }
+
+    /** Stops the file watcher, if running. */
+    @Override
+    public synchronized void close() {
+        Thread t = watcher;
+        watcher = null;
+        if (t != null) t.interrupt();
     }
 
     // ✅ New public static loader for the CLI
@@ -26,49 +197,100 @@ public class UniversityRepository {
     }
 
     // 🔒 Internal CSV loader (renamed from `load` → `loadInternal`)
-    private static List<University> loadInternal(Path csv) throws IOException {
-        List<University> list = new ArrayList<>();
-        try (BufferedReader br = Files.newBufferedReader(csv)) {
-            String headerLine = br.readLine();
-            if (headerLine == null) {
-                throw new IOException("Empty CSV: " + csv);
+    private static UniversityTable loadInternal(Path csv, boolean keepRawRows) throws IOException {
+        long start = System.nanoTime();
+        // A compiled snapshot of this exact CSV skips parsing altogether
+        Path snapshot = TableSnapshot.siblingOf(csv);
+        if (!keepRawRows && TableSnapshot.isFresh(snapshot, csv)) {
+            try {
+                UniversityTable table = TableSnapshot.read(snapshot);
+                Metrics.datasetLoaded(System.nanoTime() - start, table.liveCount(), true);
+                return table;
+            } catch (IOException e) {
+                System.err.println("Ignoring snapshot, reading CSV instead: " + e.getMessage());
             }
-            List<String> headers = parseCsvLine(headerLine);
+        }
+        UniversityTable table = parseCsv(csv, keepRawRows);
+        Metrics.datasetLoaded(System.nanoTime() - start, table.liveCount(), false);
+        return table;
+    }
 
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.isBlank()) continue;
+    private static UniversityTable parseCsv(Path csv, boolean keepRawRows) throws IOException {
+        ByteBuffer data = CsvReader.map(csv);
+        CsvReader header = new CsvReader(data, true);
+        if (!header.next()) {
+            throw new IOException("Empty CSV: " + csv);
+        }
+        List<String> headers = List.copyOf(header.fields());
+        // Header → field mapping is resolved once for the whole file
+        University.Columns columns = University.Columns.resolve(headers);
 
-                List<String> cells = parseCsvLine(line);
-                Map<String, String> rowMap = new LinkedHashMap<>();
-                for (int i = 0; i < headers.size() && i < cells.size(); i++) {
-                    rowMap.put(headers.get(i), cells.get(i));
-                }
-                list.add(new University(rowMap));
+        // Large files are cut into record-aligned byte ranges parsed on separate cores
+        int bodyStart = header.position();
+        int parts = Math.min(Runtime.getRuntime().availableProcessors(),
+                Math.max(1, (data.limit() - bodyStart) / MIN_PARALLEL_CHUNK_BYTES));
+        int[] bounds = CsvReader.split(data, bodyStart, data.limit(), parts);
+
+        List<UniversityTable.Builder> chunks = new ArrayList<>(bounds.length - 1);
+        if (bounds.length == 2) {
+            chunks.add(parseChunk(data, bounds[0], bounds[1], headers, columns, keepRawRows));
+        } else {
+            List<ForkJoinTask<UniversityTable.Builder>> tasks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                int from = bounds[i];
+                int to = bounds[i + 1];
+                tasks.add(ForkJoinPool.commonPool().submit(
+                        () -> parseChunk(data, from, to, headers, columns, keepRawRows)));
+            }
+            for (ForkJoinTask<UniversityTable.Builder> t : tasks) {
+                chunks.add(t.join());
             }
         }
-        return list;
-    }
+        if (chunks.size() == 1) return chunks.get(0).build();
 
-    // Small CSV parser that handles quotes
-    private static List<String> parseCsvLine(String line) {
-        List<String> out = new ArrayList<>();
-        StringBuilder sb = new StringBuilder();
-        boolean inQuotes = false;
+        // Merge in file order so row ids (and rank ties) match a sequential load
+        int rows = 0;
+        for (UniversityTable.Builder c : chunks) rows += c.size();
+        UniversityTable.Builder table = new UniversityTable.Builder(rows, keepRawRows);
+        for (UniversityTable.Builder c : chunks) table.addAll(c);
+        return table.build();
+    }
 
-        for (char c : line.toCharArray()) {
-            if (c == '"') {
-                inQuotes = !inQuotes;
-                continue;
-            }
-            if (c == ',' && !inQuotes) {
-                out.add(sb.toString());
-                sb.setLength(0);
-            } else {
-                sb.append(c);
+    /**
+     * Parses the records in bytes {@code [from, to)} into a builder of their
+     * own. Cells go straight from the byte offsets into the columns; a
+     * {@link University} per row is only built when raw rows are kept.
+     */
+    private static UniversityTable.Builder parseChunk(ByteBuffer data,
+                                                      int from,
+                                                      int to,
+                                                      List<String> headers,
+                                                      University.Columns columns,
+                                                      boolean keepRawRows) {
+        CsvReader reader = new CsvReader(data.slice(from, to - from), true, false);
+        // Row count guess from typical record width; the builder grows past it
+        UniversityTable.Builder out = new UniversityTable.Builder((to - from) / 128, keepRawRows);
+        if (!keepRawRows) {
+            CsvRowParser rows = new CsvRowParser(columns);
+            while (reader.next()) rows.addTo(out, reader);
+            return out;
+        }
+        while (reader.next()) {
+            List<String> cells = reader.fields();
+            Map<String, String> rowMap = new LinkedHashMap<>();
+            for (int i = 0; i < headers.size() && i < cells.size(); i++) {
+                rowMap.put(headers.get(i), cells.get(i));
             }
+            out.add(University.fromCells(columns, cells, rowMap));
         }
-        out.add(sb.toString());
         return out;
     }
+
+    /**
+     * Splits one CSV line (RFC 4180 quoting, {@code ""} for a literal quote);
+     * also used for applicant files. Whole files go through {@link CsvReader}.
+     */
+    public static List<String> parseCsvLine(String line) {
+        return CsvReader.parseLine(line);
+    }
 }
@@ -0,0 +1,1208 @@
+package data;
+
+import model.CourseType;
+import model.Region;
+import model.University;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Columnar, read-only view of the catalog.
+ *
+ * Every field lives in its own primitive array indexed by row id, so the
+ * engine's hard filters scan a few tight arrays instead of chasing one
+ * object per row. {@link University} objects are only built on demand, for
+ * the rows a caller actually asks for.
+ *
+ * Rows are grouped into (course type, region) partitions, each presorted
+ * by (effective rank, name) and carrying IELTS / cost range indexes and a
+ * topic index (focus tag and program words → bitmap of rows).
+ * Tables are immutable once built and safe to share between threads;
+ * {@link #withChanges} derives a new table that shares every partition the
+ * change does not touch.
+ */
+public final class UniversityTable {
+
+    /** Rank used for ordering when a row has no (or a non-positive) global rank. */
+    public static final int UNKNOWN_RANK = 9999;
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    // Checkpoint bitmaps per sorted index and partition, and the smallest step
+    // between them; smaller partitions are counted by walking their index
+    private static final int CHECKPOINTS = 16;
+    private static final int MIN_CHECKPOINT_STRIDE = 512;
+
+    // Tombstones are kept in pages of this many rows, copied only when a delta touches them
+    private static final int DELETED_PAGE_SHIFT = 12;
+
+    // Bits of the flags column (also the snapshot's on-disk flags byte)
+    static final int FLAG_GRE = 1;
+    static final int FLAG_ON_CAMPUS = 2;
+    static final int FLAG_RESEARCH_LAB = 4;
+
+    private static final Region[] REGIONS = Region.values();
+    private static final CourseType[] COURSE_TYPES = CourseType.values();
+
+    private final long version;
+    // Row ids run 0..size-1; rows removed by a delta stay as tombstones
+    private final int size;
+    private final int liveCount;
+    // Tombstone bits in pages of 1 << DELETED_PAGE_SHIFT rows; a null page has none
+    private final long[][] deleted;
+
+    // Column arrays may be longer than size: the first table derived from this
+    // one writes its rows past size in place (see withChanges), and this table
+    // never reads there. Later derivations copy.
+    private final AtomicBoolean extended = new AtomicBoolean();
+
+    private final int[] globalRank;
+    private final int[] subjectRank;
+    private final double[] ieltsMin;
+    private final double[] totalUsd;
+    private final double[] tuitionUsd;
+    private final byte[] region;
+    private final byte[] courseType;
+    // FLAG_* bits per row
+    private final byte[] flags;
+
+    private final StringDictionary strings;
+    private final int[] nameId;
+    private final int[] countryId;
+    private final int[] cityId;
+    private final int[] programId;
+    private final int[] degreeId;
+    private final int[] focusId;
+
+    // (courseType, region) partitions: row ids in (effective rank, name) order
+    private final int[][] partitions;
+
+    // Per-partition secondary indexes: offsets into the partition ordered by
+    // IELTS minimum / total cost, with the matching sorted keys for binary search
+    private final int[][] byIelts;
+    private final double[][] ieltsKeys;
+    private final int[][] byCost;
+    private final double[][] costKeys;
+    // Checkpoint bitmaps of those two indexes, for counting within a topic
+    // bitmap; built on the first such count (see checkpoints())
+    private volatile Checkpoints checkpoints;
+
+    // Per-partition topic index: [partition][term id] -> partition offsets of
+    // the rows whose focus tags or program name contain the term (null if none)
+    private final TopicTerms topicTerms;
+    private final BitSet[][] topicBits;
+
+    // Lazily materialized object view (benign race: University is immutable)
+    private final University[] records;
+
+    // Built on first use; only deltas and the list view need them
+    private volatile KeyIndex keyIndex;
+    private volatile int[] liveRows;
+    // Built on first name search; see names()
+    private volatile NameIndex names;
+    // Per-snapshot structures of other layers (e.g. the engine's bucket runs); see derived()
+    private final Map<Class<?>, Object> derived = new ConcurrentHashMap<>();
+
+    private UniversityTable(Builder b) {
+        this.version = VERSIONS.incrementAndGet();
+        this.size = b.size;
+        this.liveCount = b.size;
+        this.deleted = new long[deletedPages(size)][];
+        this.globalRank = Arrays.copyOf(b.globalRank, size);
+        this.subjectRank = Arrays.copyOf(b.subjectRank, size);
+        this.ieltsMin = Arrays.copyOf(b.ieltsMin, size);
+        this.totalUsd = Arrays.copyOf(b.totalUsd, size);
+        this.tuitionUsd = Arrays.copyOf(b.tuitionUsd, size);
+        this.region = Arrays.copyOf(b.region, size);
+        this.courseType = Arrays.copyOf(b.courseType, size);
+        this.flags = Arrays.copyOf(b.flags, size);
+        this.strings = b.strings;
+        this.nameId = Arrays.copyOf(b.nameId, size);
+        this.countryId = Arrays.copyOf(b.countryId, size);
+        this.cityId = Arrays.copyOf(b.cityId, size);
+        this.programId = Arrays.copyOf(b.programId, size);
+        this.degreeId = Arrays.copyOf(b.degreeId, size);
+        this.focusId = Arrays.copyOf(b.focusId, size);
+        this.records = b.records == null ? new University[size] : Arrays.copyOf(b.records, size);
+
+        int k = COURSE_TYPES.length * REGIONS.length;
+        List<List<Integer>> members = new ArrayList<>(k);
+        for (int p = 0; p < k; p++) members.add(new ArrayList<>());
+        for (int row = 0; row < size; row++) {
+            members.get(partitionKey(courseType[row], region[row])).add(row);
+        }
+
+        this.partitions = new int[k][];
+        this.byIelts = new int[k][];
+        this.ieltsKeys = new double[k][];
+        this.byCost = new int[k][];
+        this.costKeys = new double[k][];
+        this.topicTerms = new TopicTerms();
+        this.topicBits = new BitSet[k][];
+        for (int p = 0; p < k; p++) {
+            indexPartition(p, members.get(p));
+        }
+    }
+
+    /** Snapshot constructor: columns and partition indexes are taken as-is (see {@link TableSnapshot}). */
+    UniversityTable(int size,
+                    int[] globalRank,
+                    int[] subjectRank,
+                    double[] ieltsMin,
+                    double[] totalUsd,
+                    double[] tuitionUsd,
+                    byte[] region,
+                    byte[] courseType,
+                    byte[] flags,
+                    StringDictionary strings,
+                    int[] nameId,
+                    int[] countryId,
+                    int[] cityId,
+                    int[] programId,
+                    int[] degreeId,
+                    int[] focusId,
+                    int[][] partitions,
+                    int[][] byIelts,
+                    int[][] byCost) {
+        this.version = VERSIONS.incrementAndGet();
+        this.size = size;
+        this.liveCount = size;
+        this.deleted = new long[deletedPages(size)][];
+        this.globalRank = globalRank;
+        this.subjectRank = subjectRank;
+        this.ieltsMin = ieltsMin;
+        this.totalUsd = totalUsd;
+        this.tuitionUsd = tuitionUsd;
+        this.region = region;
+        this.courseType = courseType;
+        this.flags = flags;
+        this.strings = strings;
+        this.nameId = nameId;
+        this.countryId = countryId;
+        this.cityId = cityId;
+        this.programId = programId;
+        this.degreeId = degreeId;
+        this.focusId = focusId;
+        this.records = new University[size];
+
+        this.partitions = partitions;
+        this.byIelts = byIelts;
+        this.byCost = byCost;
+        this.ieltsKeys = new double[partitions.length][];
+        this.costKeys = new double[partitions.length][];
+        this.topicTerms = new TopicTerms();
+        this.topicBits = new BitSet[partitions.length][];
+        for (int p = 0; p < partitions.length; p++) {
+            ieltsKeys[p] = keysOf(partitions[p], byIelts[p], ieltsMin);
+            costKeys[p] = keysOf(partitions[p], byCost[p], totalUsd);
+            indexTopics(p);
+        }
+    }
+
+    /** Copy of {@code base} with rows appended / tombstoned; see {@link #withChanges}. */
+    private UniversityTable(UniversityTable base, Builder appended, long[][] deleted, int liveCount,
+                            boolean[] dirty, List<Integer> removed) {
+        this.version = VERSIONS.incrementAndGet();
+        int n = appended.size;
+        this.size = base.size + n;
+        this.deleted = deleted;
+        this.liveCount = liveCount;
+
+        // The first derivation of a table with spare capacity appends in place;
+        // any other copies the base rows into arrays with room for more deltas
+        boolean inPlace = base.globalRank.length >= size && base.extended.compareAndSet(false, true);
+        int capacity = inPlace ? 0 : size + (size >> 1);
+        int b = base.size;
+        this.globalRank = append(base.globalRank, b, appended.globalRank, n, capacity);
+        this.subjectRank = append(base.subjectRank, b, appended.subjectRank, n, capacity);
+        this.ieltsMin = append(base.ieltsMin, b, appended.ieltsMin, n, capacity);
+        this.totalUsd = append(base.totalUsd, b, appended.totalUsd, n, capacity);
+        this.tuitionUsd = append(base.tuitionUsd, b, appended.tuitionUsd, n, capacity);
+        this.region = append(base.region, b, appended.region, n, capacity);
+        this.courseType = append(base.courseType, b, appended.courseType, n, capacity);
+        this.flags = append(base.flags, b, appended.flags, n, capacity);
+
+        // Appended rows were interned into an extension of the base dictionary
+        this.strings = appended.strings;
+        this.nameId = append(base.nameId, b, appended.nameId, n, capacity);
+        this.countryId = append(base.countryId, b, appended.countryId, n, capacity);
+        this.cityId = append(base.cityId, b, appended.cityId, n, capacity);
+        this.programId = append(base.programId, b, appended.programId, n, capacity);
+        this.degreeId = append(base.degreeId, b, appended.degreeId, n, capacity);
+        this.focusId = append(base.focusId, b, appended.focusId, n, capacity);
+        University[] records = base.records;
+        if (!inPlace) {
+            records = new University[capacity];
+            System.arraycopy(base.records, 0, records, 0, b);
+        }
+        this.records = records;
+
+        // Untouched partitions (and their indexes) are shared with the base table
+        this.partitions = base.partitions.clone();
+        this.byIelts = base.byIelts.clone();
+        this.ieltsKeys = base.ieltsKeys.clone();
+        this.byCost = base.byCost.clone();
+        this.costKeys = base.costKeys.clone();
+        this.topicTerms = base.topicTerms.extend();
+        this.topicBits = base.topicBits.clone();
+
+        List<List<Integer>> members = new ArrayList<>(dirty.length);
+        for (int p = 0; p < dirty.length; p++) {
+            members.add(dirty[p] ? new ArrayList<>() : null);
+        }
+        for (int p = 0; p < dirty.length; p++) {
+            if (!dirty[p]) continue;
+            for (int row : base.partitions[p]) {
+                if (isLive(row)) members.get(p).add(row);
+            }
+        }
+        for (int row = b; row < size; row++) {
+            if (isLive(row)) members.get(partitionKey(courseType[row], region[row])).add(row);
+        }
+        for (int p = 0; p < dirty.length; p++) {
+            if (dirty[p]) indexPartition(p, members.get(p));
+        }
+
+        // Lookup structures the base already built are patched rather than rebuilt
+        KeyIndex baseKeys = base.keyIndex;
+        if (baseKeys != null) keyIndex = baseKeys.patch(base, this, dirty, removed);
+        Checkpoints baseCheckpoints = base.checkpoints;
+        if (baseCheckpoints != null) checkpoints = new Checkpoints(byIelts, byCost, baseCheckpoints, dirty);
+    }
+
+    /** Sorts one partition by rank and rebuilds its IELTS / cost / topic indexes. */
+    private void indexPartition(int p, List<Integer> rows) {
+        rows.sort(this::compareRank);
+        int[] part = new int[rows.size()];
+        for (int i = 0; i < part.length; i++) part[i] = rows.get(i);
+        partitions[p] = part;
+        byIelts[p] = sortedBy(part, ieltsMin);
+        ieltsKeys[p] = keysOf(part, byIelts[p], ieltsMin);
+        byCost[p] = sortedBy(part, totalUsd);
+        costKeys[p] = keysOf(part, byCost[p], totalUsd);
+        indexTopics(p);
+    }
+
+    /** Sets each partition row's offset in the bitmap of every word of its focus tags and program. */
+    private void indexTopics(int p) {
+        int[] part = partitions[p];
+        // Raw words while filling: BitSet.set re-checks capacity on every call
+        long[][] bits = new long[topicTerms.size()][];
+        for (int i = 0; i < part.length; i++) {
+            int row = part[i];
+            bits = mark(bits, topicTerms.index(strings, programId[row]), i, part.length);
+            bits = mark(bits, topicTerms.index(strings, focusId[row]), i, part.length);
+        }
+        BitSet[] out = new BitSet[bits.length];
+        for (int t = 0; t < bits.length; t++) {
+            if (bits[t] != null) out[t] = BitSet.valueOf(bits[t]);
+        }
+        topicBits[p] = out;
+    }
+
+    private static long[][] mark(long[][] bits, int[] terms, int offset, int n) {
+        for (int t : terms) {
+            if (t >= bits.length) bits = Arrays.copyOf(bits, Math.max(t + 1, bits.length * 2));
+            if (bits[t] == null) bits[t] = new long[(n + 63) >>> 6];
+            bits[t][offset >>> 6] |= 1L << offset;
+        }
+        return bits;
+    }
+
+    /** Partition offsets re-ordered by a numeric column (stable, so ties stay in rank order). */
+    private static int[] sortedBy(int[] part, double[] column) {
+        Integer[] tmp = new Integer[part.length];
+        for (int i = 0; i < part.length; i++) tmp[i] = i;
+        Arrays.sort(tmp, Comparator.comparingDouble(i -> column[part[i]]));
+        int[] out = new int[tmp.length];
+        for (int i = 0; i < tmp.length; i++) out[i] = tmp[i];
+        return out;
+    }
+
+    private static double[] keysOf(int[] part, int[] offsets, double[] column) {
+        double[] keys = new double[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            keys[i] = column[part[offsets[i]]];
+        }
+        return keys;
+    }
+
+    /** Number of leading keys that are {@code <= max}. */
+    private static int countAtMost(double[] keys, double max) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] <= max) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int partitionKey(int courseType, int region) {
+        return courseType * REGIONS.length + region;
+    }
+
+    /** Builds a table around existing records, reusing them as the object view. */
+    public static UniversityTable of(List<University> universities) {
+        Builder b = new Builder(universities.size(), true);
+        for (University u : universities) {
+            b.add(u);
+        }
+        return b.build();
+    }
+
+    /** The table behind a list returned by {@link #asList()}, or null for any other list. */
+    public static UniversityTable backing(List<University> universities) {
+        return universities instanceof TableList view ? view.table() : null;
+    }
+
+    /** Unknown ranks (≤ 0) are ordered as {@link #UNKNOWN_RANK}. */
+    public static int effectiveRank(int rank) {
+        return rank <= 0 ? UNKNOWN_RANK : rank;
+    }
+
+    // ---------- Column access ----------
+
+    /** Unique, increasing id of this snapshot; changes whenever a new table is built. */
+    public long version() {
+        return version;
+    }
+
+    /** Number of row ids, including rows removed by a delta; see {@link #isLive}. */
+    public int size() {
+        return size;
+    }
+
+    /** Number of rows currently in the catalog. */
+    public int liveCount() {
+        return liveCount;
+    }
+
+    public boolean isLive(int row) {
+        return !isDeleted(deleted, row);
+    }
+
+    private static boolean isDeleted(long[][] pages, int row) {
+        long[] page = pages[row >>> DELETED_PAGE_SHIFT];
+        return page != null && (page[(row >>> 6) & ((1 << (DELETED_PAGE_SHIFT - 6)) - 1)] & (1L << row)) != 0;
+    }
+
+    private static int deletedPages(int rows) {
+        return (rows + (1 << DELETED_PAGE_SHIFT) - 1) >>> DELETED_PAGE_SHIFT;
+    }
+
+    public int globalRank(int row) {
+        return globalRank[row];
+    }
+
+    public int subjectRank(int row) {
+        return subjectRank[row];
+    }
+
+    public double ieltsMin(int row) {
+        return ieltsMin[row];
+    }
+
+    public double totalUsd(int row) {
+        return totalUsd[row];
+    }
+
+    public double tuitionUsd(int row) {
+        return tuitionUsd[row];
+    }
+
+    public Region region(int row) {
+        return REGIONS[region[row]];
+    }
+
+    public int regionOrdinal(int row) {
+        return region[row];
+    }
+
+    public CourseType courseType(int row) {
+        return COURSE_TYPES[courseType[row]];
+    }
+
+    public int courseTypeOrdinal(int row) {
+        return courseType[row];
+    }
+
+    public boolean isGreRequired(int row) {
+        return (flags[row] & FLAG_GRE) != 0;
+    }
+
+    public boolean isOnCampus(int row) {
+        return (flags[row] & FLAG_ON_CAMPUS) != 0;
+    }
+
+    public boolean hasResearchLab(int row) {
+        return (flags[row] & FLAG_RESEARCH_LAB) != 0;
+    }
+
+    public String name(int row) {
+        return strings.get(nameId[row]);
+    }
+
+    public String country(int row) {
+        return strings.get(countryId[row]);
+    }
+
+    public String city(int row) {
+        return strings.get(cityId[row]);
+    }
+
+    public String program(int row) {
+        return strings.get(programId[row]);
+    }
+
+    public String degree(int row) {
+        return strings.get(degreeId[row]);
+    }
+
+    /** Specialization tags joined by '+'; see {@link University#getFocus()}. */
+    public String focus(int row) {
+        return strings.get(focusId[row]);
+    }
+
+    /**
+     * Orders rows by effective global rank, then name, then row id (i.e. file
+     * order); this is the order of every partition and of the engine's
+     * bucket lists.
+     */
+    public int compareRank(int a, int b) {
+        int c = Integer.compare(effectiveRank(globalRank[a]), effectiveRank(globalRank[b]));
+        if (c != 0) return c;
+        if (nameId[a] != nameId[b]) {
+            c = name(a).compareTo(name(b));
+            if (c != 0) return c;
+        }
+        return Integer.compare(a, b);
+    }
+
+    // ---------- Partition index ----------
+
+    /** Number of rows with the given course type and region. */
+    public int partitionSize(CourseType courseType, Region region) {
+        return partitions[partitionKey(courseType.ordinal(), region.ordinal())].length;
+    }
+
+    /**
+     * The {@code i}-th row of a (course type, region) partition, in
+     * {@link #compareRank} order (best-ranked first).
+     */
+    public int partitionAt(CourseType courseType, Region region, int i) {
+        return partitions[partitionKey(courseType.ordinal(), region.ordinal())][i];
+    }
+
+    /** Rows in the partition whose IELTS minimum is {@code <= maxIelts} (binary search). */
+    public int countIeltsAtMost(CourseType courseType, Region region, double maxIelts) {
+        return countAtMost(ieltsKeys[partitionKey(courseType.ordinal(), region.ordinal())], maxIelts);
+    }
+
+    /** Rows in the partition whose total cost is {@code <= maxUsd} (binary search). */
+    public int countCostAtMost(CourseType courseType, Region region, double maxUsd) {
+        return countAtMost(costKeys[partitionKey(courseType.ordinal(), region.ordinal())], maxUsd);
+    }
+
+    /** Rows among {@code within} (partition offsets) whose IELTS minimum is {@code <= maxIelts}. */
+    public int countIeltsAtMost(CourseType courseType, Region region, double maxIelts, BitSet within) {
+        int p = partitionKey(courseType.ordinal(), region.ordinal());
+        return countWithin(byIelts[p], checkpoints().ielts[p], countAtMost(ieltsKeys[p], maxIelts), within);
+    }
+
+    /** Rows among {@code within} (partition offsets) whose total cost is {@code <= maxUsd}. */
+    public int countCostAtMost(CourseType courseType, Region region, double maxUsd, BitSet within) {
+        int p = partitionKey(courseType.ordinal(), region.ordinal());
+        return countWithin(byCost[p], checkpoints().cost[p], countAtMost(costKeys[p], maxUsd), within);
+    }
+
+    /**
+     * Members of {@code within} among the first {@code ok} entries of a
+     * sorted index: the nearest checkpoint bitmap AND-ed with {@code within},
+     * corrected by walking the (at most half a stride of) entries in between.
+     */
+    private static int countWithin(int[] offsets, BitSet[] prefix, int ok, BitSet within) {
+        int stride = checkpointStride(offsets.length);
+        int k = (ok + stride / 2) / stride; // entries [0, k * stride) come from a bitmap
+        k = Math.min(k, prefix.length);
+        int count = 0;
+        int covered = k * stride;
+        if (k > 0) {
+            BitSet b = (BitSet) within.clone();
+            b.and(prefix[k - 1]);
+            count = b.cardinality();
+        }
+        for (int i = covered; i < ok; i++) {
+            if (within.get(offsets[i])) count++;
+        }
+        for (int i = ok; i < covered; i++) {
+            if (within.get(offsets[i])) count--;
+        }
+        return count;
+    }
+
+    private Checkpoints checkpoints() {
+        Checkpoints c = checkpoints;
+        if (c == null) {
+            c = new Checkpoints(byIelts, byCost, null, null);
+            checkpoints = c;
+        }
+        return c;
+    }
+
+    private static int checkpointStride(int entries) {
+        return Math.max(MIN_CHECKPOINT_STRIDE, (entries + CHECKPOINTS - 1) / CHECKPOINTS);
+    }
+
+    /**
+     * Per partition and sorted index, {@code [k]} = offsets of the first
+     * {@code (k + 1) * stride} entries. At most {@link #CHECKPOINTS} bitmaps
+     * of one bit per partition row each, so memory stays linear in the
+     * partition size (about 2 bytes per row and index).
+     */
+    private static final class Checkpoints {
+        final BitSet[][] ielts;
+        final BitSet[][] cost;
+
+        /** Reuses the bitmaps of {@code base} for partitions not marked {@code dirty}. */
+        Checkpoints(int[][] byIelts, int[][] byCost, Checkpoints base, boolean[] dirty) {
+            ielts = new BitSet[byIelts.length][];
+            cost = new BitSet[byCost.length][];
+            for (int p = 0; p < byIelts.length; p++) {
+                if (base != null && !dirty[p]) {
+                    ielts[p] = base.ielts[p];
+                    cost[p] = base.cost[p];
+                } else {
+                    ielts[p] = bitmaps(byIelts[p]);
+                    cost[p] = bitmaps(byCost[p]);
+                }
+            }
+        }
+
+        private static BitSet[] bitmaps(int[] offsets) {
+            int stride = checkpointStride(offsets.length);
+            BitSet[] out = new BitSet[offsets.length / stride];
+            BitSet running = new BitSet(offsets.length);
+            for (int k = 0; k < out.length; k++) {
+                for (int i = k * stride; i < (k + 1) * stride; i++) running.set(offsets[i]);
+                out[k] = (BitSet) running.clone();
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Offset (for {@link #partitionAt}) of the {@code i}-th partition row in
+     * ascending IELTS-minimum order.
+     */
+    public int partitionByIeltsAt(CourseType courseType, Region region, int i) {
+        return byIelts[partitionKey(courseType.ordinal(), region.ordinal())][i];
+    }
+
+    /**
+     * Offset (for {@link #partitionAt}) of the {@code i}-th partition row in
+     * ascending total-cost order.
+     */
+    public int partitionByCostAt(CourseType courseType, Region region, int i) {
+        return byCost[partitionKey(courseType.ordinal(), region.ordinal())][i];
+    }
+
+    /** Number of (course type, region) partitions; fixed by the enums. */
+    static int partitionCount() {
+        return COURSE_TYPES.length * REGIONS.length;
+    }
+
+    // Raw partition arrays for TableSnapshot; callers must not modify them
+    int[] partitionRows(int p) {
+        return partitions[p];
+    }
+
+    int[] partitionByIelts(int p) {
+        return byIelts[p];
+    }
+
+    int[] partitionByCost(int p) {
+        return byCost[p];
+    }
+
+    // ---------- Topic index ----------
+
+    /**
+     * Offsets (for {@link #partitionAt}) of the partition rows matching at
+     * least one of {@code topics}. A topic matches when each of its words
+     * occurs in the row's focus tags or program name, so "network security"
+     * needs both words and "crypto" matches "systems+crypto". Each topic is
+     * an intersection of word bitmaps and the topics are OR-ed together, so
+     * the work grows with partition size / 64 rather than with the row count.
+     *
+     * @return null when {@code topics} is empty (no topic filter)
+     */
+    public BitSet topicMatches(CourseType courseType, Region region, Collection<String> topics) {
+        if (topics.isEmpty()) return null;
+        BitSet[] bits = topicBits[partitionKey(courseType.ordinal(), region.ordinal())];
+        BitSet out = new BitSet();
+        for (String topic : topics) {
+            BitSet hit = allWords(bits, topic);
+            if (hit != null) out.or(hit);
+        }
+        return out;
+    }
+
+    /** Rows having every word of {@code topic}, or null when none do. */
+    private BitSet allWords(BitSet[] bits, String topic) {
+        BitSet hit = null;
+        for (String word : TopicTerms.split(topic)) {
+            int id = topicTerms.id(word);
+            BitSet b = id >= 0 && id < bits.length ? bits[id] : null;
+            if (b == null) return null;
+            if (hit == null) hit = (BitSet) b.clone();
+            else hit.and(b);
+        }
+        return hit;
+    }
+
+    /** Single-row form of {@link #topicMatches}; true when {@code topics} is empty. */
+    public boolean matchesTopics(int row, Collection<String> topics) {
+        if (topics.isEmpty()) return true;
+        int[] program = topicTerms.of(strings, programId[row]);
+        int[] focus = topicTerms.of(strings, focusId[row]);
+        for (String topic : topics) {
+            List<String> words = TopicTerms.split(topic);
+            boolean all = !words.isEmpty();
+            for (String word : words) {
+                int id = topicTerms.id(word);
+                if (id < 0 || !(contains(program, id) || contains(focus, id))) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) return true;
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] terms, int id) {
+        for (int t : terms) {
+            if (t == id) return true;
+        }
+        return false;
+    }
+
+    // ---------- Name search ----------
+
+    /**
+     * Autocomplete index over names, cities and countries of this snapshot,
+     * built on first use (well under a second per 100k rows) and kept for
+     * the snapshot's lifetime.
+     */
+    public NameIndex names() {
+        NameIndex idx = names;
+        if (idx == null) {
+            synchronized (this) {
+                idx = names;
+                if (idx == null) {
+                    idx = new NameIndex(this);
+                    names = idx;
+                }
+            }
+        }
+        return idx;
+    }
+
+    /**
+     * Structure of type {@code type} derived from this snapshot, built with
+     * {@code build} on first use and kept for the snapshot's lifetime. Lets
+     * other layers keep per-snapshot tables without a global "latest" slot
+     * that every other snapshot would evict.
+     */
+    public <T> T derived(Class<T> type, Function<UniversityTable, T> build) {
+        Object v = derived.get(type);
+        if (v == null) {
+            // Not computeIfAbsent: a builder may itself ask for another derived structure
+            synchronized (derived) {
+                v = derived.get(type);
+                if (v == null) {
+                    v = build.apply(this);
+                    derived.put(type, v);
+                }
+            }
+        }
+        return type.cast(v);
+    }
+
+    /** Whether {@link #names()} has been built, i.e. this snapshot has been searched. */
+    boolean hasNames() {
+        return names != null;
+    }
+
+    // Dictionary ids for NameIndex, which splits each distinct string once
+    StringDictionary strings() {
+        return strings;
+    }
+
+    int nameId(int row) {
+        return nameId[row];
+    }
+
+    int cityId(int row) {
+        return cityId[row];
+    }
+
+    int countryId(int row) {
+        return countryId[row];
+    }
+
+    // FLAG_* bits of a row, for TableSnapshot
+    byte flags(int row) {
+        return flags[row];
+    }
+
+    // ---------- Deltas ----------
+
+    /** Identity of a program row across dataset versions: name + program + degree. */
+    public static String rowKey(String name, String program, String degree) {
+        return (name.trim() + '\u0000' + program.trim() + '\u0000' + degree.trim()).toLowerCase(Locale.ROOT);
+    }
+
+    private String rowKey(int row) {
+        return rowKey(name(row), program(row), degree(row));
+    }
+
+    private KeyIndex keyIndex() {
+        KeyIndex idx = keyIndex;
+        if (idx == null) {
+            idx = new KeyIndex(partitions.length);
+            for (int p = 0; p < partitions.length; p++) idx.index(this, p);
+            keyIndex = idx;
+        }
+        return idx;
+    }
+
+    /** Live row with the given {@link #rowKey}, or -1. */
+    public int findRow(String key) {
+        int best = -1;
+        for (Map<String, Integer> keys : keyIndex().byPartition) {
+            Integer row = keys.get(key);
+            if (row != null && row > best) best = row;
+        }
+        return best;
+    }
+
+    /**
+     * Like {@link #findRow} but skipping the rows a delta in progress has
+     * already tombstoned in {@code pages}, so a key hit twice in one delta
+     * reaches the earlier of its source-file duplicates, as two deltas would.
+     */
+    private int findRow(String key, long[][] pages) {
+        int best = findRow(key);
+        if (best < 0 || !isDeleted(pages, best)) return best;
+        best = -1;
+        KeyIndex idx = keyIndex();
+        for (int p = 0; p < partitions.length; p++) {
+            Integer last = idx.byPartition[p].get(key);
+            if (last == null) continue;
+            if (!isDeleted(pages, last)) {
+                best = Math.max(best, last);
+            } else if (idx.duplicates[p]) {
+                for (int row : partitions[p]) {
+                    if (row > best && !isDeleted(pages, row) && rowKey(row).equals(key)) best = row;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * {@link #rowKey} → row id, one map per partition so a delta copies only
+     * the maps of the partitions it touches. A key held by several live rows
+     * (duplicates in the source file) maps to the last of them.
+     */
+    private static final class KeyIndex {
+        final Map<String, Integer>[] byPartition;
+        // Partitions where some key is held by more than one row
+        final boolean[] duplicates;
+
+        @SuppressWarnings("unchecked")
+        KeyIndex(int partitions) {
+            byPartition = new Map[partitions];
+            duplicates = new boolean[partitions];
+        }
+
+        void index(UniversityTable table, int p) {
+            int[] rows = table.partitions[p];
+            Map<String, Integer> keys = new HashMap<>(rows.length * 2);
+            for (int row : rows) keys.merge(table.rowKey(row), row, Math::max);
+            byPartition[p] = keys;
+            duplicates[p] = keys.size() < rows.length;
+        }
+
+        /**
+         * Index of {@code next}, derived from {@code base} by this index:
+         * clean partitions are shared, dirty ones get a copy with the
+         * {@code removed} rows' keys dropped and the appended rows' keys added.
+         * A dirty partition with duplicate keys is re-indexed instead, since
+         * removing one row may expose another with the same key.
+         */
+        KeyIndex patch(UniversityTable base, UniversityTable next, boolean[] dirty, List<Integer> removed) {
+            KeyIndex out = new KeyIndex(byPartition.length);
+            boolean[] rebuilt = new boolean[byPartition.length];
+            for (int p = 0; p < byPartition.length; p++) {
+                out.duplicates[p] = duplicates[p];
+                if (!dirty[p]) {
+                    out.byPartition[p] = byPartition[p];
+                } else if (duplicates[p]) {
+                    out.index(next, p);
+                    rebuilt[p] = true;
+                } else {
+                    out.byPartition[p] = new HashMap<>(byPartition[p]);
+                }
+            }
+            for (int row : removed) {
+                int p = partitionKey(base.courseType[row], base.region[row]);
+                if (!rebuilt[p]) out.byPartition[p].remove(base.rowKey(row), row);
+            }
+            for (int row = base.size; row < next.size; row++) {
+                int p = partitionKey(next.courseType[row], next.region[row]);
+                if (rebuilt[p] || !next.isLive(row)) continue;
+                Integer prev = out.byPartition[p].put(next.rowKey(row), row);
+                if (prev != null) {
+                    // Still live elsewhere in this partition (a source-file duplicate that moved here)
+                    out.duplicates[p] = true;
+                    if (prev > row) out.byPartition[p].put(next.rowKey(row), prev);
+                }
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Derives a new table with {@code upserts} applied (matching rows are
+     * replaced, others added) and {@code deleteKeys} removed. Only the
+     * (course type, region) partitions that contain a changed row are
+     * re-sorted and re-indexed; all others, the string and topic
+     * dictionaries and the unchanged tombstone pages are shared with this
+     * table, and the first table derived from this one appends its rows to
+     * this table's column arrays in place. Deletes apply before upserts,
+     * each to the rows the earlier ones left, so the result matches applying
+     * them one at a time. Unknown delete keys are ignored.
+     */
+    public UniversityTable withChanges(Collection<University> upserts, Collection<String> deleteKeys) {
+        long[][] nextDeleted = Arrays.copyOf(deleted, deletedPages(size + upserts.size()));
+        boolean[] copiedPages = new boolean[nextDeleted.length];
+        boolean[] dirty = new boolean[partitions.length];
+        // Rows of this table that the delta removes
+        List<Integer> removed = new ArrayList<>();
+
+        for (String key : deleteKeys) {
+            int row = findRow(key, nextDeleted);
+            if (row >= 0 && tombstone(nextDeleted, copiedPages, row)) {
+                removed.add(row);
+                dirty[partitionKey(courseType[row], region[row])] = true;
+            }
+        }
+
+        Builder appended = new Builder(upserts.size(), false, strings.extend());
+        Map<String, Integer> added = new HashMap<>();
+        int superseded = 0;
+        for (University u : upserts) {
+            String key = rowKey(u.getName(), u.getProgram(), u.getDegree());
+            Integer prev = added.put(key, size + appended.size);
+            if (prev != null) {
+                // A key repeated within one delta: the later upsert replaces the earlier one
+                tombstone(nextDeleted, copiedPages, prev);
+                superseded++;
+            } else {
+                int old = findRow(key, nextDeleted);
+                if (old >= 0 && tombstone(nextDeleted, copiedPages, old)) {
+                    removed.add(old);
+                    dirty[partitionKey(courseType[old], region[old])] = true;
+                }
+            }
+            appended.add(u);
+            dirty[partitionKey(u.getCourseType().ordinal(), u.getRegion().ordinal())] = true;
+        }
+
+        int nextLive = liveCount - removed.size() + appended.size - superseded;
+        return new UniversityTable(this, appended, nextDeleted, nextLive, dirty, removed);
+    }
+
+    /**
+     * Sets the tombstone bit of {@code row}, copying its page first unless
+     * this delta already did. Returns false if the row was already deleted.
+     */
+    private static boolean tombstone(long[][] pages, boolean[] copied, int row) {
+        int page = row >>> DELETED_PAGE_SHIFT;
+        int word = (row >>> 6) & ((1 << (DELETED_PAGE_SHIFT - 6)) - 1);
+        if (isDeleted(pages, row)) return false;
+        long[] bits = pages[page];
+        if (!copied[page]) {
+            bits = bits == null ? new long[1 << (DELETED_PAGE_SHIFT - 6)] : bits.clone();
+            pages[page] = bits;
+            copied[page] = true;
+        }
+        bits[word] |= 1L << row;
+        return true;
+    }
+
+    // Base rows followed by n appended ones; capacity 0 appends to base in place
+    private static int[] append(int[] base, int baseSize, int[] rows, int n, int capacity) {
+        int[] out = base;
+        if (capacity > 0) {
+            out = new int[capacity];
+            System.arraycopy(base, 0, out, 0, baseSize);
+        }
+        System.arraycopy(rows, 0, out, baseSize, n);
+        return out;
+    }
+
+    private static double[] append(double[] base, int baseSize, double[] rows, int n, int capacity) {
+        double[] out = base;
+        if (capacity > 0) {
+            out = new double[capacity];
+            System.arraycopy(base, 0, out, 0, baseSize);
+        }
+        System.arraycopy(rows, 0, out, baseSize, n);
+        return out;
+    }
+
+    private static byte[] append(byte[] base, int baseSize, byte[] rows, int n, int capacity) {
+        byte[] out = base;
+        if (capacity > 0) {
+            out = new byte[capacity];
+            System.arraycopy(base, 0, out, 0, baseSize);
+        }
+        System.arraycopy(rows, 0, out, baseSize, n);
+        return out;
+    }
+
+    // ---------- Object view ----------
+
+    /** Returns the {@link University} for a row, building it on first use. */
+    public University get(int row) {
+        University u = records[row];
+        if (u == null) {
+            u = new University(
+                    name(row),
+                    country(row),
+                    city(row),
+                    region(row),
+                    courseType(row),
+                    program(row),
+                    degree(row),
+                    ieltsMin[row],
+                    isGreRequired(row),
+                    globalRank[row],
+                    subjectRank[row],
+                    totalUsd[row],
+                    tuitionUsd[row],
+                    hasResearchLab(row),
+                    isOnCampus(row),
+                    focus(row),
+                    null
+            );
+            records[row] = u;
+        }
+        return u;
+    }
+
+    /** Read-only list of live rows; elements are materialized as they are accessed. */
+    public List<University> asList() {
+        return new TableList(liveRows());
+    }
+
+    private final class TableList extends AbstractList<University> {
+        private final int[] live;
+
+        TableList(int[] live) {
+            this.live = live;
+        }
+
+        UniversityTable table() {
+            return UniversityTable.this;
+        }
+
+        @Override
+        public University get(int index) {
+            return UniversityTable.this.get(live == null ? index : live[index]);
+        }
+
+        @Override
+        public int size() {
+            return liveCount;
+        }
+    }
+
+    /** Row ids of live rows, or null when no row was ever deleted. */
+    private int[] liveRows() {
+        if (liveCount == size) return null;
+        int[] live = liveRows;
+        if (live == null) {
+            live = new int[liveCount];
+            int j = 0;
+            for (int row = 0; row < size; row++) {
+                if (isLive(row)) live[j++] = row;
+            }
+            liveRows = live;
+        }
+        return live;
+    }
+
+    // ---------- Builder ----------
+
+    public static final class Builder {
+        private int size;
+        private int[] globalRank;
+        private int[] subjectRank;
+        private double[] ieltsMin;
+        private double[] totalUsd;
+        private double[] tuitionUsd;
+        private byte[] region;
+        private byte[] courseType;
+        private byte[] flags;
+        private final StringDictionary strings;
+        private int[] nameId;
+        private int[] countryId;
+        private int[] cityId;
+        private int[] programId;
+        private int[] degreeId;
+        private int[] focusId;
+        private University[] records;
+
+        /**
+         * @param retainRecords keep the added {@link University} instances as
+         *                      the table's object view instead of rebuilding them
+         */
+        public Builder(int expectedRows, boolean retainRecords) {
+            this(expectedRows, retainRecords, new StringDictionary());
+        }
+
+        private Builder(int expectedRows, boolean retainRecords, StringDictionary strings) {
+            int cap = Math.max(16, expectedRows);
+            this.strings = strings;
+            globalRank = new int[cap];
+            subjectRank = new int[cap];
+            ieltsMin = new double[cap];
+            totalUsd = new double[cap];
+            tuitionUsd = new double[cap];
+            region = new byte[cap];
+            courseType = new byte[cap];
+            flags = new byte[cap];
+            nameId = new int[cap];
+            countryId = new int[cap];
+            cityId = new int[cap];
+            programId = new int[cap];
+            degreeId = new int[cap];
+            focusId = new int[cap];
+            records = retainRecords ? new University[cap] : null;
+        }
+
+        public Builder add(University u) {
+            add(u.getName(), u.getCountry(), u.getCity(), u.getRegion(), u.getCourseType(),
+                    u.getProgram(), u.getDegree(), u.getMinIelts(), u.isGreRequired(),
+                    u.getGlobalRank(), u.getSubjectRank(), u.getEstimatedTotalUsd(), u.getTuitionUsd(),
+                    u.hasResearchLab(), u.isOnCampus(), u.getFocus());
+            if (records != null) records[size - 1] = u;
+            return this;
+        }
+
+        /** Adds a row from already-parsed fields (same order as the {@link University} constructor). */
+        Builder add(String name, String country, String city, Region region, CourseType courseType,
+                    String program, String degree, double minIelts, boolean greRequired,
+                    int globalRank, int subjectRank, double totalUsd, double tuitionUsd,
+                    boolean hasResearchLab, boolean onCampus, String focus) {
+            if (size == this.globalRank.length) grow(size + 1);
+            int r = size++;
+            this.globalRank[r] = globalRank;
+            this.subjectRank[r] = subjectRank;
+            this.ieltsMin[r] = minIelts;
+            this.totalUsd[r] = totalUsd;
+            this.tuitionUsd[r] = tuitionUsd;
+            this.region[r] = (byte) region.ordinal();
+            this.courseType[r] = (byte) courseType.ordinal();
+            this.flags[r] = (byte) ((greRequired ? FLAG_GRE : 0)
+                    | (onCampus ? FLAG_ON_CAMPUS : 0)
+                    | (hasResearchLab ? FLAG_RESEARCH_LAB : 0));
+            nameId[r] = strings.intern(name);
+            countryId[r] = strings.intern(country);
+            cityId[r] = strings.intern(city);
+            programId[r] = strings.intern(program);
+            degreeId[r] = strings.intern(degree);
+            focusId[r] = strings.intern(focus);
+            return this;
+        }
+
+        /**
+         * Appends every row of {@code other} (typically one parsed chunk of a
+         * file). Its strings are re-interned here in id order, so merging
+         * chunks in file order assigns the same ids as one sequential pass.
+         */
+        Builder addAll(Builder other) {
+            int[] ids = new int[other.strings.size()];
+            for (int id = 0; id < ids.length; id++) ids[id] = strings.intern(other.strings.get(id));
+
+            int n = other.size;
+            if (size + n > globalRank.length) grow(size + n);
+            System.arraycopy(other.globalRank, 0, globalRank, size, n);
+            System.arraycopy(other.subjectRank, 0, subjectRank, size, n);
+            System.arraycopy(other.ieltsMin, 0, ieltsMin, size, n);
+            System.arraycopy(other.totalUsd, 0, totalUsd, size, n);
+            System.arraycopy(other.tuitionUsd, 0, tuitionUsd, size, n);
+            System.arraycopy(other.region, 0, region, size, n);
+            System.arraycopy(other.courseType, 0, courseType, size, n);
+            System.arraycopy(other.flags, 0, flags, size, n);
+            for (int r = 0; r < n; r++) {
+                int row = size + r;
+                nameId[row] = ids[other.nameId[r]];
+                countryId[row] = ids[other.countryId[r]];
+                cityId[row] = ids[other.cityId[r]];
+                programId[row] = ids[other.programId[r]];
+                degreeId[row] = ids[other.degreeId[r]];
+                focusId[row] = ids[other.focusId[r]];
+            }
+            if (records != null && other.records != null) System.arraycopy(other.records, 0, records, size, n);
+            size += n;
+            return this;
+        }
+
+        private void grow(int minCapacity) {
+            int cap = Math.max(minCapacity, globalRank.length * 2);
+            globalRank = Arrays.copyOf(globalRank, cap);
+            subjectRank = Arrays.copyOf(subjectRank, cap);
+            ieltsMin = Arrays.copyOf(ieltsMin, cap);
+            totalUsd = Arrays.copyOf(totalUsd, cap);
+            tuitionUsd = Arrays.copyOf(tuitionUsd, cap);
+            region = Arrays.copyOf(region, cap);
+            courseType = Arrays.copyOf(courseType, cap);
+            flags = Arrays.copyOf(flags, cap);
+            nameId = Arrays.copyOf(nameId, cap);
+            countryId = Arrays.copyOf(countryId, cap);
+            cityId = Arrays.copyOf(cityId, cap);
+            programId = Arrays.copyOf(programId, cap);
+            degreeId = Arrays.copyOf(degreeId, cap);
+            focusId = Arrays.copyOf(focusId, cap);
+            if (records != null) records = Arrays.copyOf(records, cap);
+        }
+
+        /** Rows added so far. */
+        public int size() {
+            return size;
+        }
+
+        public UniversityTable build() {
+            return new UniversityTable(this);
+        }
+    }
+}
@@ -3,11 +3,17 @@ package logic;
 import model.CourseType;
 import model.Region;
 
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
 import java.util.Set;
 
-public class EligibilityProfile {
+/**
+ * Immutable applicant profile; safe to share between threads.
+ */
+public final class EligibilityProfile {
 
     private final double cgpa10;          // 0.0 - 10.0
     private final double ieltsOverall;    // 0.0 - 9.0
@@ -20,6 +26,10 @@ public class EligibilityProfile {
 
     private final CourseType courseType;
     private final Set<Region> regions;
+    // Focus tags the applicant prefers (lower case); soft, only used by fit scoring
+    private final Set<String> interests;
+    // Required topics (lower case); hard: a program must match at least one
+    private final Set<String> topics;
 
     public EligibilityProfile(
             double cgpa10,
@@ -32,6 +42,51 @@ public class EligibilityProfile {
             double budgetUsd,
             CourseType courseType,
             Set<Region> regions
+    ) {
+        this(cgpa10, ieltsOverall, hasGre, greQuant, greVerbal, yearsExperience, numPapers, budgetUsd,
+                courseType, regions, Collections.emptySet());
+    }
+
+    /**
+     * @param interests focus tags (e.g. "crypto", "ai") matched against each
+     *                  program's focus column by {@link FitScorer}; they never
+     *                  exclude a program
+     */
+    public EligibilityProfile(
+            double cgpa10,
+            double ieltsOverall,
+            boolean hasGre,
+            int greQuant,
+            int greVerbal,
+            int yearsExperience,
+            int numPapers,
+            double budgetUsd,
+            CourseType courseType,
+            Set<Region> regions,
+            Collection<String> interests
+    ) {
+        this(cgpa10, ieltsOverall, hasGre, greQuant, greVerbal, yearsExperience, numPapers, budgetUsd,
+                courseType, regions, interests, Collections.emptySet());
+    }
+
+    /**
+     * @param topics hard filter: only programs matching at least one topic
+     *               (e.g. "crypto", "network security") are considered; see
+     *               {@link data.UniversityTable#topicMatches}. Empty means any
+     */
+    public EligibilityProfile(
+            double cgpa10,
+            double ieltsOverall,
+            boolean hasGre,
+            int greQuant,
+            int greVerbal,
+            int yearsExperience,
+            int numPapers,
+            double budgetUsd,
+            CourseType courseType,
+            Set<Region> regions,
+            Collection<String> interests,
+            Collection<String> topics
     ) {
         this.cgpa10 = cgpa10;
         this.ieltsOverall = ieltsOverall;
@@ -42,7 +97,11 @@ public class EligibilityProfile {
         this.numPapers = numPapers;
         this.budgetUsd = budgetUsd;
         this.courseType = courseType;
-        this.regions = new HashSet<>(regions);
+        Set<Region> copy = EnumSet.noneOf(Region.class);
+        copy.addAll(regions);
+        this.regions = Collections.unmodifiableSet(copy);
+        this.interests = lowerCase(interests);
+        this.topics = lowerCase(topics);
     }
 
     public double getCgpa10() {
@@ -82,7 +141,17 @@ public class EligibilityProfile {
     }
 
     public Set<Region> getRegions() {
-        return Collections.unmodifiableSet(regions);
+        return regions;
+    }
+
+    /** Preferred focus tags, lower case; empty when none were given. */
+    public Set<String> getInterests() {
+        return interests;
+    }
+
+    /** Required topics, lower case; empty when any program will do. */
+    public Set<String> getTopics() {
+        return topics;
     }
 
     /**
@@ -125,6 +194,15 @@ public class EligibilityProfile {
         return score;
     }
 
+    private static Set<String> lowerCase(Collection<String> values) {
+        Set<String> set = new LinkedHashSet<>();
+        for (String v : values) {
+            String t = v.trim().toLowerCase(Locale.ROOT);
+            if (!t.isEmpty()) set.add(t);
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
     private static double clamp(double v, double lo, double hi) {
         return Math.max(lo, Math.min(hi, v));
     }
@@ -0,0 +1,158 @@
+package logic;
+
+import data.UniversityTable;
+import model.CourseType;
+import model.Region;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-snapshot inputs of {@link FitScorer}: the profile-independent part of
+ * every feature, one array per feature and (course type, region) partition,
+ * indexed by partition offset. A bucket run is therefore a contiguous slice
+ * of each array.
+ *
+ * Each row also gets its position in {@link UniversityTable#compareRank}
+ * order among rows of its course type, so a (score, position) pair sorts
+ * as one long with ties already in rank order.
+ *
+ * Focus tags (and the degree, as one more tag) become a 64-bit mask per row.
+ * Tags get bits in order of first appearance; past the 64th they share
+ * bits, which can only make {@code TOPIC_MATCH} generous for rare tags.
+ */
+final class FitFeatures {
+
+    private static final double LOG_UNKNOWN_RANK = Math.log(UniversityTable.UNKNOWN_RANK);
+
+    final float[][] subjectRank;
+    final float[][] globalRank;
+    final float[][] researchLab;
+    final float[][] cost;
+    final float[][] greRequired;
+    final long[][] tags;
+    // Hard-filter inputs in the same layout, so filtering a run stays sequential too
+    final double[][] ieltsMin;
+    final double[][] totalUsd;
+    // [partition][offset] -> rank position within the course type, and back to the row
+    final int[][] rankPosition;
+    final int[][] rowAtPosition;
+    private final Map<String, Integer> tagBits = new HashMap<>();
+
+    private FitFeatures(UniversityTable table) {
+        Region[] regions = Region.values();
+        int k = CourseType.values().length * regions.length;
+        subjectRank = new float[k][];
+        globalRank = new float[k][];
+        researchLab = new float[k][];
+        cost = new float[k][];
+        greRequired = new float[k][];
+        tags = new long[k][];
+        ieltsMin = new double[k][];
+        totalUsd = new double[k][];
+        rankPosition = new int[k][];
+        rowAtPosition = new int[CourseType.values().length][];
+
+        for (CourseType ct : CourseType.values()) {
+            for (Region region : regions) {
+                int p = partition(ct, region);
+                int n = table.partitionSize(ct, region);
+                subjectRank[p] = new float[n];
+                globalRank[p] = new float[n];
+                researchLab[p] = new float[n];
+                cost[p] = new float[n];
+                greRequired[p] = new float[n];
+                tags[p] = new long[n];
+                ieltsMin[p] = new double[n];
+                totalUsd[p] = new double[n];
+                for (int i = 0; i < n; i++) {
+                    int row = table.partitionAt(ct, region, i);
+                    float g = rankScore(table.globalRank(row));
+                    globalRank[p][i] = g;
+                    subjectRank[p][i] = table.subjectRank(row) > 0 ? rankScore(table.subjectRank(row)) : g;
+                    researchLab[p][i] = table.hasResearchLab(row) ? 1f : 0f;
+                    // Budgets are checked against the total; tuition is the best guess without one
+                    double total = table.totalUsd(row);
+                    cost[p][i] = (float) (total > 0 ? total : table.tuitionUsd(row));
+                    greRequired[p][i] = table.isGreRequired(row) ? 1f : 0f;
+                    tags[p][i] = rowTags(table.focus(row), table.degree(row));
+                    ieltsMin[p][i] = table.ieltsMin(row);
+                    totalUsd[p][i] = total;
+                }
+            }
+            rankPositions(table, ct, regions);
+        }
+    }
+
+    /** Merges the course type's partitions (each rank-ordered) to number its rows. */
+    private void rankPositions(UniversityTable table, CourseType ct, Region[] regions) {
+        int total = 0;
+        for (Region region : regions) {
+            int p = partition(ct, region);
+            rankPosition[p] = new int[table.partitionSize(ct, region)];
+            total += rankPosition[p].length;
+        }
+        int[] rows = new int[total];
+        int[] heads = new int[regions.length];
+        for (int pos = 0; pos < total; pos++) {
+            int best = -1;
+            for (int j = 0; j < regions.length; j++) {
+                if (heads[j] == rankPosition[partition(ct, regions[j])].length) continue;
+                if (best < 0 || table.compareRank(table.partitionAt(ct, regions[j], heads[j]),
+                        table.partitionAt(ct, regions[best], heads[best])) < 0) {
+                    best = j;
+                }
+            }
+            rows[pos] = table.partitionAt(ct, regions[best], heads[best]);
+            rankPosition[partition(ct, regions[best])][heads[best]++] = pos;
+        }
+        rowAtPosition[ct.ordinal()] = rows;
+    }
+
+    /** The snapshot's features, built on its first fit-ordered request. */
+    static FitFeatures of(UniversityTable table) {
+        return table.derived(FitFeatures.class, FitFeatures::new);
+    }
+
+    static int partition(CourseType courseType, Region region) {
+        return courseType.ordinal() * Region.values().length + region.ordinal();
+    }
+
+    /** 1 - ln(rank) / ln(9999): rank 1 → 1, rank 9999 → 0; unranked → 0. */
+    static float rankScore(int rank) {
+        if (rank <= 0) return 0f;
+        int r = UniversityTable.effectiveRank(rank);
+        return (float) Math.max(0.0, 1.0 - Math.log(r) / LOG_UNKNOWN_RANK);
+    }
+
+    private long rowTags(String focus, String degree) {
+        long mask = 0;
+        for (String tag : focus.split("\\+")) {
+            mask |= bit(tag, true);
+        }
+        return mask | bit(degree, true);
+    }
+
+    private long bit(String tag, boolean assign) {
+        String t = tag.trim().toLowerCase(Locale.ROOT);
+        if (t.isEmpty()) return 0L;
+        Integer b = tagBits.get(t);
+        if (b == null) {
+            if (!assign) return 0L;
+            b = tagBits.size();
+            tagBits.put(t, b);
+        }
+        return 1L << (b & 63);
+    }
+
+    /** Mask of the tags in {@code interests} that occur in this snapshot. */
+    long tagMask(Set<String> interests) {
+        long mask = 0;
+        for (String tag : interests) {
+            mask |= bit(tag, false);
+        }
+        return mask;
+    }
+}
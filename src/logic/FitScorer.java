@@ -0,0 +1,205 @@
+package logic;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Weighted fit score used to order buckets by more than global rank.
+ *
+ * Every {@link Feature} maps a program (and, for some, the applicant) to
+ * [0, 1]; the score is {@code 100 * sum(w * f) / sum(w)}. The per-program
+ * inputs come from {@link FitFeatures}, vectors built once per table
+ * snapshot in partition order, so scoring a bucket run is one branch-free
+ * pass over a few contiguous arrays that the JIT vectorizes (plus a second
+ * pass for {@link Feature#TOPIC_MATCH} when the applicant has interests).
+ * Features with weight 0 still cost a multiply-add but never change the
+ * order.
+ *
+ * Immutable; build one with {@link #builder()} or {@link #parse(String)}.
+ */
+public final class FitScorer {
+
+    public enum Feature {
+        /** Subject rank, log-scaled (1 → 1.0, 9999 → 0); the global rank stands in when unknown. */
+        SUBJECT_RANK,
+        /** Global rank, log-scaled; 0 when unranked. */
+        GLOBAL_RANK,
+        /** 1 if the program has a research lab. */
+        RESEARCH_LAB,
+        /** Share of the budget left after the total cost; 0 without a budget. */
+        COST_HEADROOM,
+        /** 1 unless GRE is required, then the applicant's normalized GRE (0 without one). */
+        GRE_FIT,
+        /** Share of the applicant's interests found in the program's focus tags or degree. */
+        TOPIC_MATCH;
+
+        /** Lower-case name, as used by {@link #parse(String)}. */
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final Feature[] FEATURES = Feature.values();
+
+    public static final FitScorer DEFAULT = builder()
+            .weight(Feature.SUBJECT_RANK, 0.30)
+            .weight(Feature.GLOBAL_RANK, 0.25)
+            .weight(Feature.RESEARCH_LAB, 0.15)
+            .weight(Feature.COST_HEADROOM, 0.15)
+            .weight(Feature.GRE_FIT, 0.05)
+            .weight(Feature.TOPIC_MATCH, 0.10)
+            .build();
+
+    private final double[] weights;
+    // weights scaled so a perfect fit scores 100
+    private final float[] scaled;
+
+    private FitScorer(double[] weights) {
+        this.weights = weights.clone();
+        double sum = 0.0;
+        for (double w : weights) sum += w;
+        if (sum <= 0.0) {
+            throw new IllegalArgumentException("At least one feature weight must be positive");
+        }
+        this.scaled = new float[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            scaled[i] = (float) (weights[i] * 100.0 / sum);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parses {@code "subject_rank=0.5,cost_headroom=0.3"}; features not
+     * named get weight 0. Separators may be ',' or ';'.
+     *
+     * @throws IllegalArgumentException on an unknown feature or a bad weight
+     */
+    public static FitScorer parse(String spec) {
+        Builder b = new Builder();
+        for (String part : spec.split("[,;]")) {
+            if (part.isBlank()) continue;
+            int eq = part.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected feature=weight, got: " + part.trim());
+            }
+            String key = part.substring(0, eq).trim();
+            double w;
+            try {
+                w = Double.parseDouble(part.substring(eq + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad weight for " + key + ": " + part.substring(eq + 1).trim());
+            }
+            b.weight(feature(key), w);
+        }
+        return b.build();
+    }
+
+    /** Feature by {@link Feature#key()} (case-insensitive, '-' or ' ' for '_'). */
+    public static Feature feature(String key) {
+        String k = key.trim().toUpperCase(Locale.ROOT).replace('-', '_').replace(' ', '_');
+        for (Feature f : FEATURES) {
+            if (f.name().equals(k)) return f;
+        }
+        throw new IllegalArgumentException("Unknown fit feature: " + key.trim());
+    }
+
+    public double weight(Feature feature) {
+        return weights[feature.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Feature f : FEATURES) {
+            if (weights[f.ordinal()] == 0.0) continue;
+            if (sb.length() > 0) sb.append(',');
+            sb.append(f.key()).append('=').append(weights[f.ordinal()]);
+        }
+        return sb.toString();
+    }
+
+    // ---------- Scoring ----------
+
+    /**
+     * Scores partition offsets {@code [from, to)} for {@code profile} into
+     * {@code out[from .. to)} (same index as the inputs: shifting it stops
+     * the JIT from vectorizing the loop). Profile-dependent inputs are folded into
+     * a few constants first, so the loop body is the same multiply-adds for
+     * every row.
+     */
+    void scoreRun(FitFeatures f, int partition, int from, int to, EligibilityProfile profile, float[] out) {
+        float wSubject = scaled[Feature.SUBJECT_RANK.ordinal()];
+        float wGlobal = scaled[Feature.GLOBAL_RANK.ordinal()];
+        float wLab = scaled[Feature.RESEARCH_LAB.ordinal()];
+        float wGre = scaled[Feature.GRE_FIT.ordinal()];
+
+        double budget = profile.getBudgetUsd();
+        // Without a budget every row's headroom is 0: drop the term
+        float wCost = budget > 0 ? scaled[Feature.COST_HEADROOM.ordinal()] : 0f;
+        float invBudget = budget > 0 ? (float) (1.0 / budget) : 0f;
+
+        // GRE_FIT = 1 - greRequired * (1 - applicant's GRE)
+        float greGap = 1f - (float) applicantGre(profile);
+
+        Set<String> interests = profile.getInterests();
+        long query = f.tagMask(interests);
+        float wTopic = query == 0 ? 0f : scaled[Feature.TOPIC_MATCH.ordinal()] / interests.size();
+
+        float[] subject = f.subjectRank[partition];
+        float[] global = f.globalRank[partition];
+        float[] lab = f.researchLab[partition];
+        float[] cost = f.cost[partition];
+        float[] gre = f.greRequired[partition];
+        for (int i = from; i < to; i++) {
+            // Costs are >= 0, so headroom only needs clamping from below; Math.max
+            // (unlike a ?: branch) keeps the loop vectorizable
+            float headroom = Math.max(1f - cost[i] * invBudget, 0f);
+            out[i] = wSubject * subject[i]
+                    + wGlobal * global[i]
+                    + wLab * lab[i]
+                    + wCost * headroom
+                    + wGre * (1f - gre[i] * greGap);
+        }
+        if (wTopic != 0f) {
+            // Separate pass: a popcount in the loop above would stop the JIT from vectorizing it
+            long[] tags = f.tags[partition];
+            for (int i = from; i < to; i++) {
+                out[i] += wTopic * Long.bitCount(tags[i] & query);
+            }
+        }
+    }
+
+    /** Applicant's GRE on [0, 1] (260 → 0, 340 → 1); 0 without a GRE. */
+    static double applicantGre(EligibilityProfile p) {
+        if (!p.hasGre()) return 0.0;
+        int q = Math.max(130, Math.min(170, p.getGreQuant()));
+        int v = Math.max(130, Math.min(170, p.getGreVerbal()));
+        return (q + v - 260) / 80.0;
+    }
+
+    // ---------- Builder ----------
+
+    public static final class Builder {
+        private final double[] weights = new double[FEATURES.length];
+
+        private Builder() {
+        }
+
+        /** Sets one feature's weight (>= 0); unset features weigh 0. */
+        public Builder weight(Feature feature, double weight) {
+            if (!(weight >= 0.0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Weight for " + feature.key() + " must be >= 0: " + weight);
+            }
+            weights[feature.ordinal()] = weight;
+            return this;
+        }
+
+        public FitScorer build() {
+            return new FitScorer(Arrays.copyOf(weights, weights.length));
+        }
+    }
+}
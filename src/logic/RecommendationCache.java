@@ -0,0 +1,228 @@
+package logic;
+
+import data.UniversityTable;
+import logic.RecommendationEngine.Mode;
+import logic.RecommendationEngine.ProfileTier;
+import logic.RecommendationEngine.Result;
+import logic.RecommendationEngine.ScoredUniversity;
+import model.Region;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes {@link RecommendationEngine#recommend} results in front of the
+ * engine.
+ *
+ * The key holds only what can change the output: course type, region set,
+ * topics, profile tier, IELTS, budget, mode and count. Two profiles that differ
+ * only in CGPA within the same tier share an entry. IELTS is floored to the
+ * 0.5 band when every program minimum in the table sits on that grid, since
+ * the IELTS filter cannot tell such scores apart. Entries are evicted
+ * least-recently-used past {@code maxEntries} and expire after the TTL. The
+ * whole cache is dropped when a table with a new {@link UniversityTable#version()}
+ * is passed in.
+ *
+ * Cached lists are shared between callers and are therefore unmodifiable.
+ */
+public final class RecommendationCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+
+    private long tableVersion = -1;
+    private boolean ieltsOnHalfBands;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public RecommendationCache(int maxEntries, long ttl, TimeUnit unit) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 1024) * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > RecommendationCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Same contract as {@link RecommendationEngine#recommend(UniversityTable, EligibilityProfile, Mode, int)}. */
+    public Result recommend(UniversityTable table, EligibilityProfile profile, Mode mode, int desiredCount) {
+        double profileScore = profile.computeProfileScore();
+        ProfileTier tier = RecommendationEngine.classifyTier(profileScore);
+        long now = System.nanoTime();
+
+        Key key;
+        synchronized (this) {
+            if (table.version() != tableVersion) {
+                if (!entries.isEmpty()) invalidations.increment();
+                entries.clear();
+                tableVersion = table.version();
+                ieltsOnHalfBands = ieltsOnHalfBands(table);
+            }
+            key = new Key(profile, tier, mode, desiredCount, ieltsOnHalfBands);
+            Entry e = entries.get(key);
+            if (e != null) {
+                if (now - e.createdNanos <= ttlNanos) {
+                    hits.increment();
+                    return e.forProfile(profileScore);
+                }
+                entries.remove(key);
+                expirations.increment();
+            }
+        }
+
+        // Computed outside the lock; concurrent misses on one key may both compute
+        misses.increment();
+        Result r = RecommendationEngine.recommend(table, profile, mode, desiredCount);
+        Entry e = new Entry(r, now);
+        synchronized (this) {
+            if (table.version() == tableVersion) {
+                entries.put(key, e);
+            }
+        }
+        return e.forProfile(profileScore);
+    }
+
+    /** Drops every entry. */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(),
+                invalidations.sum(), size());
+    }
+
+    private static boolean ieltsOnHalfBands(UniversityTable table) {
+        for (int row = 0; row < table.size(); row++) {
+            if (!table.isLive(row)) continue;
+            double twice = table.ieltsMin(row) * 2.0;
+            if (twice != Math.rint(twice)) return false;
+        }
+        return true;
+    }
+
+    // ---------- Helper types ----------
+
+    /** Point-in-time counters; {@code misses} is the number of engine loads. */
+    public static final class Stats {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final long expirations;
+        public final long invalidations;
+        public final int size;
+
+        Stats(long hits, long misses, long evictions, long expirations, long invalidations, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.invalidations = invalidations;
+            this.size = size;
+        }
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private static final class Key {
+        private final int courseType;
+        private final int regionMask;
+        private final Set<String> topics;
+        private final int tier;
+        private final double ielts;
+        private final double budget;
+        private final int mode;
+        private final int count;
+
+        Key(EligibilityProfile p, ProfileTier tier, Mode mode, int desiredCount, boolean halfBands) {
+            int mask = 0;
+            for (Region r : p.getRegions()) {
+                mask |= 1 << r.ordinal();
+            }
+            this.courseType = p.getCourseType().ordinal();
+            this.regionMask = mask;
+            this.topics = p.getTopics();
+            this.tier = tier.ordinal();
+            // Same 1e-9 slack as the engine's IELTS comparison
+            this.ielts = halfBands ? Math.floor((p.getIeltsOverall() + 1e-9) * 2.0) / 2.0 : p.getIeltsOverall();
+            this.budget = p.getBudgetUsd() > 0 ? p.getBudgetUsd() : 0.0;
+            this.mode = mode.ordinal();
+            // VIEW_ALL ignores the count; PREDICT treats every count <= 0 as "all"
+            this.count = mode == Mode.VIEW_ALL ? 0 : Math.max(0, desiredCount);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key k)) return false;
+            return courseType == k.courseType
+                    && regionMask == k.regionMask
+                    && topics.equals(k.topics)
+                    && tier == k.tier
+                    && Double.compare(ielts, k.ielts) == 0
+                    && Double.compare(budget, k.budget) == 0
+                    && mode == k.mode
+                    && count == k.count;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = courseType;
+            h = 31 * h + regionMask;
+            h = 31 * h + topics.hashCode();
+            h = 31 * h + tier;
+            h = 31 * h + Double.hashCode(ielts);
+            h = 31 * h + Double.hashCode(budget);
+            h = 31 * h + mode;
+            h = 31 * h + count;
+            return h;
+        }
+    }
+
+    private static final class Entry {
+        private final Result result;
+        private final long createdNanos;
+
+        Entry(Result r, long createdNanos) {
+            this.result = new Result(r.mode, r.profileScore, r.tier, r.totalUniversities, r.excludedByIelts,
+                    freeze(r.ambitious), freeze(r.target), freeze(r.safe), r.generatedAt);
+            this.createdNanos = createdNanos;
+        }
+
+        /** The cached buckets with this caller's own score and timestamp. */
+        Result forProfile(double profileScore) {
+            Result r = result;
+            return new Result(r.mode, profileScore, r.tier, r.totalUniversities, r.excludedByIelts,
+                    r.ambitious, r.target, r.safe, LocalDateTime.now());
+        }
+
+        private static List<ScoredUniversity> freeze(List<ScoredUniversity> list) {
+            // Entries themselves are immutable and already shared by the engine
+            return Collections.unmodifiableList(list);
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package logic;
 
+import data.UniversityTable;
+import metrics.Metrics;
+import metrics.Metrics.Stage;
+import model.CourseType;
+import model.Region;
 import model.University;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntBinaryOperator;
 
 public class RecommendationEngine {
 
@@ -33,16 +44,49 @@ public class RecommendationEngine {
     // ------------ Helper types ------------
 
     public static final class ScoredUniversity {
+        // Reason codes (bit flags), in display order
+        public static final int REASON_GLOBAL_RANK = 1;
+        public static final int REASON_RESEARCH_LAB = 1 << 1;
+        public static final int REASON_ON_CAMPUS = 1 << 2;
+        public static final int REASON_BUCKET = 1 << 3;
+        private static final int[] REASON_CODES =
+                {REASON_GLOBAL_RANK, REASON_RESEARCH_LAB, REASON_ON_CAMPUS, REASON_BUCKET};
+
         public final University uni;
         public final double fitScore;
         public final Bucket bucket;
-        public final List<String> reasons;
+        /** Set of REASON_* codes; rendered to text only by {@link #reasons()}. */
+        public final int reasonFlags;
 
-        public ScoredUniversity(University uni, double fitScore, Bucket bucket, List<String> reasons) {
+        public ScoredUniversity(University uni, double fitScore, Bucket bucket, int reasonFlags) {
             this.uni = uni;
             this.fitScore = fitScore;
             this.bucket = bucket;
-            this.reasons = reasons;
+            this.reasonFlags = reasonFlags;
+        }
+
+        public boolean hasReason(int code) {
+            return (reasonFlags & code) != 0;
+        }
+
+        /** Human-readable text for one reason code (the rank comes from {@link #uni}). */
+        public String reasonText(int code) {
+            return switch (code) {
+                case REASON_GLOBAL_RANK -> "global rank " + uni.getGlobalRank();
+                case REASON_RESEARCH_LAB -> "active research lab";
+                case REASON_ON_CAMPUS -> "on-campus program";
+                case REASON_BUCKET -> bucket.name().toLowerCase() + " bucket by profile & rank";
+                default -> throw new IllegalArgumentException("Unknown reason code: " + code);
+            };
+        }
+
+        /** Reasons as text, in display order; built on every call. */
+        public List<String> reasons() {
+            List<String> out = new ArrayList<>(Integer.bitCount(reasonFlags));
+            for (int code : REASON_CODES) {
+                if (hasReason(code)) out.add(reasonText(code));
+            }
+            return out;
         }
     }
 
@@ -78,50 +122,712 @@ public class RecommendationEngine {
         }
     }
 
-    // Comparator used everywhere for ordering within a bucket
-    private static final Comparator<ScoredUniversity> BY_RANK_THEN_NAME =
-            Comparator.comparingInt((ScoredUniversity s) -> safeGlobalRank(s.uni))
-                      .thenComparing(s -> s.uni.getName());
+    /** One page of VIEW_ALL results; see {@link #viewAllPage}. */
+    public static final class Page {
+        public final double profileScore;
+        public final ProfileTier tier;
+        public final int totalUniversities;
+        public final int excludedByIelts;
+        public final List<ScoredUniversity> items;   // rank order; each entry carries its bucket
+        public final String nextCursor;              // null on the last page
+
+        public Page(double profileScore,
+                    ProfileTier tier,
+                    int totalUniversities,
+                    int excludedByIelts,
+                    List<ScoredUniversity> items,
+                    String nextCursor) {
+            this.profileScore = profileScore;
+            this.tier = tier;
+            this.totalUniversities = totalUniversities;
+            this.excludedByIelts = excludedByIelts;
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    // Smallest number of profiles worth handing to a separate task
+    private static final int MIN_BATCH_CHUNK = 256;
 
     // ------------ Public entry point ------------
 
+    /**
+     * List entry point. PREDICT with a positive count avoids indexing the
+     * whole list: one pass keeps the best {@code desiredCount} candidates per
+     * bucket in bounded heaps, O(n log k), and only those are ordered.
+     * Topic filters need the table's topic index and take the table path,
+     * as does a list that is already a table's {@link UniversityTable#asList()}
+     * view (walking it would materialize every row).
+     */
     public static Result recommend(List<University> all,
                                    EligibilityProfile profile,
                                    Mode mode,
                                    int desiredCount) {
+        UniversityTable backing = UniversityTable.backing(all);
+        if (backing != null) {
+            return recommend(backing, profile, mode, desiredCount);
+        }
+        if (mode == Mode.VIEW_ALL || desiredCount <= 0 || !profile.getTopics().isEmpty()) {
+            return recommend(UniversityTable.of(all), profile, mode, desiredCount);
+        }
+
+        long start = Metrics.now();
+        double profileScore = profile.computeProfileScore();
+        ProfileTier tier = classifyTier(profileScore);
+        double maxIelts = profile.getIeltsOverall() + 1e-9;
+        double budget = profile.getBudgetUsd(); // 0 = no limit
+
+        // A bucket never contributes more than N rows (quota + top-up), nor more than the list holds
+        int keep = Math.min(desiredCount, all.size());
+        int total = 0;
+        int excludedByIelts = 0;
+        int overBudget = 0;
+        TopK[] best = {new TopK(all, keep), new TopK(all, keep), new TopK(all, keep)};
+        for (int i = 0; i < all.size(); i++) {
+            University u = all.get(i);
+            if (u.getCourseType() != profile.getCourseType() || !profile.getRegions().contains(u.getRegion())) {
+                continue;
+            }
+            total++;
+            boolean affordable = !(budget > 0 && u.getEstimatedTotalUsd() > budget);
+            if (!affordable) overBudget++;
+            if (u.getMinIelts() > maxIelts) {
+                excludedByIelts++;
+                continue;
+            }
+            if (!affordable) {
+                continue;
+            }
+            best[classifyBucket(u.getGlobalRank(), tier).ordinal()].offer(i);
+        }
+        // One pass does candidates, filters and bucketing; it is booked as the filter stage
+        long t = Metrics.lap(Stage.FILTER, start);
+        Metrics.excluded(excludedByIelts, overBudget);
+
+        // Index just the survivors, in list order so rank ties still fall back to it
+        IntList picked = new IntList();
+        for (TopK heap : best) {
+            for (int k = 0; k < heap.size; k++) picked.add(heap.heap[k]);
+        }
+        picked.sort();
+        List<University> selected = new ArrayList<>(picked.size());
+        for (int k = 0; k < picked.size(); k++) selected.add(all.get(picked.get(k)));
+        UniversityTable table = UniversityTable.of(selected);
+
+        IntList[] buckets = {new IntList(), new IntList(), new IntList()};
+        for (int row = 0; row < table.size(); row++) {
+            buckets[classifyBucket(table.globalRank(row), tier).ordinal()].add(row);
+        }
+        t = Metrics.lap(Stage.BUCKETING, t);
+        for (IntList b : buckets) b.sort(table::compareRank);
+        t = Metrics.lap(Stage.SORT, t);
+
+        Result r = buildResult(table, null, profile, mode, desiredCount, profileScore, tier,
+                total, excludedByIelts, buckets[0], buckets[1], buckets[2], null, t, null);
+        Metrics.request(start);
+        return r;
+    }
+
+    /**
+     * Columnar fast path: candidates come from the table's presorted
+     * (course type, region) partitions and are handled as row ids in
+     * (rank, name) order; {@link University} objects are only materialized
+     * for the rows that end up in the result.
+     *
+     * Buckets are contiguous runs of each partition (see {@link BucketTables}),
+     * so PREDICT only scans each run until it has {@code desiredCount}
+     * eligible rows.
+     */
+    public static Result recommend(UniversityTable table,
+                                   EligibilityProfile profile,
+                                   Mode mode,
+                                   int desiredCount) {
+        return recommend(table, profile, mode, desiredCount, null, null);
+    }
+
+    /**
+     * Same as {@link #recommend(UniversityTable, EligibilityProfile, Mode, int)},
+     * additionally filling {@code trace} (when non-null) with the reason each
+     * candidate was dropped or kept. The result is identical either way.
+     */
+    public static Result recommend(UniversityTable table,
+                                   EligibilityProfile profile,
+                                   Mode mode,
+                                   int desiredCount,
+                                   RecommendationTrace trace) {
+        return recommend(table, profile, mode, desiredCount, null, trace);
+    }
+
+    /**
+     * Orders each bucket by {@code scorer} (best fit first, ties in rank
+     * order) instead of by global rank; PREDICT then takes the best-fitting
+     * rows of each bucket, and top-up picks by fit score across buckets.
+     * Bucket membership, the hard filters and the quotas are unchanged, and
+     * {@link ScoredUniversity#fitScore} carries the scorer's 0–100 score.
+     * A null {@code scorer} keeps the rank order.
+     */
+    public static Result recommend(UniversityTable table,
+                                   EligibilityProfile profile,
+                                   Mode mode,
+                                   int desiredCount,
+                                   FitScorer scorer,
+                                   RecommendationTrace trace) {
 
         // 1) Compute profile strength
+        long start = Metrics.now();
         double profileScore = profile.computeProfileScore();
         ProfileTier tier = classifyTier(profileScore);
 
-        // 2) Filter by course type + region
-        List<University> matching = all.stream()
-                .filter(u -> u.getCourseType() == profile.getCourseType())
-                .filter(u -> profile.getRegions().contains(u.getRegion()))
-                .collect(Collectors.toList());
+        // 2) Candidates: union of the presorted (courseType, region) partitions,
+        //    narrowed to the topic index's bitmap of each when topics are given
+        CourseType courseType = profile.getCourseType();
+        Region[] regions = profile.getRegions().toArray(new Region[0]);
+        BitSet[] hits = new BitSet[regions.length]; // null = whole partition
+        int total = 0;
+        for (int j = 0; j < regions.length; j++) {
+            hits[j] = table.topicMatches(courseType, regions[j], profile.getTopics());
+            total += hits[j] == null ? table.partitionSize(courseType, regions[j]) : hits[j].cardinality();
+        }
+        long t = Metrics.lap(Stage.CANDIDATES, start);
 
-        int total = matching.size();
+        // 3) IELTS + budget filtering (hard constraints) via the per-partition
+        //    range indexes. Strict IELTS filter: user < program minimum -> excluded,
+        //    so exclusions are simply the rows past the IELTS boundary.
+        double maxIelts = profile.getIeltsOverall() + 1e-9;
+        double budget = profile.getBudgetUsd(); // 0 = no limit
+        int excludedByIelts = 0;
 
-        // 3) IELTS + budget filtering (hard constraints), track IELTS exclusions
-        List<University> eligible = new ArrayList<>();
+        // 4) + 5) Bucketing is a lookup: each partition is rank-ordered and the bucket
+        //         only depends on rank, so A / T / S are consecutive runs per tier.
+        //         No bucket can contribute more than N rows to a PREDICT result
+        //         (quota + top-up), so runs are scanned only that far.
+        BucketTables buckets = BucketTables.of(table);
+        int limit = mode == Mode.VIEW_ALL || desiredCount <= 0 ? Integer.MAX_VALUE : desiredCount;
+        IntList[][] slices = new IntList[3][regions.length];
+        int[][] runs = new int[regions.length][];
+        for (int j = 0; j < regions.length; j++) {
+            runs[j] = buckets.runs(courseType, regions[j], tier);
+        }
+        t = Metrics.lap(Stage.BUCKETING, t);
+
+        int overBudget = 0;
+        for (int j = 0; j < regions.length; j++) {
+            int n;
+            int ieltsOk;
+            int budgetOk;
+            if (hits[j] == null) {
+                n = table.partitionSize(courseType, regions[j]);
+                ieltsOk = table.countIeltsAtMost(courseType, regions[j], maxIelts);
+                budgetOk = budget > 0 ? table.countCostAtMost(courseType, regions[j], budget) : n;
+            } else {
+                // Same counts, restricted to the topic matches
+                n = hits[j].cardinality();
+                ieltsOk = table.countIeltsAtMost(courseType, regions[j], maxIelts, hits[j]);
+                budgetOk = budget > 0 ? table.countCostAtMost(courseType, regions[j], budget, hits[j]) : n;
+            }
+            excludedByIelts += n - ieltsOk;
+            overBudget += n - budgetOk;
+            if (scorer != null) continue;
+            for (int b = 0; b < 3; b++) {
+                slices[b][j] = selectEligible(table, courseType, regions[j], runs[j][b], runs[j][b + 1],
+                        n, ieltsOk, budgetOk, maxIelts, budget, limit, hits[j]);
+            }
+        }
+        t = Metrics.lap(Stage.FILTER, t);
+        Metrics.excluded(excludedByIelts, overBudget);
+
+        IntList ambitious;
+        IntList target;
+        IntList safe;
+        float[][] fit = null;
+        if (scorer == null) {
+            // Slices are each rank-ordered, so merging them keeps every bucket sorted
+            ambitious = mergeSorted(table, slices[0], limit);
+            target = mergeSorted(table, slices[1], limit);
+            safe = mergeSorted(table, slices[2], limit);
+        } else {
+            // Any eligible row of a run may fit best, so runs are scored in full
+            FitFeatures features = FitFeatures.of(table);
+            // Scores are written at their partition offset, so one buffer spans every run
+            int longest = 0;
+            for (Region region : regions) longest = Math.max(longest, table.partitionSize(courseType, region));
+            float[] scratch = new float[longest];
+            FitBucket[] scored = new FitBucket[3];
+            for (int b = 0; b < 3; b++) {
+                scored[b] = scoreRuns(features, scorer, profile, courseType, regions, runs, b,
+                        maxIelts, budget, hits, limit, scratch);
+            }
+            t = Metrics.lap(Stage.SCORE, t);
+            fit = new float[3][];
+            for (int b = 0; b < 3; b++) {
+                scored[b].finish();
+                fit[b] = scored[b].scores;
+            }
+            ambitious = scored[0].rows;
+            target = scored[1].rows;
+            safe = scored[2].rows;
+        }
+        t = Metrics.lap(Stage.SORT, t);
+
+        if (trace != null) trace.begin(table, profile, mode, desiredCount, profileScore, tier, maxIelts, budget);
+        Result r = buildResult(table, buckets, profile, mode, desiredCount, profileScore, tier,
+                total, excludedByIelts, ambitious, target, safe, fit, t, trace);
+        if (trace != null) traceCandidates(table, courseType, regions, hits, trace);
+        Metrics.request(start);
+        return r;
+    }
+
+    /** Fills {@code trace} after buildResult has recorded the picks. */
+    private static void traceCandidates(UniversityTable table,
+                                        CourseType courseType,
+                                        Region[] regions,
+                                        BitSet[] hits,
+                                        RecommendationTrace trace) {
+        int sameCourseType = 0;
+        int inRegions = 0;
+        for (Region region : Region.values()) {
+            sameCourseType += table.partitionSize(courseType, region);
+        }
+        for (Region region : regions) {
+            inRegions += table.partitionSize(courseType, region);
+        }
+        trace.dropped(table.liveCount() - sameCourseType, sameCourseType - inRegions);
+        for (int j = 0; j < regions.length; j++) {
+            int n = table.partitionSize(courseType, regions[j]);
+            for (int i = 0; i < n; i++) {
+                trace.candidate(table.partitionAt(courseType, regions[j], i), hits[j] == null || hits[j].get(i));
+            }
+        }
+    }
+
+    // ------------ Paged / streaming VIEW_ALL ------------
+
+    /**
+     * One page of the VIEW_ALL result, in global (rank, name) order. Buckets
+     * follow rank, so pages run through Ambitious, then Target, then Safe.
+     * Work and memory are bounded by {@code pageSize}, not by the number of
+     * matches.
+     *
+     * @param cursor {@code null} for the first page, else a previous page's
+     *               {@link Page#nextCursor}
+     * @throws IllegalArgumentException for a malformed cursor or one issued
+     *                                  against a different dataset snapshot
+     */
+    public static Page viewAllPage(UniversityTable table,
+                                   EligibilityProfile profile,
+                                   String cursor,
+                                   int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        RankCursor it = new RankCursor(table, profile, cursor == null ? -1 : decodeCursor(table, cursor));
+
+        List<ScoredUniversity> items = new ArrayList<>(Math.min(pageSize, it.remainingBound()));
+        int last = -1;
+        while (items.size() < pageSize && it.hasNext()) {
+            last = it.nextRow();
+            items.add(it.scored(last));
+        }
+        String next = it.hasNext() ? encodeCursor(table, last) : null;
+
+        int[] counts = it.counts();
+        return new Page(it.profileScore, it.tier, counts[0], counts[1], items, next);
+    }
+
+    /**
+     * Streaming VIEW_ALL: yields every eligible university lazily in global
+     * (rank, name) order, each with its bucket. Nothing is computed ahead of
+     * the consumer.
+     */
+    public static Iterator<ScoredUniversity> viewAllIterator(UniversityTable table, EligibilityProfile profile) {
+        RankCursor it = new RankCursor(table, profile, -1);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public ScoredUniversity next() {
+                if (!it.hasNext()) throw new NoSuchElementException();
+                return it.scored(it.nextRow());
+            }
+        };
+    }
+
+    private static String encodeCursor(UniversityTable table, int row) {
+        String raw = table.version() + ":" + row;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decodeCursor(UniversityTable table, String cursor) {
+        long version;
+        int row;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            version = Long.parseLong(raw.substring(0, colon));
+            row = Integer.parseInt(raw.substring(colon + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (version != table.version()) {
+            throw new IllegalArgumentException("Cursor expired: the dataset has changed, start from the first page");
+        }
+        if (row < 0 || row >= table.size()) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return row;
+    }
+
+    /**
+     * Lazy k-way merge over the profile's partitions, yielding rows that
+     * pass the hard filters in {@link UniversityTable#compareRank} order,
+     * optionally starting after a given row.
+     */
+    private static final class RankCursor {
+        final double profileScore;
+        final ProfileTier tier;
+        private final UniversityTable table;
+        private final EligibilityProfile profile;
+        private final CourseType courseType;
+        private final Region[] regions;
+        private final double maxIelts;
+        private final double budget;
+        private final BucketTables buckets;
+        // Topic matches per region (partition offsets), null without a topic filter
+        private final BitSet[] hits;
+        private final int[] offsets;
+        // Next eligible row per region, or -1 when that partition is exhausted
+        private final int[] heads;
+
+        RankCursor(UniversityTable table, EligibilityProfile profile, int after) {
+            this.table = table;
+            this.profile = profile;
+            this.profileScore = profile.computeProfileScore();
+            this.tier = classifyTier(profileScore);
+            this.courseType = profile.getCourseType();
+            this.regions = profile.getRegions().toArray(new Region[0]);
+            this.maxIelts = profile.getIeltsOverall() + 1e-9;
+            this.budget = profile.getBudgetUsd(); // 0 = no limit
+            this.buckets = BucketTables.of(table);
+            this.hits = new BitSet[regions.length];
+            this.offsets = new int[regions.length];
+            this.heads = new int[regions.length];
+            for (int j = 0; j < regions.length; j++) {
+                hits[j] = table.topicMatches(courseType, regions[j], profile.getTopics());
+                offsets[j] = after < 0 ? 0 : firstAfter(regions[j], after);
+                heads[j] = advance(j);
+            }
+        }
+
+        /** Partition offset of the first row ordered after {@code row} (binary search). */
+        private int firstAfter(Region region, int row) {
+            int lo = 0;
+            int hi = table.partitionSize(courseType, region);
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (table.compareRank(table.partitionAt(courseType, region, mid), row) <= 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        /** Moves region {@code j} to its next eligible row. */
+        private int advance(int j) {
+            int n = table.partitionSize(courseType, regions[j]);
+            while (offsets[j] < n) {
+                if (hits[j] != null) {
+                    int next = hits[j].nextSetBit(offsets[j]);
+                    if (next < 0) break;
+                    offsets[j] = next;
+                }
+                int row = table.partitionAt(courseType, regions[j], offsets[j]++);
+                if (table.ieltsMin(row) <= maxIelts && (budget <= 0 || table.totalUsd(row) <= budget)) {
+                    return row;
+                }
+            }
+            return -1;
+        }
+
+        /** Upper bound on the rows still to come: everything not yet scanned plus the heads. */
+        int remainingBound() {
+            long n = 0;
+            for (int j = 0; j < heads.length; j++) {
+                n += table.partitionSize(courseType, regions[j]) - offsets[j];
+                if (heads[j] >= 0) n++;
+            }
+            return (int) Math.min(n, Integer.MAX_VALUE);
+        }
+
+        boolean hasNext() {
+            for (int h : heads) {
+                if (h >= 0) return true;
+            }
+            return false;
+        }
+
+        int nextRow() {
+            int best = -1;
+            for (int j = 0; j < heads.length; j++) {
+                if (heads[j] >= 0 && (best < 0 || table.compareRank(heads[j], heads[best]) < 0)) best = j;
+            }
+            int row = heads[best];
+            heads[best] = advance(best);
+            return row;
+        }
+
+        ScoredUniversity scored(int row) {
+            Bucket bucket = classifyBucket(table.globalRank(row), tier);
+            return buckets.scored(table, row, bucket, profile);
+        }
+
+        /** {total candidates, excluded by IELTS}, from the range indexes. */
+        int[] counts() {
+            int total = 0;
+            int excluded = 0;
+            for (int j = 0; j < regions.length; j++) {
+                if (hits[j] == null) {
+                    int n = table.partitionSize(courseType, regions[j]);
+                    total += n;
+                    excluded += n - table.countIeltsAtMost(courseType, regions[j], maxIelts);
+                } else {
+                    int n = hits[j].cardinality();
+                    total += n;
+                    excluded += n - table.countIeltsAtMost(courseType, regions[j], maxIelts, hits[j]);
+                }
+            }
+            return new int[]{total, excluded};
+        }
+    }
+
+    // ------------ Batch entry point ------------
+
+    /**
+     * Scores many profiles against one table. Profiles are grouped by
+     * (course type, region set); each group merges its partitions and
+     * classifies buckets once per tier, so per-profile work is limited to
+     * the tier, the IELTS / budget cut-offs and quota selection.
+     *
+     * @return one result per profile, in input order
+     */
+    public static List<Result> recommendBatch(UniversityTable table,
+                                              List<EligibilityProfile> profiles,
+                                              Mode mode,
+                                              int desiredCount) {
+        Map<Integer, CandidateSet> groups = new HashMap<>();
+        List<Result> results = new ArrayList<>(profiles.size());
+        for (EligibilityProfile profile : profiles) {
+            if (!profile.getTopics().isEmpty()) {
+                // Topic filters narrow candidates per profile, so they skip the shared sets
+                results.add(recommend(table, profile, mode, desiredCount));
+                continue;
+            }
+            CandidateSet candidates = groups.computeIfAbsent(groupKey(profile),
+                    k -> new CandidateSet(table, profile.getCourseType(), profile.getRegions()));
+            results.add(recommend(table, candidates, profile, mode, desiredCount));
+        }
+        return results;
+    }
+
+    /**
+     * Parallel variant of {@link #recommendBatch(UniversityTable, List, Mode, int)}.
+     * The input is split into contiguous chunks that run on {@code executor}
+     * (e.g. a {@link java.util.concurrent.ForkJoinPool}); candidate sets are
+     * shared across chunks and results keep the input order.
+     */
+    public static List<Result> recommendBatch(UniversityTable table,
+                                              List<EligibilityProfile> profiles,
+                                              Mode mode,
+                                              int desiredCount,
+                                              ExecutorService executor) {
+        int n = profiles.size();
+        int chunks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4,
+                (n + MIN_BATCH_CHUNK - 1) / MIN_BATCH_CHUNK));
+        int chunkSize = (n + chunks - 1) / Math.max(1, chunks);
+
+        Map<Integer, CandidateSet> groups = new ConcurrentHashMap<>();
+        Result[] results = new Result[n];
+        List<Future<?>> pending = new ArrayList<>(chunks);
+        for (int start = 0; start < n; start += chunkSize) {
+            int from = start;
+            int to = Math.min(n, start + chunkSize);
+            pending.add(executor.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    EligibilityProfile profile = profiles.get(i);
+                    if (!profile.getTopics().isEmpty()) {
+                        results[i] = recommend(table, profile, mode, desiredCount);
+                        continue;
+                    }
+                    CandidateSet candidates = groups.computeIfAbsent(groupKey(profile),
+                            k -> new CandidateSet(table, profile.getCourseType(), profile.getRegions()));
+                    results[i] = recommend(table, candidates, profile, mode, desiredCount);
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> f : pending) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Batch scoring interrupted", e);
+        } catch (ExecutionException e) {
+            pending.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Batch scoring failed", e.getCause());
+        }
+        return Arrays.asList(results);
+    }
+
+    private static Result recommend(UniversityTable table,
+                                    CandidateSet candidates,
+                                    EligibilityProfile profile,
+                                    Mode mode,
+                                    int desiredCount) {
+        long start = Metrics.now();
+        double profileScore = profile.computeProfileScore();
+        ProfileTier tier = classifyTier(profileScore);
+        byte[] buckets = candidates.bucketsFor(tier);
+        long t = Metrics.lap(Stage.BUCKETING, start);
+
+        double maxIelts = profile.getIeltsOverall() + 1e-9;
+        double budget = profile.getBudgetUsd(); // 0 = no limit
+        int limit = mode == Mode.VIEW_ALL || desiredCount <= 0 ? Integer.MAX_VALUE : desiredCount;
         int excludedByIelts = 0;
+        int overBudget = 0;
+        IntList ambitious = new IntList();
+        IntList target = new IntList();
+        IntList safe = new IntList();
 
-        for (University u : matching) {
-            double minIelts = u.getMinIelts();
+        for (int i = 0; i < candidates.size; i++) {
+            // Budget filter (0 = no limit); applied after IELTS, counted regardless
+            boolean affordable = !(budget > 0 && candidates.totalUsd[i] > budget);
+            if (!affordable) overBudget++;
             // Strict IELTS filter: if user < program minimum -> excluded
-            if (profile.getIeltsOverall() + 1e-9 < minIelts) {
+            if (candidates.ieltsMin[i] > maxIelts) {
                 excludedByIelts++;
                 continue;
             }
-            // Budget filter (0 = no limit)
-            if (profile.getBudgetUsd() > 0 && u.getEstimatedTotalUsd() > profile.getBudgetUsd()) {
+            if (!affordable) {
                 continue;
             }
-            eligible.add(u);
+            // Candidates are rank-ordered: past N per bucket nothing more can be picked
+            IntList bucket = switch (buckets[i]) {
+                case 0 -> ambitious;
+                case 1 -> target;
+                default -> safe;
+            };
+            if (bucket.size() < limit) bucket.add(candidates.rows[i]);
         }
+        t = Metrics.lap(Stage.FILTER, t);
+        Metrics.excluded(excludedByIelts, overBudget);
 
-        if (eligible.isEmpty()) {
+        Result r = buildResult(table, BucketTables.of(table), profile, mode, desiredCount, profileScore, tier,
+                candidates.size, excludedByIelts, ambitious, target, safe, null, t, null);
+        Metrics.request(start);
+        return r;
+    }
+
+    private static int groupKey(EligibilityProfile profile) {
+        int mask = 0;
+        for (Region r : profile.getRegions()) {
+            mask |= 1 << r.ordinal();
+        }
+        return profile.getCourseType().ordinal() << 16 | mask;
+    }
+
+    /**
+     * Candidates shared by every profile with the same course type and
+     * regions: rank-ordered row ids plus their IELTS / cost values laid out
+     * contiguously, and per-tier bucket codes computed on first use.
+     */
+    private static final class CandidateSet {
+        final int size;
+        final int[] rows;
+        final double[] ieltsMin;
+        final double[] totalUsd;
+        private final int[] globalRank;
+        private final AtomicReferenceArray<byte[]> bucketsByTier =
+                new AtomicReferenceArray<>(ProfileTier.values().length);
+
+        CandidateSet(UniversityTable table, CourseType courseType, Set<Region> regions) {
+            long t = Metrics.now();
+            IntList[] slices = new IntList[regions.size()];
+            int j = 0;
+            for (Region region : regions) {
+                int n = table.partitionSize(courseType, region);
+                IntList slice = new IntList(n);
+                for (int i = 0; i < n; i++) {
+                    slice.add(table.partitionAt(courseType, region, i));
+                }
+                slices[j++] = slice;
+            }
+            IntList merged = slices.length == 0 ? new IntList() : mergeSorted(table, slices, Integer.MAX_VALUE);
+
+            this.size = merged.size();
+            this.rows = new int[size];
+            this.ieltsMin = new double[size];
+            this.totalUsd = new double[size];
+            this.globalRank = new int[size];
+            for (int i = 0; i < size; i++) {
+                int row = merged.get(i);
+                rows[i] = row;
+                ieltsMin[i] = table.ieltsMin(row);
+                totalUsd[i] = table.totalUsd(row);
+                globalRank[i] = table.globalRank(row);
+            }
+            // Built once per (course type, regions) group, not per profile
+            Metrics.lap(Stage.CANDIDATES, t);
+        }
+
+        /**
+         * Bucket ordinal per candidate for a tier (0 = A, 1 = T, 2 = S).
+         * Lock-free: concurrent first calls may both compute, one result wins.
+         */
+        byte[] bucketsFor(ProfileTier tier) {
+            byte[] b = bucketsByTier.get(tier.ordinal());
+            if (b == null) {
+                b = new byte[size];
+                for (int i = 0; i < size; i++) {
+                    b[i] = (byte) classifyBucket(globalRank[i], tier).ordinal();
+                }
+                if (!bucketsByTier.compareAndSet(tier.ordinal(), null, b)) {
+                    b = bucketsByTier.get(tier.ordinal());
+                }
+            }
+            return b;
+        }
+    }
+
+    /**
+     * Steps shared by the single and batch paths: VIEW_ALL output or PREDICT
+     * quota selection over already bucketed and ordered rows. {@code fit}
+     * holds each bucket's fit scores, aligned with its rows, when ordering
+     * by fit score (null for rank order). {@code t} is the
+     * {@link Metrics#lap} timestamp the remaining stages are timed from;
+     * {@code trace} (nullable) receives the quotas and picks.
+     */
+    private static Result buildResult(UniversityTable table,
+                                      BucketTables buckets,
+                                      EligibilityProfile profile,
+                                      Mode mode,
+                                      int desiredCount,
+                                      double profileScore,
+                                      ProfileTier tier,
+                                      int total,
+                                      int excludedByIelts,
+                                      IntList ambitious,
+                                      IntList target,
+                                      IntList safe,
+                                      float[][] fit,
+                                      long t,
+                                      RecommendationTrace trace) {
+        if (ambitious.size() + target.size() + safe.size() == 0) {
             // No matches after hard filters
+            Metrics.emptyResult();
             return new Result(
                     mode,
                     profileScore,
@@ -135,41 +841,13 @@ public class RecommendationEngine {
             );
         }
 
-        // 4) Bucket each eligible university (Ambitious / Target / Safe)
-        List<ScoredUniversity> ambitious = new ArrayList<>();
-        List<ScoredUniversity> target = new ArrayList<>();
-        List<ScoredUniversity> safe = new ArrayList<>();
-
-        for (University u : eligible) {
-            Bucket bucket = classifyBucket(u, tier);
-            double fit = computeFitScore(u, profile);
-            List<String> reasons = buildReasons(u, bucket);
-            ScoredUniversity s = new ScoredUniversity(u, fit, bucket, reasons);
-            switch (bucket) {
-                case AMBITIOUS -> ambitious.add(s);
-                case TARGET -> target.add(s);
-                case SAFE -> safe.add(s);
-            }
-        }
-
-        // 5) Sort within each bucket by global rank, then name
-        ambitious.sort(BY_RANK_THEN_NAME);
-        target.sort(BY_RANK_THEN_NAME);
-        safe.sort(BY_RANK_THEN_NAME);
-
         // VIEW_ALL mode: return everything
         if (mode == Mode.VIEW_ALL) {
-            return new Result(
-                    mode,
-                    profileScore,
-                    tier,
-                    total,
-                    excludedByIelts,
-                    ambitious,
-                    target,
-                    safe,
-                    LocalDateTime.now()
-            );
+            List<ScoredUniversity> a = toScored(table, buckets, ambitious, Bucket.AMBITIOUS, profile, fit);
+            List<ScoredUniversity> tg = toScored(table, buckets, target, Bucket.TARGET, profile, fit);
+            List<ScoredUniversity> sf = toScored(table, buckets, safe, Bucket.SAFE, profile, fit);
+            Metrics.lap(Stage.MATERIALIZE, t);
+            return new Result(mode, profileScore, tier, total, excludedByIelts, a, tg, sf, LocalDateTime.now());
         }
 
         // 6) PREDICT mode: respect desiredCount with dynamic split
@@ -177,75 +855,330 @@ public class RecommendationEngine {
         int N = desiredCount <= 0 ? available : Math.min(desiredCount, available);
 
         int[] quotas = computeQuotas(N); // [amb, tgt, safe]
+        if (trace != null) trace.quotas(N, quotas);
 
-        List<ScoredUniversity> finalAmb = new ArrayList<>();
-        List<ScoredUniversity> finalTgt = new ArrayList<>();
-        List<ScoredUniversity> finalSafe = new ArrayList<>();
-
-        // Take per-bucket up to quota
-        takeUpTo(ambitious, quotas[0], finalAmb);
-        takeUpTo(target, quotas[1], finalTgt);
-        takeUpTo(safe, quotas[2], finalSafe);
+        // Take per-bucket up to quota (bucket lists are already ordered)
+        int takeAmb = Math.min(quotas[0], ambitious.size());
+        int takeTgt = Math.min(quotas[1], target.size());
+        int takeSafe = Math.min(quotas[2], safe.size());
 
-        // Track what's already picked
-        Set<University> picked = new HashSet<>();
-        finalAmb.forEach(s -> picked.add(s.uni));
-        finalTgt.forEach(s -> picked.add(s.uni));
-        finalSafe.forEach(s -> picked.add(s.uni));
+        IntList finalAmb = ambitious.prefix(takeAmb);
+        IntList finalTgt = target.prefix(takeTgt);
+        IntList finalSafe = safe.prefix(takeSafe);
 
         int pickedCount = finalAmb.size() + finalTgt.size() + finalSafe.size();
+        t = Metrics.lap(Stage.QUOTA, t);
 
-        // 7) If we still have fewer than N, top-up from remaining (best-ranked across all buckets)
+        // 7) If we still have fewer than N, top-up from remaining (best-ranked across all buckets,
+        //    or best-fitting when ordering by fit). Leftovers are merged in that order, which is
+        //    what sorting them would give. Picks keep their bucket position, so fit[b][i] stays aligned.
         if (pickedCount < N) {
-            List<ScoredUniversity> remaining = new ArrayList<>();
-            for (ScoredUniversity s : ambitious) {
-                if (!picked.contains(s.uni)) remaining.add(s);
-            }
-            for (ScoredUniversity s : target) {
-                if (!picked.contains(s.uni)) remaining.add(s);
-            }
-            for (ScoredUniversity s : safe) {
-                if (!picked.contains(s.uni)) remaining.add(s);
-            }
-            remaining.sort(BY_RANK_THEN_NAME);
-
-            for (ScoredUniversity s : remaining) {
-                if (pickedCount >= N) break;
-                switch (s.bucket) {
-                    case AMBITIOUS -> finalAmb.add(s);
-                    case TARGET -> finalTgt.add(s);
-                    case SAFE -> finalSafe.add(s);
+            Metrics.topUp();
+            int ia = takeAmb;
+            int it = takeTgt;
+            int is = takeSafe;
+            while (pickedCount < N) {
+                int pa = ia < ambitious.size() ? ambitious.get(ia) : -1;
+                int pt = it < target.size() ? target.get(it) : -1;
+                int ps = is < safe.size() ? safe.get(is) : -1;
+                if (pa < 0 && pt < 0 && ps < 0) break;
+                if (pa >= 0 && (pt < 0 || before(table, fit, 0, ia, pa, 1, it, pt))
+                        && (ps < 0 || before(table, fit, 0, ia, pa, 2, is, ps))) {
+                    finalAmb.add(pa);
+                    ia++;
+                } else if (pt >= 0 && (ps < 0 || before(table, fit, 1, it, pt, 2, is, ps))) {
+                    finalTgt.add(pt);
+                    it++;
+                } else {
+                    finalSafe.add(ps);
+                    is++;
                 }
-                picked.add(s.uni);
                 pickedCount++;
             }
+            t = Metrics.lap(Stage.TOP_UP, t);
         }
 
         // 8) If we somehow exceeded N (due to rounding), trim in Safe → Target → Ambitious order
         pickedCount = finalAmb.size() + finalTgt.size() + finalSafe.size();
         if (pickedCount > N) {
             int excess = pickedCount - N;
-            excess = trimList(finalSafe, excess);
-            if (excess > 0) excess = trimList(finalTgt, excess);
-            if (excess > 0) trimList(finalAmb, excess);
+            excess = finalSafe.trim(excess);
+            if (excess > 0) excess = finalTgt.trim(excess);
+            if (excess > 0) finalAmb.trim(excess);
+        }
+        if (trace != null) {
+            tracePicks(trace, finalAmb, takeAmb);
+            tracePicks(trace, finalTgt, takeTgt);
+            tracePicks(trace, finalSafe, takeSafe);
+        }
+
+        List<ScoredUniversity> a = toScored(table, buckets, finalAmb, Bucket.AMBITIOUS, profile, fit);
+        List<ScoredUniversity> tg = toScored(table, buckets, finalTgt, Bucket.TARGET, profile, fit);
+        List<ScoredUniversity> sf = toScored(table, buckets, finalSafe, Bucket.SAFE, profile, fit);
+        Metrics.lap(Stage.MATERIALIZE, t);
+        return new Result(mode, profileScore, tier, total, excludedByIelts, a, tg, sf, LocalDateTime.now());
+    }
+
+    /**
+     * Top-up order between the heads of two buckets ({@code b1} at position
+     * {@code i1}, {@code b2} at {@code i2}): higher fit score first when
+     * ordering by fit, then rank.
+     */
+    private static boolean before(UniversityTable table, float[][] fit,
+                                  int b1, int i1, int row1, int b2, int i2, int row2) {
+        if (fit != null) {
+            int c = Float.compare(fit[b2][i2], fit[b1][i1]);
+            if (c != 0) return c < 0;
+        }
+        return table.compareRank(row1, row2) < 0;
+    }
+
+    /** Rows before {@code quotaTaken} were picked by quota, the rest by top-up. */
+    private static void tracePicks(RecommendationTrace trace, IntList picked, int quotaTaken) {
+        for (int i = 0; i < picked.size(); i++) {
+            trace.picked(picked.get(i), i < quotaTaken ? RecommendationTrace.Outcome.QUOTA
+                    : RecommendationTrace.Outcome.TOP_UP);
+        }
+    }
+
+    /**
+     * Rows of partition offsets {@code [from, to)} passing both hard filters,
+     * in rank order, stopping after {@code limit} rows.
+     *
+     * With a topic filter only the offsets set in {@code hits} are visited
+     * ({@code n}, {@code ieltsOk} and {@code budgetOk} then count matches).
+     * Otherwise, when one boundary leaves only a small prefix of its index,
+     * that prefix is intersected with the range and the other predicate, then
+     * put back in partition order; else the presorted range is scanned directly.
+     */
+    private static IntList selectEligible(UniversityTable table,
+                                          CourseType courseType,
+                                          Region region,
+                                          int from,
+                                          int to,
+                                          int n,
+                                          int ieltsOk,
+                                          int budgetOk,
+                                          double maxIelts,
+                                          double budget,
+                                          int limit,
+                                          BitSet hits) {
+        int m = Math.min(ieltsOk, budgetOk);
+        IntList out = new IntList(Math.min(Math.min(m, to - from), limit));
+        if (m == 0 || from == to) {
+            return out;
+        }
+        if (hits != null) {
+            for (int i = hits.nextSetBit(from); i >= 0 && i < to && out.size() < limit; i = hits.nextSetBit(i + 1)) {
+                int row = table.partitionAt(courseType, region, i);
+                if (m == n || (table.ieltsMin(row) <= maxIelts && (budget <= 0 || table.totalUsd(row) <= budget))) {
+                    out.add(row);
+                }
+            }
+            return out;
+        }
+        if (m == n) {
+            for (int i = from; i < to && out.size() < limit; i++) {
+                out.add(table.partitionAt(courseType, region, i));
+            }
+            return out;
+        }
+        if (m <= n / 8) {
+            IntList offsets = new IntList(m);
+            if (ieltsOk <= budgetOk) {
+                for (int i = 0; i < ieltsOk; i++) {
+                    int off = table.partitionByIeltsAt(courseType, region, i);
+                    if (off < from || off >= to) continue;
+                    int row = table.partitionAt(courseType, region, off);
+                    if (budget <= 0 || table.totalUsd(row) <= budget) offsets.add(off);
+                }
+            } else {
+                for (int i = 0; i < budgetOk; i++) {
+                    int off = table.partitionByCostAt(courseType, region, i);
+                    if (off < from || off >= to) continue;
+                    int row = table.partitionAt(courseType, region, off);
+                    if (table.ieltsMin(row) <= maxIelts) offsets.add(off);
+                }
+            }
+            offsets.sort();
+            for (int i = 0; i < offsets.size() && out.size() < limit; i++) {
+                out.add(table.partitionAt(courseType, region, offsets.get(i)));
+            }
+            return out;
+        }
+        for (int i = from; i < to && out.size() < limit; i++) {
+            int row = table.partitionAt(courseType, region, i);
+            if (table.ieltsMin(row) <= maxIelts
+                    && (budget <= 0 || table.totalUsd(row) <= budget)) {
+                out.add(row);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * The best-fitting {@code limit} eligible rows of bucket {@code b}
+     * across the profile's regions. Each run is scored in one pass over the
+     * snapshot's feature vectors, then filtered.
+     */
+    private static FitBucket scoreRuns(FitFeatures features,
+                                       FitScorer scorer,
+                                       EligibilityProfile profile,
+                                       CourseType courseType,
+                                       Region[] regions,
+                                       int[][] runs,
+                                       int b,
+                                       double maxIelts,
+                                       double budget,
+                                       BitSet[] hits,
+                                       int limit,
+                                       float[] scratch) {
+        int total = 0;
+        for (int[] run : runs) total += run[b + 1] - run[b];
+        FitBucket out = new FitBucket(features.rowAtPosition[courseType.ordinal()], limit, total);
+        for (int j = 0; j < regions.length; j++) {
+            int from = runs[j][b];
+            int to = runs[j][b + 1];
+            if (from == to) continue;
+            int p = FitFeatures.partition(courseType, regions[j]);
+            scorer.scoreRun(features, p, from, to, profile, scratch);
+            int[] positions = features.rankPosition[p];
+            double[] ielts = features.ieltsMin[p];
+            double[] cost = features.totalUsd[p];
+            for (int i = from; i < to; i++) {
+                // Once the bucket is full most rows lose on score alone: test that
+                // (well predicted) before the hard filters (not predictable)
+                if (out.competes(scratch[i]) && ielts[i] <= maxIelts && (budget <= 0 || cost[i] <= budget)
+                        && (hits[j] == null || hits[j].get(i))) {
+                    out.offer(scratch[i], positions[i]);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * k-way merge of rank-ordered row lists (k = number of selected regions),
+     * keeping the first {@code limit} rows.
+     */
+    private static IntList mergeSorted(UniversityTable table, IntList[] lists, int limit) {
+        int total = 0;
+        for (IntList l : lists) total += l.size();
+        if (lists.length == 1 && total <= limit) return lists[0];
+        total = Math.min(total, limit);
+        IntList out = new IntList(total);
+        int[] cursor = new int[lists.length];
+        while (out.size() < total) {
+            int best = -1;
+            int bestRow = -1;
+            for (int j = 0; j < lists.length; j++) {
+                if (cursor[j] == lists[j].size()) continue;
+                int row = lists[j].get(cursor[j]);
+                if (best < 0 || table.compareRank(row, bestRow) < 0) {
+                    bestRow = row;
+                    best = j;
+                }
+            }
+            out.add(bestRow);
+            cursor[best]++;
+        }
+        return out;
+    }
+
+    /**
+     * Result entries for the selected rows. Entries depend only on the row
+     * and the bucket, so they are built once per snapshot and shared via
+     * {@code buckets}; without it (throwaway tables) they are built directly.
+     * With {@code fit} (ordering by fit score) each entry carries its own score.
+     */
+    private static List<ScoredUniversity> toScored(UniversityTable table,
+                                                   BucketTables buckets,
+                                                   IntList rows,
+                                                   Bucket bucket,
+                                                   EligibilityProfile profile,
+                                                   float[][] fit) {
+        List<ScoredUniversity> out = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            if (fit != null) {
+                // Fit scores depend on the profile: never shared. Widened via the float's
+                // shortest decimal so 79.20258f stays 79.20258, not 79.20257568359375
+                double score = Double.parseDouble(Float.toString(fit[bucket.ordinal()][i]));
+                out.add(new ScoredUniversity(table.get(row), score, bucket, reasonFlags(table, row)));
+            } else {
+                out.add(buckets != null
+                        ? buckets.scored(table, row, bucket, profile)
+                        : newScored(table, row, bucket, profile));
+            }
+        }
+        return out;
+    }
+
+    private static ScoredUniversity newScored(UniversityTable table, int row, Bucket bucket, EligibilityProfile profile) {
+        return new ScoredUniversity(table.get(row), computeFitScore(table, row, profile), bucket, reasonFlags(table, row));
+    }
+
+    /**
+     * Per-snapshot lookup tables: for every (course type, region, tier) the
+     * partition offsets where the Ambitious, Target and Safe runs start, and
+     * the shared {@link ScoredUniversity} entries. Bucket depends only on the
+     * global rank, monotonically, so within a rank-ordered partition each
+     * bucket is one consecutive run.
+     */
+    private static final class BucketTables {
+        // [partition][tier] -> {0, ambitiousEnd, targetEnd, n}
+        private final int[][][] runs;
+        private final AtomicReferenceArray<ScoredUniversity> scored;
+
+        private BucketTables(UniversityTable table) {
+            CourseType[] courseTypes = CourseType.values();
+            Region[] regions = Region.values();
+            ProfileTier[] tiers = ProfileTier.values();
+            this.runs = new int[courseTypes.length * regions.length][tiers.length][];
+            for (CourseType ct : courseTypes) {
+                for (Region region : regions) {
+                    int n = table.partitionSize(ct, region);
+                    for (ProfileTier tier : tiers) {
+                        int ambEnd = 0;
+                        while (ambEnd < n && bucketAt(table, ct, region, ambEnd, tier) == Bucket.AMBITIOUS) ambEnd++;
+                        int tgtEnd = ambEnd;
+                        while (tgtEnd < n && bucketAt(table, ct, region, tgtEnd, tier) == Bucket.TARGET) tgtEnd++;
+                        runs[ct.ordinal() * regions.length + region.ordinal()][tier.ordinal()] =
+                                new int[]{0, ambEnd, tgtEnd, n};
+                    }
+                }
+            }
+            this.scored = new AtomicReferenceArray<>(table.size() * 3);
+        }
+
+        /** The snapshot's tables, built on its first request. */
+        static BucketTables of(UniversityTable table) {
+            return table.derived(BucketTables.class, BucketTables::new);
         }
 
-        return new Result(
-                mode,
-                profileScore,
-                tier,
-                total,
-                excludedByIelts,
-                finalAmb,
-                finalTgt,
-                finalSafe,
-                LocalDateTime.now()
-        );
+        private static Bucket bucketAt(UniversityTable table, CourseType ct, Region region, int i, ProfileTier tier) {
+            return classifyBucket(table.globalRank(table.partitionAt(ct, region, i)), tier);
+        }
+
+        int[] runs(CourseType courseType, Region region, ProfileTier tier) {
+            return runs[courseType.ordinal() * Region.values().length + region.ordinal()][tier.ordinal()];
+        }
+
+        /** Benign race: concurrent first calls build equal entries, one is kept. */
+        ScoredUniversity scored(UniversityTable table, int row, Bucket bucket, EligibilityProfile profile) {
+            int slot = row * 3 + bucket.ordinal();
+            ScoredUniversity s = scored.get(slot);
+            if (s == null) {
+                s = newScored(table, row, bucket, profile);
+                scored.set(slot, s);
+            }
+            return s;
+        }
     }
 
     // ------------ Profile logic ------------
 
-    private static ProfileTier classifyTier(double score) {
+    static ProfileTier classifyTier(double score) {
         if (score >= 90.0) return ProfileTier.EXCEPTIONAL;
         if (score >= 80.0) return ProfileTier.VERY_STRONG;
         if (score >= 70.0) return ProfileTier.STRONG;
@@ -256,8 +1189,8 @@ public class RecommendationEngine {
 
     // ------------ Bucket logic ------------
 
-    private static Bucket classifyBucket(University u, ProfileTier tier) {
-        int r = safeGlobalRank(u);
+    static Bucket classifyBucket(int globalRank, ProfileTier tier) {
+        int r = UniversityTable.effectiveRank(globalRank);
         if (r <= 0) {
             // Unknown rank → treat as SAFE
             return Bucket.SAFE;
@@ -268,10 +1201,28 @@ public class RecommendationEngine {
             return Bucket.AMBITIOUS;
         }
 
-        // Two boundaries per tier:
-        //  r <= b1 → Ambitious
-        //  r <= b2 → Target
-        //  else    → Safe
+        int[] bounds = TIER_BOUNDS[tier.ordinal()];
+        if (r <= bounds[0]) return Bucket.AMBITIOUS;
+        if (r <= bounds[1]) return Bucket.TARGET;
+        return Bucket.SAFE;
+    }
+
+    private static final int[][] TIER_BOUNDS = new int[ProfileTier.values().length][];
+
+    static {
+        for (ProfileTier tier : ProfileTier.values()) {
+            TIER_BOUNDS[tier.ordinal()] = tierBounds(tier);
+        }
+    }
+
+    /**
+     * Two rank boundaries per tier, {@code {b1, b2}}:
+     *  r <= b1 → Ambitious
+     *  r <= b2 → Target
+     *  else    → Safe
+     * (after the unranked → Safe and top-15 → Ambitious rules).
+     */
+    static int[] tierBounds(ProfileTier tier) {
         int b1;
         int b2;
         switch (tier) {
@@ -304,47 +1255,31 @@ public class RecommendationEngine {
                 b2 = 500;
             }
         }
-
-        if (r <= b1) return Bucket.AMBITIOUS;
-        if (r <= b2) return Bucket.TARGET;
-        return Bucket.SAFE;
-    }
-
-    private static int safeGlobalRank(University u) {
-        int r = u.getGlobalRank();
-        if (r <= 0) return 9999;
-        return r;
+        return new int[]{b1, b2};
     }
 
-    // ------------ Fit score (for tie-breaking / future use) ------------
+    // ------------ Fit score (rank order; FitScorer is the weighted one) ------------
 
-    private static double computeFitScore(University u, EligibilityProfile p) {
+    static double computeFitScore(UniversityTable t, int row, EligibilityProfile p) {
         // Lower global rank is better → higher score
-        int r = safeGlobalRank(u);
+        int r = UniversityTable.effectiveRank(t.globalRank(row));
         double base = -r;
 
         double bonus = 0.0;
-        if (u.hasResearchLab()) bonus += 5.0;
-        if (u.isOnCampus()) bonus += 2.0;
+        if (t.hasResearchLab(row)) bonus += 5.0;
+        if (t.isOnCampus(row)) bonus += 2.0;
 
-        // You can later add profile-based bonuses here (e.g., match with research-heavy programs)
+        // Profile-based scoring lives in FitScorer; BucketTables caches these entries per row,
+        // so anything added here must stay profile-independent
         return base + bonus;
     }
 
-    private static List<String> buildReasons(University u, Bucket bucket) {
-        List<String> reasons = new ArrayList<>();
-        int r = u.getGlobalRank();
-        if (r > 0) {
-            reasons.add("global rank " + r);
-        }
-        if (u.hasResearchLab()) {
-            reasons.add("active research lab");
-        }
-        if (u.isOnCampus()) {
-            reasons.add("on-campus program");
-        }
-        reasons.add(bucket.name().toLowerCase() + " bucket by profile & rank");
-        return reasons;
+    private static int reasonFlags(UniversityTable t, int row) {
+        int flags = ScoredUniversity.REASON_BUCKET;
+        if (t.globalRank(row) > 0) flags |= ScoredUniversity.REASON_GLOBAL_RANK;
+        if (t.hasResearchLab(row)) flags |= ScoredUniversity.REASON_RESEARCH_LAB;
+        if (t.isOnCampus(row)) flags |= ScoredUniversity.REASON_ON_CAMPUS;
+        return flags;
     }
 
     // ------------ Distribution logic ------------
@@ -394,22 +1329,203 @@ public class RecommendationEngine {
         return new int[]{a, t, s};
     }
 
-    private static void takeUpTo(List<ScoredUniversity> src, int count, List<ScoredUniversity> dest) {
-        for (int i = 0; i < src.size() && dest.size() < count; i++) {
-            dest.add(src.get(i));
+    // ------------ Bounded selection ------------
+
+    /**
+     * Keeps the {@code k} best list indices offered so far by (effective rank,
+     * name, index), as a max-heap whose root is the worst one kept.
+     */
+    private static final class TopK {
+        private final List<University> all;
+        private final int[] heap;
+        private int size;
+
+        TopK(List<University> all, int k) {
+            this.all = all;
+            this.heap = new int[k];
+        }
+
+        void offer(int index) {
+            if (size < heap.length) {
+                heap[size] = index;
+                siftUp(size++);
+            } else if (compare(index, heap[0]) < 0) {
+                heap[0] = index;
+                siftDown(0);
+            }
+        }
+
+        private int compare(int a, int b) {
+            University ua = all.get(a);
+            University ub = all.get(b);
+            int c = Integer.compare(UniversityTable.effectiveRank(ua.getGlobalRank()),
+                    UniversityTable.effectiveRank(ub.getGlobalRank()));
+            if (c != 0) return c;
+            c = ua.getName().compareTo(ub.getName());
+            return c != 0 ? c : Integer.compare(a, b);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (compare(heap[i], heap[parent]) <= 0) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int l = 2 * i + 1;
+                if (l >= size) return;
+                int worst = l + 1 < size && compare(heap[l + 1], heap[l]) > 0 ? l + 1 : l;
+                if (compare(heap[worst], heap[i]) <= 0) return;
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int t = heap[a];
+            heap[a] = heap[b];
+            heap[b] = t;
         }
     }
 
+    // ------------ Fit-ordered bucket ------------
+
     /**
-     * Trim up to `excess` entries from the end of the list.
-     *
-     * @return remaining excess after trimming this list.
+     * The best {@code limit} rows of one bucket by fit score, ties in rank
+     * order. Each entry is one long, (descending score key, rank position),
+     * so ordering is a primitive compare; past {@code limit} entries the
+     * array is a max-heap whose root is the worst one kept.
      */
-    private static int trimList(List<ScoredUniversity> list, int excess) {
-        int canTrim = Math.min(excess, list.size());
-        for (int i = 0; i < canTrim; i++) {
-            list.remove(list.size() - 1);
+    private static final class FitBucket {
+        private final int[] rowAtPosition;
+        private final int limit;
+        private long[] keys;
+        private int size;
+        // Score of the worst entry kept once full; lower scores cannot get in
+        private float floor = Float.NEGATIVE_INFINITY;
+
+        IntList rows;
+        float[] scores;
+
+        FitBucket(int[] rowAtPosition, int limit, int expected) {
+            this.rowAtPosition = rowAtPosition;
+            this.limit = limit;
+            this.keys = new long[Math.max(4, Math.min(limit, expected))];
+        }
+
+        /** Cheap pre-check: false if a row with this score cannot be kept. */
+        boolean competes(float score) {
+            return score >= floor;
+        }
+
+        void offer(float score, int position) {
+            // Scores are never NaN, so the raw bits are the canonical ones
+            int bits = Float.floatToRawIntBits(score);
+            long key = (long) ~(bits ^ ((bits >> 31) & 0x7fffffff)) << 32 | position;
+            if (size < limit) {
+                if (size == keys.length) keys = Arrays.copyOf(keys, size * 2);
+                keys[size++] = key;
+                if (size == limit) {
+                    for (int i = size / 2 - 1; i >= 0; i--) siftDown(i);
+                    floor = scoreOf(keys[0]);
+                }
+            } else if (key < keys[0]) {
+                keys[0] = key;
+                siftDown(0);
+                floor = scoreOf(keys[0]);
+            }
+        }
+
+        private static float scoreOf(long key) {
+            int asc = ~(int) (key >> 32);
+            return Float.intBitsToFloat(asc ^ ((asc >> 31) & 0x7fffffff));
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int l = 2 * i + 1;
+                if (l >= size) return;
+                int worst = l + 1 < size && keys[l + 1] > keys[l] ? l + 1 : l;
+                if (keys[worst] <= keys[i]) return;
+                long t = keys[i];
+                keys[i] = keys[worst];
+                keys[worst] = t;
+                i = worst;
+            }
+        }
+
+        /** Sorts what was kept into {@link #rows} / {@link #scores}. */
+        void finish() {
+            Arrays.sort(keys, 0, size);
+            rows = new IntList(size);
+            scores = new float[size];
+            for (int k = 0; k < size; k++) {
+                scores[k] = scoreOf(keys[k]);
+                rows.add(rowAtPosition[(int) keys[k]]);
+            }
+        }
+    }
+
+    // ------------ Small primitive list for row ids ------------
+
+    private static final class IntList {
+        private int[] data;
+        private int size;
+
+        IntList() {
+            this(16);
+        }
+
+        IntList(int capacity) {
+            this.data = new int[Math.max(4, capacity)];
+        }
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        int get(int i) {
+            return data[i];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void sort() {
+            Arrays.sort(data, 0, size);
+        }
+
+        /** Stable O(n log n) sort by {@code cmp} (boxes the entries once). */
+        void sort(IntBinaryOperator cmp) {
+            Integer[] boxed = new Integer[size];
+            for (int i = 0; i < size; i++) boxed[i] = data[i];
+            Arrays.sort(boxed, (a, b) -> cmp.applyAsInt(a, b));
+            for (int i = 0; i < size; i++) data[i] = boxed[i];
+        }
+
+        /** Copy of the first {@code count} entries. */
+        IntList prefix(int count) {
+            IntList out = new IntList(count + 4);
+            System.arraycopy(data, 0, out.data, 0, count);
+            out.size = count;
+            return out;
+        }
+
+        /**
+         * Trim up to `excess` entries from the end of the list.
+         *
+         * @return remaining excess after trimming this list.
+         */
+        int trim(int excess) {
+            int canTrim = Math.min(excess, size);
+            size -= canTrim;
+            return excess - canTrim;
         }
-        return excess - canTrim;
     }
 }
\ No newline at end of file
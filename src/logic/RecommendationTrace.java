@@ -0,0 +1,281 @@
+package logic;
+
+import data.UniversityTable;
+import logic.RecommendationEngine.Bucket;
+import logic.RecommendationEngine.Mode;
+import logic.RecommendationEngine.ProfileTier;
+
+import java.util.Arrays;
+
+/**
+ * Opt-in explanation of one {@link RecommendationEngine#recommend(UniversityTable,
+ * EligibilityProfile, Mode, int, RecommendationTrace)} call.
+ *
+ * Records the tier boundaries {@code b1} / {@code b2}, the PREDICT quotas
+ * and, for every candidate of the profile's course type and regions, the
+ * step that dropped or kept it. Candidates live in a compact buffer (row
+ * id plus one code byte each); rows of other course types or regions are
+ * only counted, and {@link #explain(int)} answers for them on demand.
+ *
+ * A trace describes one request and is not thread-safe. Requests without
+ * a trace pay one null check per step.
+ */
+public final class RecommendationTrace {
+
+    /** What happened to a row, in pipeline order. */
+    public enum Outcome {
+        /** Different course type. */
+        COURSE_TYPE,
+        /** Region not in the profile. */
+        REGION,
+        /** None of the profile's topics in the focus tags or program name. */
+        TOPIC,
+        /** Applicant's IELTS below the program minimum. */
+        IELTS,
+        /** Total cost above the applicant's budget. */
+        BUDGET,
+        /** Eligible, but PREDICT had enough better-ranked rows. */
+        NOT_PICKED,
+        /** Picked within its bucket's quota. */
+        QUOTA,
+        /** Picked by the top-up step after some bucket ran short. */
+        TOP_UP,
+        /** Eligible and listed (VIEW_ALL returns every eligible row). */
+        LISTED;
+
+        public boolean kept() {
+            return this == QUOTA || this == TOP_UP || this == LISTED;
+        }
+    }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final Bucket[] BUCKETS = Bucket.values();
+    private static final int NO_BUCKET = 0xF;
+
+    private UniversityTable table;
+    private EligibilityProfile profile;
+    private Mode mode;
+    private int desiredCount;
+    private double profileScore;
+    private ProfileTier tier;
+    private int[] bounds;
+    private double maxIelts;
+    private double budget;
+
+    private int targetCount = -1;
+    private int[] quotas;
+    private int droppedByCourseType;
+    private int droppedByRegion;
+
+    // PREDICT picks: row → QUOTA / TOP_UP, sorted on first lookup
+    private int[] pickedRows = new int[16];
+    private byte[] pickedCodes = new byte[16];
+    private int pickedCount;
+    private boolean pickedSorted;
+
+    // Candidates: row id + (outcome | bucket << 4)
+    private int[] rows = new int[64];
+    private byte[] codes = new byte[64];
+    private int size;
+
+    // ---------- Recording (engine side) ----------
+
+    void begin(UniversityTable table, EligibilityProfile profile, Mode mode, int desiredCount,
+               double profileScore, ProfileTier tier, double maxIelts, double budget) {
+        this.table = table;
+        this.profile = profile;
+        this.mode = mode;
+        this.desiredCount = desiredCount;
+        this.profileScore = profileScore;
+        this.tier = tier;
+        this.bounds = RecommendationEngine.tierBounds(tier);
+        this.maxIelts = maxIelts;
+        this.budget = budget;
+        targetCount = -1;
+        quotas = null;
+        pickedCount = 0;
+        size = 0;
+    }
+
+    void quotas(int n, int[] quotas) {
+        this.targetCount = n;
+        this.quotas = quotas.clone();
+    }
+
+    void picked(int row, Outcome outcome) {
+        if (pickedCount == pickedRows.length) {
+            pickedRows = Arrays.copyOf(pickedRows, pickedCount * 2);
+            pickedCodes = Arrays.copyOf(pickedCodes, pickedCount * 2);
+        }
+        pickedRows[pickedCount] = row;
+        pickedCodes[pickedCount++] = (byte) outcome.ordinal();
+        pickedSorted = false;
+    }
+
+    void dropped(int byCourseType, int byRegion) {
+        this.droppedByCourseType = byCourseType;
+        this.droppedByRegion = byRegion;
+    }
+
+    /**
+     * Records a candidate (course type and region already match);
+     * {@code topicMatch} comes from the engine's topic bitmap.
+     */
+    void candidate(int row, boolean topicMatch) {
+        Outcome o = decide(row, topicMatch);
+        int bucket = o == Outcome.TOPIC || o == Outcome.IELTS || o == Outcome.BUDGET ? NO_BUCKET
+                : RecommendationEngine.classifyBucket(table.globalRank(row), tier).ordinal();
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+            codes = Arrays.copyOf(codes, size * 2);
+        }
+        rows[size] = row;
+        codes[size++] = (byte) (o.ordinal() | bucket << 4);
+    }
+
+    /** Same hard filters, in the same order and precision, as the engine. */
+    private Outcome decide(int row, boolean topicMatch) {
+        if (table.courseTypeOrdinal(row) != profile.getCourseType().ordinal()) return Outcome.COURSE_TYPE;
+        if (!profile.getRegions().contains(table.region(row))) return Outcome.REGION;
+        if (!topicMatch) return Outcome.TOPIC;
+        if (table.ieltsMin(row) > maxIelts) return Outcome.IELTS;
+        if (budget > 0 && table.totalUsd(row) > budget) return Outcome.BUDGET;
+        if (mode == Mode.VIEW_ALL) return Outcome.LISTED;
+        return pickedOutcome(row);
+    }
+
+    private Outcome pickedOutcome(int row) {
+        if (!pickedSorted) {
+            sortPicked();
+            pickedSorted = true;
+        }
+        int i = Arrays.binarySearch(pickedRows, 0, pickedCount, row);
+        return i >= 0 ? OUTCOMES[pickedCodes[i]] : Outcome.NOT_PICKED;
+    }
+
+    private void sortPicked() {
+        // Row ids are non-negative, so (row, code) packs into one sortable long
+        long[] packed = new long[pickedCount];
+        for (int i = 0; i < pickedCount; i++) packed[i] = (long) pickedRows[i] << 8 | pickedCodes[i];
+        Arrays.sort(packed);
+        for (int i = 0; i < pickedCount; i++) {
+            pickedRows[i] = (int) (packed[i] >>> 8);
+            pickedCodes[i] = (byte) packed[i];
+        }
+    }
+
+    // ---------- Reading ----------
+
+    public UniversityTable table() {
+        return table;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public int desiredCount() {
+        return desiredCount;
+    }
+
+    public double profileScore() {
+        return profileScore;
+    }
+
+    public ProfileTier tier() {
+        return tier;
+    }
+
+    /** {@code b1}: ranks up to this are Ambitious (ranks 1-15 always are). */
+    public int ambitiousBound() {
+        return bounds[0];
+    }
+
+    /** {@code b2}: ranks up to this are Target; beyond, and unranked, Safe. */
+    public int targetBound() {
+        return bounds[1];
+    }
+
+    /** PREDICT: number of results aimed for (N); -1 for VIEW_ALL or when nothing was eligible. */
+    public int targetCount() {
+        return targetCount;
+    }
+
+    /** PREDICT quotas {@code {ambitious, target, safe}} from computeQuotas(N); null otherwise. */
+    public int[] quotas() {
+        return quotas == null ? null : quotas.clone();
+    }
+
+    public int droppedByCourseType() {
+        return droppedByCourseType;
+    }
+
+    public int droppedByRegion() {
+        return droppedByRegion;
+    }
+
+    /** Number of candidates (course type and region matched). */
+    public int size() {
+        return size;
+    }
+
+    public int row(int i) {
+        return rows[i];
+    }
+
+    public Outcome outcome(int i) {
+        return OUTCOMES[codes[i] & 0xF];
+    }
+
+    /** Bucket of candidate {@code i}; null if a hard filter dropped it. */
+    public Bucket bucket(int i) {
+        int b = (codes[i] >> 4) & 0xF;
+        return b == NO_BUCKET ? null : BUCKETS[b];
+    }
+
+    public int count(Outcome outcome) {
+        if (outcome == Outcome.COURSE_TYPE) return droppedByCourseType;
+        if (outcome == Outcome.REGION) return droppedByRegion;
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if ((codes[i] & 0xF) == outcome.ordinal()) n++;
+        }
+        return n;
+    }
+
+    /** Outcome for any live row of the traced table, candidate or not. */
+    public Outcome explain(int row) {
+        return decide(row, table.matchesTopics(row, profile.getTopics()));
+    }
+
+    /** One line for candidate {@code i}, e.g. "MIT / MS in EECS: AMBITIOUS (rank 1 <= 15), QUOTA". */
+    public String describe(int i) {
+        int row = rows[i];
+        StringBuilder sb = new StringBuilder();
+        sb.append(table.name(row)).append(" / ").append(table.program(row)).append(": ");
+        Outcome o = outcome(i);
+        Bucket b = bucket(i);
+        if (b == null) {
+            sb.append(o);
+            if (o == Outcome.TOPIC) {
+                sb.append(" (focus ").append(table.focus(row)).append(", wanted ").append(profile.getTopics()).append(')');
+            } else if (o == Outcome.IELTS) {
+                sb.append(" (needs ").append(table.ieltsMin(row)).append(", has ").append(profile.getIeltsOverall()).append(')');
+            } else {
+                sb.append(" (costs ").append((long) table.totalUsd(row)).append(", budget ").append((long) budget).append(')');
+            }
+            return sb.toString();
+        }
+        sb.append(b).append(" (").append(rankRule(table.globalRank(row))).append("), ").append(o);
+        return sb.toString();
+    }
+
+    private String rankRule(int globalRank) {
+        int r = UniversityTable.effectiveRank(globalRank);
+        if (r <= 0 || globalRank <= 0) return "unranked";
+        if (r <= 15) return "rank " + r + " <= 15";
+        if (r <= bounds[0]) return "rank " + r + " <= b1 " + bounds[0];
+        if (r <= bounds[1]) return "rank " + r + " <= b2 " + bounds[1];
+        return "rank " + r + " > b2 " + bounds[1];
+    }
+}
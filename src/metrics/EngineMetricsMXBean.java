@@ -0,0 +1,38 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link Metrics}, registered as
+ * {@code unirec:type=EngineMetrics}. Stage maps are keyed by stage name
+ * ({@code candidates}, {@code filter}, ...).
+ */
+public interface EngineMetricsMXBean {
+
+    long getRequests();
+
+    double getMeanLatencyMicros();
+
+    double getP99LatencyMicros();
+
+    Map<String, Double> getStageMeanMicros();
+
+    Map<String, Double> getStageP99Micros();
+
+    long getExcludedByIelts();
+
+    long getExcludedByBudget();
+
+    long getEmptyResults();
+
+    long getTopUps();
+
+    long getDatasetLoads();
+
+    double getLastDatasetLoadMillis();
+
+    long getDatasetRows();
+
+    /** Zeroes every histogram and counter. */
+    void reset();
+}
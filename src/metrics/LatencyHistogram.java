@@ -0,0 +1,91 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two nanosecond buckets.
+ *
+ * Bucket {@code i} counts values in {@code [2^(i-1), 2^i)} ns (bucket 0 is
+ * exactly 0); the last bucket also takes everything above. Recording is a
+ * leading-zero count plus three {@link LongAdder}-style updates, so it never
+ * locks and does not allocate once the adders have seen their threads.
+ * Quantiles are therefore accurate to within a factor of two, which is
+ * enough to tell where time goes.
+ */
+public final class LatencyHistogram {
+
+    /** Covers up to 2^38 ns (about 4.6 minutes). */
+    static final int BUCKETS = 40;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) counts[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        long v = Math.max(0L, nanos);
+        counts[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(v))].increment();
+        sumNanos.add(v);
+        maxNanos.accumulate(v);
+    }
+
+    public long count() {
+        long n = 0;
+        for (LongAdder c : counts) n += c.sum();
+        return n;
+    }
+
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+    public double meanNanos() {
+        long n = count();
+        return n == 0 ? 0.0 : (double) sumNanos() / n;
+    }
+
+    /** Number of values below {@code 2^bucket} ns (cumulative up to that bucket). */
+    public long countBelowPowerOfTwo(int bucket) {
+        long n = 0;
+        for (int i = 0; i <= Math.min(bucket, BUCKETS - 1); i++) n += counts[i].sum();
+        return n;
+    }
+
+    /**
+     * Upper bound of the bucket holding quantile {@code q} (0..1), capped at
+     * the observed maximum; 0 when empty.
+     */
+    public long quantileNanos(double q) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(i == 0 ? 0 : (1L << i) - 1, maxNanos());
+            }
+        }
+        return maxNanos();
+    }
+
+    /** Not atomic with respect to concurrent {@link #record} calls. */
+    public void reset() {
+        for (LongAdder c : counts) c.reset();
+        sumNanos.reset();
+        maxNanos.reset();
+    }
+}
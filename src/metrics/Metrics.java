@@ -0,0 +1,282 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide counters and latency histograms for the recommendation
+ * engine and dataset loading.
+ *
+ * The engine times each stage with {@link #now()} / {@link #lap}: two
+ * {@link System#nanoTime()} reads per stage and lock-free adds, no
+ * allocation, so recording stays on under full load. Running with
+ * {@code -Dunirec.metrics=false} turns every call into a no-op.
+ *
+ * Read through JMX ({@link #registerMBean()}) or as Prometheus-style text
+ * ({@link #appendText}).
+ */
+public final class Metrics {
+
+    /** Engine stages, in pipeline order. */
+    public enum Stage {
+        /** Locating / merging the (course type, region) partitions. */
+        CANDIDATES,
+        /** IELTS and budget hard filters. */
+        FILTER,
+        /** Tier → Ambitious / Target / Safe assignment. */
+        BUCKETING,
+        /** Fit scoring of bucket runs (only when ordering by fit score). */
+        SCORE,
+        /** Putting bucket lists in rank (or fit-score) order. */
+        SORT,
+        /** PREDICT per-bucket quotas. */
+        QUOTA,
+        /** PREDICT top-up from leftovers when a bucket runs short. */
+        TOP_UP,
+        /** Turning row ids into result objects. */
+        MATERIALIZE;
+
+        final String label = name().toLowerCase(Locale.ROOT);
+    }
+
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("unirec.metrics"));
+
+    private static final LatencyHistogram[] STAGES = new LatencyHistogram[Stage.values().length];
+    private static final LatencyHistogram REQUESTS = new LatencyHistogram();
+    private static final LongAdder EXCLUDED_BY_IELTS = new LongAdder();
+    private static final LongAdder EXCLUDED_BY_BUDGET = new LongAdder();
+    private static final LongAdder EMPTY_RESULTS = new LongAdder();
+    private static final LongAdder TOP_UPS = new LongAdder();
+
+    private static final LatencyHistogram DATASET_LOADS = new LatencyHistogram();
+    private static final LongAdder SNAPSHOT_LOADS = new LongAdder();
+    private static final AtomicLong LAST_LOAD_NANOS = new AtomicLong();
+    private static final AtomicLong DATASET_ROWS = new AtomicLong();
+
+    // Text exposition: every other power of two from ~1 µs to ~17 s
+    private static final int FIRST_LE_BUCKET = 10;
+    private static final int LAST_LE_BUCKET = 34;
+
+    private static final String MBEAN_NAME = "unirec:type=EngineMetrics";
+
+    static {
+        for (int i = 0; i < STAGES.length; i++) STAGES[i] = new LatencyHistogram();
+    }
+
+    private Metrics() {
+    }
+
+    // ---------- Recording ----------
+
+    /** Start timestamp for {@link #lap}; 0 when metrics are off. */
+    public static long now() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /** Records the time since {@code since} against {@code stage} and returns the new timestamp. */
+    public static long lap(Stage stage, long since) {
+        if (!ENABLED) return 0L;
+        long t = System.nanoTime();
+        STAGES[stage.ordinal()].record(t - since);
+        return t;
+    }
+
+    /** One finished recommend call that started at {@code since}. */
+    public static void request(long since) {
+        if (ENABLED) REQUESTS.record(System.nanoTime() - since);
+    }
+
+    /**
+     * Hard-filter outcome of one request. Budget exclusions count every
+     * candidate over budget, whether or not IELTS had already excluded it.
+     */
+    public static void excluded(int byIelts, int byBudget) {
+        if (!ENABLED) return;
+        if (byIelts > 0) EXCLUDED_BY_IELTS.add(byIelts);
+        if (byBudget > 0) EXCLUDED_BY_BUDGET.add(byBudget);
+    }
+
+    public static void emptyResult() {
+        if (ENABLED) EMPTY_RESULTS.increment();
+    }
+
+    public static void topUp() {
+        if (ENABLED) TOP_UPS.increment();
+    }
+
+    public static void datasetLoaded(long nanos, int rows, boolean fromSnapshot) {
+        if (!ENABLED) return;
+        DATASET_LOADS.record(nanos);
+        if (fromSnapshot) SNAPSHOT_LOADS.increment();
+        LAST_LOAD_NANOS.set(nanos);
+        DATASET_ROWS.set(rows);
+    }
+
+    // ---------- Reading ----------
+
+    public static LatencyHistogram stage(Stage stage) {
+        return STAGES[stage.ordinal()];
+    }
+
+    public static LatencyHistogram requests() {
+        return REQUESTS;
+    }
+
+    public static void reset() {
+        for (LatencyHistogram h : STAGES) h.reset();
+        REQUESTS.reset();
+        EXCLUDED_BY_IELTS.reset();
+        EXCLUDED_BY_BUDGET.reset();
+        EMPTY_RESULTS.reset();
+        TOP_UPS.reset();
+        DATASET_LOADS.reset();
+        SNAPSHOT_LOADS.reset();
+    }
+
+    /** Appends every metric in the Prometheus text exposition format. */
+    public static void appendText(StringBuilder sb) {
+        histogram(sb, "unirec_request_seconds", "End-to-end recommend latency.", REQUESTS, null);
+        sb.append("# HELP unirec_stage_seconds Time spent per engine stage.\n");
+        sb.append("# TYPE unirec_stage_seconds histogram\n");
+        for (Stage s : Stage.values()) {
+            histogramBody(sb, "unirec_stage_seconds", STAGES[s.ordinal()], "stage=\"" + s.label + "\"");
+        }
+        counter(sb, "unirec_excluded_ielts_total", "Candidates excluded by the IELTS minimum.", EXCLUDED_BY_IELTS.sum());
+        counter(sb, "unirec_excluded_budget_total", "Candidates over the applicant's budget.", EXCLUDED_BY_BUDGET.sum());
+        counter(sb, "unirec_empty_results_total", "Requests with no university left after filtering.", EMPTY_RESULTS.sum());
+        counter(sb, "unirec_topups_total", "PREDICT requests that needed a top-up.", TOP_UPS.sum());
+
+        histogram(sb, "unirec_dataset_load_seconds", "Dataset load time (CSV or snapshot).", DATASET_LOADS, null);
+        counter(sb, "unirec_dataset_snapshot_loads_total", "Dataset loads served from a snapshot.", SNAPSHOT_LOADS.sum());
+        gauge(sb, "unirec_dataset_rows", "Rows in the most recently loaded dataset.", DATASET_ROWS.get());
+    }
+
+    public static void counter(StringBuilder sb, String name, String help, double value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        sb.append(name).append(' ').append(number(value)).append('\n');
+    }
+
+    public static void gauge(StringBuilder sb, String name, String help, double value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" gauge\n");
+        sb.append(name).append(' ').append(number(value)).append('\n');
+    }
+
+    private static void histogram(StringBuilder sb, String name, String help, LatencyHistogram h, String labels) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" histogram\n");
+        histogramBody(sb, name, h, labels);
+    }
+
+    private static void histogramBody(StringBuilder sb, String name, LatencyHistogram h, String labels) {
+        String prefix = labels == null ? "" : labels + ",";
+        for (int b = FIRST_LE_BUCKET; b <= LAST_LE_BUCKET; b += 2) {
+            sb.append(name).append("_bucket{").append(prefix).append("le=\"")
+                    .append(number((1L << b) / 1e9)).append("\"} ").append(h.countBelowPowerOfTwo(b)).append('\n');
+        }
+        long count = h.count();
+        sb.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(count).append('\n');
+        String suffix = labels == null ? "" : "{" + labels + "}";
+        sb.append(name).append("_sum").append(suffix).append(' ').append(number(h.sumNanos() / 1e9)).append('\n');
+        sb.append(name).append("_count").append(suffix).append(' ').append(count).append('\n');
+    }
+
+    private static String number(double v) {
+        return v == Math.rint(v) && Math.abs(v) < 1e15 ? Long.toString((long) v) : Double.toString(v);
+    }
+
+    // ---------- JMX ----------
+
+    /** Registers the {@link EngineMetricsMXBean} with the platform MBean server; safe to call twice. */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MXBean(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register " + MBEAN_NAME + ": " + e.getMessage());
+        }
+    }
+
+    private static final class MXBean implements EngineMetricsMXBean {
+        @Override
+        public long getRequests() {
+            return REQUESTS.count();
+        }
+
+        @Override
+        public double getMeanLatencyMicros() {
+            return REQUESTS.meanNanos() / 1e3;
+        }
+
+        @Override
+        public double getP99LatencyMicros() {
+            return REQUESTS.quantileNanos(0.99) / 1e3;
+        }
+
+        @Override
+        public Map<String, Double> getStageMeanMicros() {
+            Map<String, Double> m = new LinkedHashMap<>();
+            for (Stage s : Stage.values()) m.put(s.label, STAGES[s.ordinal()].meanNanos() / 1e3);
+            return m;
+        }
+
+        @Override
+        public Map<String, Double> getStageP99Micros() {
+            Map<String, Double> m = new LinkedHashMap<>();
+            for (Stage s : Stage.values()) m.put(s.label, STAGES[s.ordinal()].quantileNanos(0.99) / 1e3);
+            return m;
+        }
+
+        @Override
+        public long getExcludedByIelts() {
+            return EXCLUDED_BY_IELTS.sum();
+        }
+
+        @Override
+        public long getExcludedByBudget() {
+            return EXCLUDED_BY_BUDGET.sum();
+        }
+
+        @Override
+        public long getEmptyResults() {
+            return EMPTY_RESULTS.sum();
+        }
+
+        @Override
+        public long getTopUps() {
+            return TOP_UPS.sum();
+        }
+
+        @Override
+        public long getDatasetLoads() {
+            return DATASET_LOADS.count();
+        }
+
+        @Override
+        public double getLastDatasetLoadMillis() {
+            return LAST_LOAD_NANOS.get() / 1e6;
+        }
+
+        @Override
+        public long getDatasetRows() {
+            return DATASET_ROWS.get();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
@@ -15,7 +15,7 @@ public enum Region {
                 case "USA" -> USA;
                 case "EUROPE" -> EUROPE;
                 case "ASIA" -> ASIA;
-                case "MIDDLE_EAST", "MIDDLE-EAST", "MIDDLE EAST" -> MIDDLE_EAST;
+                case "MIDDLE_EAST", "MIDDLE-EAST", "MIDDLE EAST", "MIDDLEEAST" -> MIDDLE_EAST;
                 case "AUSTRALIA" -> AUSTRALIA;
                 default -> OTHER;
             };
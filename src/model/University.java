@@ -1,44 +1,234 @@
 package model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-public class University {
+/**
+ * Immutable, fully typed university/program record.
+ *
+ * All cells are parsed once when the record is built; the getters are plain
+ * field reads, so the engine can call them in tight loops.
+ */
+public final class University {
 
-    private final Map<String, String> row;
+    private final String name;
+    private final String country;
+    private final String city;
+    private final Region region;
+    private final CourseType courseType;
+    private final String program;
+    private final String degree;
+    private final double minIelts;
+    private final boolean greRequired;
+    private final int globalRank;
+    private final int subjectRank;
+    private final double estimatedTotalUsd;
+    private final double tuitionUsd;
+    private final boolean hasResearchLab;
+    private final boolean onCampus;
+    private final String focus;
 
-    public University(Map<String, String> row) {
-        this.row = row;
+    // Only kept when explicitly requested (debugging); empty otherwise
+    private final Map<String, String> rawRow;
+
+    public University(String name,
+                      String country,
+                      String city,
+                      Region region,
+                      CourseType courseType,
+                      String program,
+                      String degree,
+                      double minIelts,
+                      boolean greRequired,
+                      int globalRank,
+                      int subjectRank,
+                      double estimatedTotalUsd,
+                      boolean hasResearchLab,
+                      boolean onCampus,
+                      Map<String, String> rawRow) {
+        this(name, country, city, region, courseType, program, degree, minIelts, greRequired,
+                globalRank, subjectRank, estimatedTotalUsd, 0.0, hasResearchLab, onCampus, "", rawRow);
     }
 
-    // ---------- Helpers ----------
+    public University(String name,
+                      String country,
+                      String city,
+                      Region region,
+                      CourseType courseType,
+                      String program,
+                      String degree,
+                      double minIelts,
+                      boolean greRequired,
+                      int globalRank,
+                      int subjectRank,
+                      double estimatedTotalUsd,
+                      double tuitionUsd,
+                      boolean hasResearchLab,
+                      boolean onCampus,
+                      String focus,
+                      Map<String, String> rawRow) {
+        this.name = name;
+        this.country = country;
+        this.city = city;
+        this.region = region;
+        this.courseType = courseType;
+        this.program = program;
+        this.degree = degree;
+        this.minIelts = minIelts;
+        this.greRequired = greRequired;
+        this.globalRank = globalRank;
+        this.subjectRank = subjectRank;
+        this.estimatedTotalUsd = estimatedTotalUsd;
+        this.tuitionUsd = tuitionUsd;
+        this.hasResearchLab = hasResearchLab;
+        this.onCampus = onCampus;
+        this.focus = focus == null ? "" : focus;
+        this.rawRow = rawRow == null
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(rawRow));
+    }
 
-    private static String norm(String s) {
-        return s == null ? "" : s.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    /**
+     * Builds a record from a single header → cell map, resolving the column
+     * mapping for this row only. Prefer {@link Columns#resolve(List)} plus
+     * {@link #fromCells} when loading many rows with the same header.
+     */
+    public static University fromRow(Map<String, String> row) {
+        return fromCells(Columns.resolve(new ArrayList<>(row.keySet())),
+                new ArrayList<>(row.values()), row);
     }
 
-    private String getLike(String... patterns) {
-        if (row == null) return "";
-        // try direct keys first
-        for (String p : patterns) {
-            if (row.containsKey(p)) {
-                return row.get(p);
-            }
+    // ---------- Column mapping (resolved once per header) ----------
+
+    /**
+     * Header → field mapping. Each field accepts several spellings of its
+     * column name; exact matches win, then a normalized "contains" match.
+     */
+    public static final class Columns {
+        // Index of each field's column in the header, or -1 when there is none
+        public final int name;
+        public final int country;
+        public final int city;
+        public final int region;
+        public final int courseType;
+        public final int program;
+        public final int degree;
+        public final int minIelts;
+        public final int greRequired;
+        public final int globalRank;
+        public final int subjectRank;
+        public final int totalUsd;
+        public final int tuitionUsd;
+        public final int researchLab;
+        public final int mode;
+        public final int focus;
+        private final List<String> headers;
+
+        private Columns(List<String> headers) {
+            this.headers = List.copyOf(headers);
+            this.name = find(headers, "Name", "University", "Institution");
+            this.country = find(headers, "Country");
+            this.city = find(headers, "City");
+            this.region = find(headers, "Region");
+            this.courseType = find(headers, "CourseType", "Course Type", "Discipline", "Program Type");
+            this.program = find(headers, "Program", "Program Name");
+            this.degree = find(headers, "Degree");
+            this.minIelts = find(headers, "IELTS", "IELTS_Min", "Min IELTS");
+            this.greRequired = find(headers, "GRE_Required", "GRE", "GRE Requirement");
+            this.globalRank = find(headers, "Global_Rank", "Global Rank", "QS_Rank", "Rank", "CourseRank");
+            this.subjectRank = find(headers, "Subject_Rank", "Subject Rank", "SubjectRank");
+            this.totalUsd = find(headers, "Total_USD", "TotalUSD", "Cost_USD", "Total Cost", "Estimated Total (USD)");
+            this.tuitionUsd = find(headers, "Tuition_USD", "TuitionUSD", "Tuition");
+            this.researchLab = find(headers, "Has_Research_Lab", "Research Lab", "Research", "Lab");
+            this.mode = find(headers, "Mode", "Delivery", "OnCampus", "On Campus");
+            this.focus = find(headers, "Security_Focus", "Focus", "Specialization", "Topics");
+        }
+
+        public static Columns resolve(List<String> headers) {
+            return new Columns(headers);
         }
-        // fuzzy match
-        for (String key : row.keySet()) {
-            String nk = norm(key);
+
+        public List<String> getHeaders() {
+            return headers;
+        }
+
+        private static int find(List<String> headers, String... patterns) {
+            // try direct keys first
             for (String p : patterns) {
-                String np = norm(p);
-                if (!np.isEmpty() && nk.contains(np)) {
-                    return row.get(key);
+                int idx = headers.indexOf(p);
+                if (idx >= 0) return idx;
+            }
+            // fuzzy match
+            for (int i = 0; i < headers.size(); i++) {
+                String nk = norm(headers.get(i));
+                for (String p : patterns) {
+                    String np = norm(p);
+                    if (!np.isEmpty() && nk.contains(np)) {
+                        return i;
+                    }
                 }
             }
+            return -1;
         }
-        return "";
     }
 
-    private int parseInt(String s, int fallback) {
+    /**
+     * Parses one CSV row into a typed record.
+     *
+     * @param rawRow optional header → cell view kept for debugging; may be null
+     */
+    public static University fromCells(Columns cols, List<String> cells, Map<String, String> rawRow) {
+        String name = cell(cells, cols.name);
+        String country = cell(cells, cols.country);
+        int globalRank = parseInt(cell(cells, cols.globalRank), 9999);
+
+        String lab = cell(cells, cols.researchLab);
+        boolean hasResearchLab = !lab.isBlank()
+                ? parseBool(lab, true)
+                // Heuristic: top 200 assumed to have decent research infra
+                : globalRank > 0 && globalRank <= 200;
+
+        return new University(
+                name.isBlank() ? "Unknown University" : name,
+                country.isBlank() ? "Unknown" : country,
+                cell(cells, cols.city),
+                parseRegion(cell(cells, cols.region), country),
+                parseCourseType(cell(cells, cols.courseType)),
+                cell(cells, cols.program),
+                cell(cells, cols.degree),
+                parseDouble(cell(cells, cols.minIelts), 6.5),
+                // Many cells probably store "Req"/"Opt"/"Yes"/"No"
+                parseBool(cell(cells, cols.greRequired), false),
+                globalRank,
+                parseInt(cell(cells, cols.subjectRank), 0),
+                parseDouble(cell(cells, cols.totalUsd), 0.0),
+                parseDouble(cell(cells, cols.tuitionUsd), 0.0),
+                hasResearchLab,
+                parseOnCampus(cell(cells, cols.mode)),
+                cell(cells, cols.focus).trim(),
+                rawRow
+        );
+    }
+
+    // ---------- Helpers ----------
+
+    private static String cell(List<String> cells, int idx) {
+        if (idx < 0 || idx >= cells.size()) return "";
+        String v = cells.get(idx);
+        return v == null ? "" : v;
+    }
+
+    private static String norm(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    // Cell parsers are public so loaders filling columns directly apply the same rules
+
+    public static int parseInt(String s, int fallback) {
         try {
             if (s == null || s.isBlank()) return fallback;
             return Integer.parseInt(s.trim());
@@ -47,7 +237,7 @@ public class University {
         }
     }
 
-    private double parseDouble(String s, double fallback) {
+    public static double parseDouble(String s, double fallback) {
         try {
             if (s == null || s.isBlank()) return fallback;
             return Double.parseDouble(s.trim());
@@ -56,7 +246,7 @@ public class University {
         }
     }
 
-    private boolean parseBool(String s, boolean fallback) {
+    public static boolean parseBool(String s, boolean fallback) {
         if (s == null) return fallback;
         String v = s.trim().toLowerCase(Locale.ROOT);
         if (v.isEmpty()) return fallback;
@@ -69,21 +259,8 @@ public class University {
         return fallback;
     }
 
-    // ---------- Public getters used by the engine & CLI ----------
-
-    public String getName() {
-        String v = getLike("Name", "University", "Institution");
-        return v.isBlank() ? "Unknown University" : v;
-    }
-
-    public String getCountry() {
-        String v = getLike("Country");
-        return v.isBlank() ? "Unknown" : v;
-    }
-
-    public Region getRegion() {
+    public static Region parseRegion(String regionCell, String country) {
         // Prefer explicit region column if present
-        String regionCell = getLike("Region");
         if (!regionCell.isBlank()) {
             String r = regionCell.trim().toUpperCase(Locale.ROOT);
             if (r.contains("USA") || r.contains("UNITEDSTATES")) return Region.USA;
@@ -94,7 +271,7 @@ public class University {
         }
 
         // Fallback: infer from country
-        String c = getCountry().toLowerCase(Locale.ROOT);
+        String c = (country.isBlank() ? "Unknown" : country).toLowerCase(Locale.ROOT);
         if (c.contains("united states") || c.equals("usa")) return Region.USA;
 
         if (c.contains("uk") || c.contains("united kingdom") || c.contains("england") ||
@@ -120,8 +297,7 @@ public class University {
         return Region.ASIA;
     }
 
-    public CourseType getCourseType() {
-        String v = getLike("CourseType", "Course Type", "Discipline", "Program Type");
+    public static CourseType parseCourseType(String v) {
         String n = norm(v);
         if (n.contains("mba") || n.contains("business") || n.contains("management")) {
             return CourseType.MBA;
@@ -143,54 +319,98 @@ public class University {
         return CourseType.STEM;
     }
 
+    public static boolean parseOnCampus(String v) {
+        if (!v.isBlank()) {
+            String n = norm(v);
+            if (n.contains("online")) return false;
+            if (n.contains("campus") || n.contains("oncampus")) return true;
+        }
+        return true; // default assumption: on-campus
+    }
+
+    // ---------- Public getters used by the engine & CLI ----------
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    /** City of the main campus; empty when the dataset has no city column. */
+    public String getCity() {
+        return city;
+    }
+
+    public Region getRegion() {
+        return region;
+    }
+
+    public CourseType getCourseType() {
+        return courseType;
+    }
+
+    /** Program title (e.g. "MS in Computer Science"); empty when unknown. */
+    public String getProgram() {
+        return program;
+    }
+
+    /** Degree awarded (e.g. "MS", "MBA"); empty when unknown. */
+    public String getDegree() {
+        return degree;
+    }
+
     /** Minimum IELTS required for the program. */
     public double getMinIelts() {
-        String v = getLike("IELTS", "IELTS_Min", "Min IELTS");
-        return parseDouble(v, 6.5);
+        return minIelts;
     }
 
     /** Whether GRE is required (vs optional). */
     public boolean isGreRequired() {
-        String v = getLike("GRE_Required", "GRE", "GRE Requirement");
-        // Many cells probably store "Req"/"Opt"/"Yes"/"No"
-        return parseBool(v, false);
+        return greRequired;
     }
 
     /** Approximate global or course rank (lower = better). */
     public int getGlobalRank() {
-        String v = getLike("Global_Rank", "Global Rank", "QS_Rank", "Rank", "CourseRank");
-        return parseInt(v, 9999);
+        return globalRank;
+    }
+
+    /** Course/subject-specific rank; 0 when unknown. */
+    public int getSubjectRank() {
+        return subjectRank;
     }
 
     /** Estimated total cost in USD (tuition + living, approximate). */
     public double getEstimatedTotalUsd() {
-        String v = getLike("Total_USD", "TotalUSD", "Cost_USD", "Total Cost", "Estimated Total (USD)");
-        return parseDouble(v, 0.0);
+        return estimatedTotalUsd;
+    }
+
+    /** Tuition alone in USD; 0 when the dataset has no tuition column. */
+    public double getTuitionUsd() {
+        return tuitionUsd;
+    }
+
+    /**
+     * Specialization tags joined by '+' (e.g. "systems+crypto+ai"); empty
+     * when unknown.
+     */
+    public String getFocus() {
+        return focus;
     }
 
     /** Whether this program clearly has a research lab / strong research profile. */
     public boolean hasResearchLab() {
-        String v = getLike("Has_Research_Lab", "Research Lab", "Research", "Lab");
-        if (v != null && !v.isBlank()) {
-            return parseBool(v, true);
-        }
-        // Heuristic: top 200 assumed to have decent research infra
-        return getGlobalRank() > 0 && getGlobalRank() <= 200;
+        return hasResearchLab;
     }
 
     /** Whether the program is primarily on-campus (vs fully online). */
     public boolean isOnCampus() {
-        String v = getLike("Mode", "Delivery", "OnCampus", "On Campus");
-        if (!v.isBlank()) {
-            String n = norm(v);
-            if (n.contains("online")) return false;
-            if (n.contains("campus") || n.contains("oncampus")) return true;
-        }
-        return true; // default assumption: on-campus
+        return onCampus;
     }
 
-    // Raw access if needed for debugging
+    // Raw access if needed for debugging (empty unless the loader kept it)
     public Map<String, String> getRawRow() {
-        return row;
+        return rawRow;
     }
 }
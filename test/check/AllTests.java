@@ -0,0 +1,51 @@
+package check;
+
+import data.CsvReaderTest;
+import data.TableSnapshotTest;
+import data.UniversityTableDeltaTest;
+import logic.RecommendationCacheTest;
+import logic.ViewAllPageTest;
+
+import java.util.Set;
+
+/**
+ * Runs every test suite and exits with status 1 if any check failed.
+ *
+ * Usage: java -cp out:out-test check.AllTests [SUITE...]
+ * (suite names as printed; default all)
+ */
+public final class AllTests {
+
+    private static int totalChecks;
+    private static int totalFailures;
+
+    public static void main(String[] args) {
+        Set<String> only = Set.of(args);
+
+        suite(only, "CsvReader", CsvReaderTest::run);
+        suite(only, "UniversityTableDelta", UniversityTableDeltaTest::run);
+        suite(only, "TableSnapshot", TableSnapshotTest::run);
+        suite(only, "RecommendationCache", RecommendationCacheTest::run);
+        suite(only, "ViewAllPage", ViewAllPageTest::run);
+
+        System.out.println(totalChecks + " checks, " + totalFailures + " failed");
+        if (totalFailures > 0) System.exit(1);
+    }
+
+    private static void suite(Set<String> only, String name, Check.Body body) {
+        if (!only.isEmpty() && !only.contains(name)) return;
+        Check.reset();
+        long start = System.nanoTime();
+        try {
+            body.run();
+        } catch (Throwable t) {
+            Check.fail("threw " + t);
+            t.printStackTrace(System.out);
+        }
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        System.out.println(name + ": " + Check.checks() + " checks, " + Check.failureCount() + " failed (" + ms + " ms)");
+        Check.printFailures(name);
+        totalChecks += Check.checks();
+        totalFailures += Check.failureCount();
+    }
+}
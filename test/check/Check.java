@@ -0,0 +1,92 @@
+package check;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Assertion helpers for the plain-Java test suite (the build has no JUnit).
+ * A failed check is recorded and the suite carries on, so one run lists
+ * every broken check; {@link AllTests} prints them and sets the exit status.
+ */
+public final class Check {
+
+    // Failures printed per suite; the rest are only counted
+    private static final int MAX_REPORTED = 20;
+
+    private static int checks;
+    private static final List<String> failures = new ArrayList<>();
+
+    private Check() {
+    }
+
+    /** A test body; may throw, which fails the suite. */
+    public interface Body {
+        void run() throws Exception;
+    }
+
+    public static void that(boolean ok, String what) {
+        checks++;
+        if (!ok) failures.add(what);
+    }
+
+    public static void equal(Object expected, Object actual, String what) {
+        that(Objects.equals(expected, actual), what + ": expected <" + expected + "> but was <" + actual + ">");
+    }
+
+    /** Doubles compared bit for bit ({@code -0.0 != 0.0}, NaN equals NaN). */
+    public static void same(double expected, double actual, String what) {
+        that(Double.compare(expected, actual) == 0, what + ": expected <" + expected + "> but was <" + actual + ">");
+    }
+
+    /** Checks that {@code body} throws {@code type} (or a subclass). */
+    public static void fails(Class<? extends Throwable> type, Body body, String what) {
+        try {
+            body.run();
+            that(false, what + ": expected " + type.getSimpleName());
+        } catch (Throwable t) {
+            that(type.isInstance(t), what + ": expected " + type.getSimpleName() + " but got " + t);
+        }
+    }
+
+    /** UTF-8 file in the temp directory, deleted on exit. */
+    public static Path tempFile(String suffix, String content) throws IOException {
+        Path p = Files.createTempFile("unirec-test", suffix);
+        p.toFile().deleteOnExit();
+        Files.writeString(p, content, StandardCharsets.UTF_8);
+        return p;
+    }
+
+    // ---------- Reporting (AllTests) ----------
+
+    static int checks() {
+        return checks;
+    }
+
+    static int failureCount() {
+        return failures.size();
+    }
+
+    /** Prints and clears the failures recorded since the last call. */
+    static void printFailures(String suite) {
+        for (int i = 0; i < failures.size() && i < MAX_REPORTED; i++) {
+            System.out.println("  FAIL " + suite + ": " + failures.get(i));
+        }
+        if (failures.size() > MAX_REPORTED) {
+            System.out.println("  ... and " + (failures.size() - MAX_REPORTED) + " more");
+        }
+    }
+
+    static void fail(String what) {
+        failures.add(what);
+    }
+
+    static void reset() {
+        checks = 0;
+        failures.clear();
+    }
+}
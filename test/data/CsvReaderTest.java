@@ -0,0 +1,195 @@
+package data;
+
+import model.University;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static check.Check.equal;
+import static check.Check.same;
+import static check.Check.tempFile;
+import static check.Check.that;
+
+/**
+ * Byte-level CSV parsing: {@link CsvReader}'s numeric and flag fields must
+ * match the String-based rules of {@link University}, and the fast loader
+ * must build the same rows as the one that keeps raw cells.
+ */
+public final class CsvReaderTest {
+
+    private static final String[] NUMBERS = {
+            "", " ", "0", "-0", "+0", "7", " 42 ", "+7", "007", "-123456789", "123456789",
+            "1234567890", "2147483647", "2147483648", "-2147483648", "-2147483649",
+            "1.", ".5", ".", "-", "+", "6.5", "-3.25", "0.1", "0.30000000000000004",
+            "1e1", "1E-2", "5d", "5f", "0x10", "NaN", "Infinity", "-Infinity", "1_000", "١٢",
+            "123456789012345678", "1234567890123456789", "9007199254740993", "9007199254740992",
+            "12345.678901234567890123", "1.7976931348623157e308", "4.9e-324", "\t8\t", "8 8",
+    };
+
+    private static final String[] HEADER = {
+            "Name", "Country", "City", "Region", "CourseType", "Program", "Degree", "IELTS", "GRE_Required",
+            "Global_Rank", "Subject_Rank", "Total_USD", "Tuition_USD", "Has_Research_Lab", "Mode", "Focus"
+    };
+
+    private CsvReaderTest() {
+    }
+
+    public static void run() throws Exception {
+        numbersMatchStringParsing();
+        randomDecimalsMatchParseDouble();
+        flagsAndBlanks();
+        quotedFieldsAndLineEndings();
+        splitKeepsRecordsWhole();
+        fastLoaderMatchesRawLoader();
+    }
+
+    private static void numbersMatchStringParsing() {
+        for (String s : NUMBERS) {
+            for (boolean quoted : new boolean[]{false, true}) {
+                CsvReader r = reader("a," + (quoted ? quote(s) : s) + ",b\n");
+                r.next();
+                String what = (quoted ? "quoted " : "") + "'" + s + "'";
+                equal(University.parseInt(s, -7), r.intField(1, -7), "intField " + what);
+                same(University.parseDouble(s, -7.5), r.doubleField(1, -7.5), "doubleField " + what);
+            }
+        }
+        CsvReader r = reader("1,2\n");
+        r.next();
+        equal(-1, r.intField(5, -1), "intField past the last field");
+        same(-1.5, r.doubleField(-1, -1.5), "doubleField of a missing column");
+    }
+
+    private static void randomDecimalsMatchParseDouble() {
+        Random rnd = new Random(12);
+        StringBuilder csv = new StringBuilder();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder v = new StringBuilder();
+            if (rnd.nextInt(4) == 0) v.append(rnd.nextBoolean() ? '-' : '+');
+            int digits = rnd.nextInt(22);
+            int dot = rnd.nextInt(digits + 2) - 1;
+            for (int d = 0; d < digits; d++) {
+                if (d == dot) v.append('.');
+                v.append((char) ('0' + rnd.nextInt(10)));
+            }
+            if (dot == digits || digits == 0) v.append('.').append(rnd.nextInt(10));
+            values.add(v.toString());
+            csv.append(v).append('\n');
+        }
+        CsvReader r = reader(csv.toString());
+        for (String v : values) {
+            r.next();
+            same(University.parseDouble(v, 0), r.doubleField(0, 0), "doubleField '" + v + "'");
+            equal(University.parseInt(v, 0), r.intField(0, 0), "intField '" + v + "'");
+        }
+    }
+
+    private static void flagsAndBlanks() {
+        CsvReader r = reader(" YES ,yes!,\"Req\",, \t ,é\n");
+        r.next();
+        that(r.fieldEqualsIgnoreCase(0, "yes"), "' YES ' equals yes");
+        that(!r.fieldEqualsIgnoreCase(1, "yes"), "'yes!' is not yes");
+        that(r.fieldEqualsIgnoreCase(2, "req"), "quoted Req equals req");
+        that(r.isBlank(3) && r.isBlank(4), "empty and whitespace fields are blank");
+        that(!r.isBlank(5), "non-ASCII field is not blank");
+        that(r.isBlank(9), "missing field is blank");
+    }
+
+    private static void quotedFieldsAndLineEndings() {
+        CsvReader r = reader("\uFEFFa,\"b, \"\"c\"\"\nd\",e\r\n\r\n\n x ,\"\"\n");
+        that(r.next(), "first record");
+        equal(List.of("a", "b, \"c\"\nd", "e"), List.copyOf(r.fields()), "BOM, quoted comma, escape and line break");
+        that(r.next(), "second record after blank lines");
+        equal(List.of(" x ", ""), List.copyOf(r.fields()), "untrimmed text and empty quoted field");
+        that(!r.next(), "end of input");
+        equal(List.of("a", "b,c", ""), CsvReader.parseLine("a,\"b,c\","), "parseLine with trailing empty field");
+    }
+
+    private static void splitKeepsRecordsWhole() {
+        String csv = edgeCsv(3000, 5);
+        ByteBuffer buf = ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8));
+        List<List<String>> whole = records(new CsvReader(buf, false, true));
+        for (int parts : new int[]{2, 3, 7, 16}) {
+            int[] bounds = CsvReader.split(buf, 0, buf.limit(), parts);
+            List<List<String>> pieces = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                ByteBuffer slice = buf.duplicate().position(bounds[i]).limit(bounds[i + 1]);
+                pieces.addAll(records(new CsvReader(slice, false, i == 0)));
+            }
+            equal(whole.size(), pieces.size(), "record count over " + parts + " ranges");
+            that(whole.equals(pieces), "same records over " + parts + " ranges");
+        }
+    }
+
+    private static void fastLoaderMatchesRawLoader() throws Exception {
+        Path csv = tempFile(".csv", edgeCsv(4000, 9));
+        List<University> fast = new UniversityRepository(csv, false).getAll();
+        List<University> raw = new UniversityRepository(csv, true).getAll();
+        equal(raw.size(), fast.size(), "row count");
+        for (int i = 0; i < Math.min(fast.size(), raw.size()); i++) {
+            equal(describe(raw.get(i)), describe(fast.get(i)), "row " + i);
+        }
+    }
+
+    // ---------- Helpers ----------
+
+    private static CsvReader reader(String csv) {
+        return new CsvReader(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), true);
+    }
+
+    private static String quote(String s) {
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    private static List<List<String>> records(CsvReader r) {
+        List<List<String>> out = new ArrayList<>();
+        while (r.next()) out.add(List.copyOf(r.fields()));
+        return out;
+    }
+
+    private static String describe(University u) {
+        return String.join("|", u.getName(), u.getCountry(), u.getCity(), u.getRegion().name(),
+                u.getCourseType().name(), u.getProgram(), u.getDegree(), Double.toString(u.getMinIelts()),
+                Boolean.toString(u.isGreRequired()), Integer.toString(u.getGlobalRank()),
+                Integer.toString(u.getSubjectRank()), Double.toString(u.getEstimatedTotalUsd()),
+                Double.toString(u.getTuitionUsd()), Boolean.toString(u.hasResearchLab()),
+                Boolean.toString(u.isOnCampus()), u.getFocus());
+    }
+
+    /** Catalog CSV with every kind of awkward cell the loaders must agree on. */
+    private static String edgeCsv(int rows, long seed) {
+        String[][] cells = {
+                {"Uni A", " ", "", "\"Ünï \"\"q\"\"\"", "\"Multi\nline\"", "Uni, Comma"},
+                {"Germany", "USA", "UAE", "", "India", "united states"},
+                {"Köln", "Boston", "", " Pune "},
+                {"", "Middle East", "Europe", "asia", "Unknown"},
+                {"", "CS", "Finance", "MBA", "health", "Arts"},
+                {"Prog", "MS in Network Security", "\"Data, Science\""},
+                {"MS", "PhD", ""},
+                {"6.5", "-0", "1e1", "007", "1.", ".", "7", "NaN", "", "6.25"},
+                {"opt", "n", "Y", "\"\"\"yes\"\"\"", "req", "maybe", ""},
+                {"6.5", "-0", "1.", "5d", "12", "", "2147483648", "+3"},
+                {".5", "0.1", "-0", "5d", "0", "", "45"},
+                {"7", "6.5", "\"\"\"7\"\"\"", "30000.5", "", "1E5", "-1"},
+                {"+7", "-3.25", "007", "20000", ""},
+                {"maybe", "Y", "TRUE", "n", "", "0"},
+                {"hybrid", "Online", "", "on-campus", "ONLINE"},
+                {"", "\" ai , ml \"", "sec", "systems+crypto"},
+        };
+        Random rnd = new Random(seed);
+        StringBuilder sb = new StringBuilder(String.join(",", HEADER)).append('\n');
+        for (int i = 0; i < rows; i++) {
+            for (int c = 0; c < cells.length; c++) {
+                if (c > 0) sb.append(',');
+                sb.append(cells[c][rnd.nextInt(cells[c].length)]);
+            }
+            sb.append(rnd.nextInt(8) == 0 ? "\r\n" : "\n");
+            if (rnd.nextInt(50) == 0) sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
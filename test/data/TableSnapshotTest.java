@@ -0,0 +1,198 @@
+package data;
+
+import model.CourseType;
+import model.Region;
+import model.University;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static check.Check.equal;
+import static check.Check.fails;
+import static check.Check.tempFile;
+import static check.Check.that;
+
+/**
+ * {@link TableSnapshot}: a written table reads back with the same rows,
+ * partition orders and indexes; a damaged, truncated or other-version file
+ * is rejected; freshness follows the CSV's bytes, not its timestamp.
+ */
+public final class TableSnapshotTest {
+
+    private static final String[] TOPICS = {"systems", "crypto", "security", "machine learning", "ai"};
+
+    private TableSnapshotTest() {
+    }
+
+    public static void run() throws Exception {
+        Path csv = tempFile(".csv", "Name,Country\nA,B\n");
+        Random rnd = new Random(11);
+        List<University> rows = catalog(rnd, 2500);
+        UniversityTable table = UniversityTable.of(rows);
+
+        roundTrip(table, csv, "fresh table");
+        UniversityTable changed = table.withChanges(
+                List.of(withRank(rows.get(3), 1), withRank(rows.get(4), 2), university(rnd, "Ünïcode Uni")),
+                List.of(key(rows.get(5)), key(rows.get(6))));
+        roundTrip(changed, csv, "table with a delta");
+        roundTrip(UniversityTable.of(List.of()), csv, "empty table");
+
+        rejectsDamagedFiles(table, csv);
+        freshness(table);
+    }
+
+    /** The read table equals {@code table}'s live rows, renumbered densely. */
+    private static void roundTrip(UniversityTable table, Path csv, String what) throws IOException {
+        Path snap = Files.createTempFile("unirec-test", ".snap");
+        snap.toFile().deleteOnExit();
+        TableSnapshot.write(table, csv, TableSnapshot.checksum(csv), snap);
+        UniversityTable read = TableSnapshot.read(snap);
+
+        equal(table.liveCount(), read.size(), what + ": rows");
+        equal(table.liveCount(), read.liveCount(), what + ": live rows");
+        int[] newId = new int[table.size()];
+        for (int row = 0, j = 0; row < table.size(); row++) {
+            if (!table.isLive(row)) continue;
+            newId[row] = j;
+            if (j < read.size()) equal(describe(table, row), describe(read, j), what + ": row " + j);
+            j++;
+        }
+        for (CourseType ct : CourseType.values()) {
+            for (Region region : Region.values()) {
+                String where = what + " " + ct + "/" + region;
+                int n = table.partitionSize(ct, region);
+                equal(n, read.partitionSize(ct, region), where + ": size");
+                if (n != read.partitionSize(ct, region)) continue;
+                boolean same = true;
+                for (int i = 0; i < n; i++) {
+                    same &= newId[table.partitionAt(ct, region, i)] == read.partitionAt(ct, region, i)
+                            && table.partitionByIeltsAt(ct, region, i) == read.partitionByIeltsAt(ct, region, i)
+                            && table.partitionByCostAt(ct, region, i) == read.partitionByCostAt(ct, region, i);
+                }
+                that(same, where + ": row, IELTS and cost orders");
+                for (String topic : TOPICS) {
+                    equal(table.topicMatches(ct, region, List.of(topic)), read.topicMatches(ct, region, List.of(topic)),
+                            where + ": topic " + topic);
+                }
+            }
+        }
+        for (int row = 0; row < table.size(); row += 17) {
+            if (!table.isLive(row)) continue;
+            String k = UniversityTable.rowKey(table.name(row), table.program(row), table.degree(row));
+            int expected = table.findRow(k);
+            equal(newId[expected], read.findRow(k), what + ": findRow " + k);
+        }
+    }
+
+    private static void rejectsDamagedFiles(UniversityTable table, Path csv) throws IOException {
+        Path snap = Files.createTempFile("unirec-test", ".snap");
+        snap.toFile().deleteOnExit();
+        TableSnapshot.write(table, csv, TableSnapshot.checksum(csv), snap);
+        byte[] good = Files.readAllBytes(snap);
+        that(TableSnapshot.isFresh(snap, csv), "written snapshot is fresh");
+
+        for (int offset : new int[]{52, 53, good.length / 2, good.length - 1}) {
+            byte[] bad = good.clone();
+            bad[offset] ^= 0x10;
+            Files.write(snap, bad);
+            fails(IOException.class, () -> TableSnapshot.read(snap), "payload byte " + offset + " flipped");
+        }
+
+        byte[] otherVersion = good.clone();
+        otherVersion[7] ^= 0x01;   // low byte of the format version int at offset 4
+        Files.write(snap, otherVersion);
+        fails(IOException.class, () -> TableSnapshot.read(snap), "other format version");
+        that(!TableSnapshot.isFresh(snap, csv), "other format version is not fresh");
+
+        byte[] otherMagic = good.clone();
+        otherMagic[0] = 'X';
+        Files.write(snap, otherMagic);
+        fails(IOException.class, () -> TableSnapshot.read(snap), "bad magic");
+
+        for (int length : new int[]{0, 10, 51, good.length - 1}) {
+            Files.write(snap, Arrays.copyOf(good, length));
+            fails(IOException.class, () -> TableSnapshot.read(snap), "truncated to " + length + " bytes");
+        }
+
+        byte[] longer = Arrays.copyOf(good, good.length + 4);
+        Files.write(snap, longer);
+        fails(IOException.class, () -> TableSnapshot.read(snap), "trailing bytes");
+
+        Files.write(snap, good);
+        equal(table.liveCount(), TableSnapshot.read(snap).liveCount(), "restored file reads again");
+    }
+
+    private static void freshness(UniversityTable table) throws IOException {
+        Path csv = tempFile(".csv", "Name,Country\nUni A,Germany\nUni B,India\n");
+        Path snap = TableSnapshot.siblingOf(csv);
+        snap.toFile().deleteOnExit();
+        that(!TableSnapshot.isFresh(snap, csv), "no snapshot yet");
+
+        TableSnapshot.write(table, csv, TableSnapshot.checksum(csv), snap);
+        that(TableSnapshot.isFresh(snap, csv), "fresh after writing");
+
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 60_000));
+        that(TableSnapshot.isFresh(snap, csv), "still fresh after a touch");
+
+        FileTime mtime = Files.getLastModifiedTime(csv);
+        Files.writeString(csv, "Name,Country\nUni A,Germany\nUni C,India\n");
+        Files.setLastModifiedTime(csv, mtime);
+        that(!TableSnapshot.isFresh(snap, csv), "stale after an edit that keeps size and timestamp");
+
+        TableSnapshot.write(table, csv, TableSnapshot.checksum(csv), snap);
+        Files.writeString(csv, Files.readString(csv) + "Uni D,Japan\n");
+        that(!TableSnapshot.isFresh(snap, csv), "stale after an append");
+
+        Files.delete(csv);
+        that(!TableSnapshot.isFresh(snap, csv), "stale once the CSV is gone");
+        Files.deleteIfExists(snap);
+    }
+
+    // ---------- Helpers ----------
+
+    private static List<University> catalog(Random rnd, int rows) {
+        List<University> out = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) out.add(university(rnd, "Uni " + rnd.nextInt(rows)));
+        return out;
+    }
+
+    private static University university(Random rnd, String name) {
+        String[] programs = {"MS in Network Security", "MS in Computer Science", "MBA", "MS in AI", ""};
+        String[] focus = {"systems+crypto", "ai+machine learning", "", "security"};
+        Region[] regions = Region.values();
+        CourseType[] types = CourseType.values();
+        return new University(name, rnd.nextBoolean() ? "Germany" : "Côte d'Ivoire", "City " + rnd.nextInt(40),
+                regions[rnd.nextInt(regions.length)], types[rnd.nextInt(types.length)],
+                programs[rnd.nextInt(programs.length)], rnd.nextBoolean() ? "MS" : "PhD",
+                rnd.nextInt(5) == 0 ? 0.0 : 5 + rnd.nextInt(9) * 0.5 + (rnd.nextInt(4) == 0 ? 0.3 : 0),
+                rnd.nextBoolean(), rnd.nextInt(800), rnd.nextInt(80),
+                rnd.nextInt(6) == 0 ? 0 : 8_000 + rnd.nextInt(90_000) + 0.25,
+                rnd.nextInt(50_000) / 3.0,
+                rnd.nextBoolean(), rnd.nextBoolean(), focus[rnd.nextInt(focus.length)], null);
+    }
+
+    private static University withRank(University u, int rank) {
+        return new University(u.getName(), u.getCountry(), u.getCity(), u.getRegion(), u.getCourseType(),
+                u.getProgram(), u.getDegree(), u.getMinIelts(), u.isGreRequired(), rank, u.getSubjectRank(),
+                u.getEstimatedTotalUsd(), u.getTuitionUsd(), u.hasResearchLab(), u.isOnCampus(), u.getFocus(), null);
+    }
+
+    private static String key(University u) {
+        return UniversityTable.rowKey(u.getName(), u.getProgram(), u.getDegree());
+    }
+
+    private static String describe(UniversityTable t, int row) {
+        return String.join("|", t.name(row), t.country(row), t.city(row), t.region(row).name(),
+                t.courseType(row).name(), t.program(row), t.degree(row), Double.toString(t.ieltsMin(row)),
+                Boolean.toString(t.isGreRequired(row)), Integer.toString(t.globalRank(row)),
+                Integer.toString(t.subjectRank(row)), Double.toString(t.totalUsd(row)),
+                Double.toString(t.tuitionUsd(row)), Boolean.toString(t.hasResearchLab(row)),
+                Boolean.toString(t.isOnCampus(row)), t.focus(row));
+    }
+}
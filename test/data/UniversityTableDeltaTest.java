@@ -0,0 +1,238 @@
+package data;
+
+import model.CourseType;
+import model.Region;
+import model.University;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static check.Check.equal;
+import static check.Check.that;
+
+/**
+ * {@link UniversityTable#withChanges}: upserts and deletes, applied in
+ * chains and as forks of one table, must leave every derived table equal
+ * to a table built from scratch over the same live rows, and must not
+ * disturb the tables they were derived from.
+ */
+public final class UniversityTableDeltaTest {
+
+    private static final String[] TOPICS = {"systems", "crypto", "security", "network security", "zzznew", "ai"};
+
+    private UniversityTableDeltaTest() {
+    }
+
+    public static void run() {
+        Random rnd = new Random(10);
+        List<University> baseRows = catalog(rnd, 3000);
+        UniversityTable base = UniversityTable.of(baseRows);
+        matchesFreshBuild(base, baseRows, rnd, "base");
+
+        for (int fork = 0; fork < 3; fork++) {
+            UniversityTable t = base;
+            List<University> live = baseRows;
+            for (int step = 0; step < 10; step++) {
+                List<University> upserts = new ArrayList<>();
+                List<String> deletes = new ArrayList<>();
+                randomDelta(rnd, live, upserts, deletes);
+                t = t.withChanges(upserts, deletes);
+                live = applied(live, upserts, deletes);
+                matchesFreshBuild(t, live, rnd, "fork " + fork + " step " + step);
+            }
+        }
+        matchesFreshBuild(base, baseRows, rnd, "base after forks");
+
+        // Two children of one mid-chain table: the first appends in place, the second copies
+        UniversityTable mid = base.withChanges(List.of(changed(rnd, baseRows.get(1), true)), List.of());
+        List<University> midRows = new ArrayList<>(baseRows);
+        midRows.add(mid.get(mid.size() - 1));
+        for (int child = 0; child < 2; child++) {
+            List<University> upserts = List.of(changed(rnd, baseRows.get(2 + child), false));
+            List<String> deletes = List.of(key(baseRows.get(10 + child)));
+            UniversityTable t = mid.withChanges(upserts, deletes);
+            matchesFreshBuild(t, applied(midRows, upserts, deletes), rnd, "child " + child + " of mid");
+        }
+        matchesFreshBuild(mid, midRows, rnd, "mid after its children");
+
+        duplicateKeys();
+        repeatedKeyInOneDelta();
+    }
+
+    /** A key held by two source rows: deleting it removes the later row and exposes the earlier. */
+    private static void duplicateKeys() {
+        University a = row("Dup U", "MS in AI", CourseType.STEM, Region.USA, 10);
+        University b = row("Dup U", "MS in AI", CourseType.STEM, Region.USA, 20);
+        University c = row("Dup U", "MS in AI", CourseType.STEM, Region.EUROPE, 30);
+        University other = row("Other U", "MS in AI", CourseType.STEM, Region.USA, 5);
+        UniversityTable t = UniversityTable.of(List.of(a, b, other, c));
+        String k = key(a);
+        t.findRow(k); // builds the key index, so the deltas below patch it
+        equal(3, t.findRow(k), "last of three duplicates");
+
+        UniversityTable t1 = t.withChanges(List.of(), List.of(k));
+        equal(1, t1.findRow(k), "after deleting the last, the one before it");
+        UniversityTable t2 = t1.withChanges(List.of(), List.of(k));
+        equal(0, t2.findRow(k), "then the first");
+        UniversityTable t3 = t2.withChanges(List.of(), List.of(k));
+        equal(-1, t3.findRow(k), "then none");
+        equal(1, t3.liveCount(), "one row left");
+        equal(3, t.findRow(k), "original table unchanged");
+    }
+
+    private static void repeatedKeyInOneDelta() {
+        University a = row("Rep U", "MBA", CourseType.MBA, Region.ASIA, 50);
+        UniversityTable t = UniversityTable.of(List.of(a));
+        UniversityTable next = t.withChanges(List.of(
+                row("Rep U", "MBA", CourseType.MBA, Region.ASIA, 40),
+                row("Rep U", "MBA", CourseType.MBA, Region.EUROPE, 30)), List.of());
+        equal(1, next.liveCount(), "one live row for a key upserted twice");
+        int found = next.findRow(key(a));
+        that(found >= 0 && next.globalRank(found) == 30, "last upsert wins");
+        equal(0, next.partitionSize(CourseType.MBA, Region.ASIA), "replaced row left its partition");
+    }
+
+    // ---------- Comparison ----------
+
+    private static void matchesFreshBuild(UniversityTable t, List<University> live, Random rnd, String what) {
+        UniversityTable fresh = UniversityTable.of(live);
+        equal(fresh.liveCount(), t.liveCount(), what + ": live rows");
+        List<University> view = t.asList();
+        equal(live.size(), view.size(), what + ": asList size");
+        for (int i = 0; i < Math.min(live.size(), view.size()); i += 37) {
+            equal(key(live.get(i)), key(view.get(i)), what + ": asList " + i);
+        }
+        for (CourseType ct : CourseType.values()) {
+            for (Region region : Region.values()) {
+                partitionMatches(t, fresh, ct, region, rnd, what + " " + ct + "/" + region);
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            String k = key(live.get(rnd.nextInt(live.size())));
+            int row = t.findRow(k);
+            int expected = fresh.findRow(k);
+            that(row >= 0 && describe(t, row).equals(describe(fresh, expected)), what + ": findRow " + k);
+        }
+        equal(-1, t.findRow(UniversityTable.rowKey("No such", "program", "MS")), what + ": unknown key");
+    }
+
+    private static void partitionMatches(UniversityTable t, UniversityTable fresh, CourseType ct, Region region,
+                                         Random rnd, String what) {
+        int n = t.partitionSize(ct, region);
+        equal(fresh.partitionSize(ct, region), n, what + ": size");
+        if (n != fresh.partitionSize(ct, region)) return;
+        for (int i = 0; i < n; i++) {
+            if (!describe(t, t.partitionAt(ct, region, i)).equals(describe(fresh, fresh.partitionAt(ct, region, i)))
+                    || t.partitionByIeltsAt(ct, region, i) != fresh.partitionByIeltsAt(ct, region, i)
+                    || t.partitionByCostAt(ct, region, i) != fresh.partitionByCostAt(ct, region, i)) {
+                that(false, what + ": offset " + i);
+                return;
+            }
+        }
+        for (String topic : TOPICS) {
+            BitSet hits = t.topicMatches(ct, region, List.of(topic));
+            BitSet expected = fresh.topicMatches(ct, region, List.of(topic));
+            equal(expected, hits, what + ": topic " + topic);
+            double ielts = 5 + rnd.nextInt(9) * 0.5;
+            double budget = 5000 + rnd.nextInt(120_000);
+            equal(fresh.countIeltsAtMost(ct, region, ielts, expected), t.countIeltsAtMost(ct, region, ielts, hits),
+                    what + ": IELTS count within " + topic);
+            equal(fresh.countCostAtMost(ct, region, budget, expected), t.countCostAtMost(ct, region, budget, hits),
+                    what + ": cost count within " + topic);
+        }
+    }
+
+    // ---------- Data ----------
+
+    private static List<University> catalog(Random rnd, int rows) {
+        List<University> out = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String name = "Uni " + rnd.nextInt(rows / 2);   // name + program + degree repeats now and then
+            out.add(changed(rnd, row(name, program(rnd), CourseType.STEM, Region.USA, 0), false));
+        }
+        return out;
+    }
+
+    private static void randomDelta(Random rnd, List<University> live, List<University> upserts, List<String> deletes) {
+        int n = 1 + rnd.nextInt(40);
+        for (int i = 0; i < n; i++) {
+            University u = live.get(rnd.nextInt(live.size()));
+            switch (rnd.nextInt(4)) {
+                case 0 -> deletes.add(key(u));
+                case 1 -> upserts.add(changed(rnd, u, true));
+                default -> upserts.add(changed(rnd, u, false));
+            }
+        }
+        if (!upserts.isEmpty() && rnd.nextBoolean()) upserts.add(changed(rnd, upserts.get(0), false));
+        deletes.add(UniversityTable.rowKey("Unknown", "key", Integer.toString(n)));
+    }
+
+    /** The same change on a list: deletes, then each upsert replaces the last row with its key. */
+    private static List<University> applied(List<University> live, List<University> upserts, List<String> deletes) {
+        List<University> out = new ArrayList<>(live);
+        for (String k : deletes) removeLast(out, k);
+        for (University u : upserts) {
+            removeLast(out, key(u));
+            out.add(u);
+        }
+        return out;
+    }
+
+    private static void removeLast(List<University> rows, String k) {
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            if (key(rows.get(i)).equals(k)) {
+                rows.remove(i);
+                return;
+            }
+        }
+    }
+
+    /** {@code u} with new values; a new name (and city) when {@code fresh}, so a new key. */
+    private static University changed(Random rnd, University u, boolean fresh) {
+        Region[] regions = Region.values();
+        CourseType[] types = CourseType.values();
+        return new University(
+                fresh ? "New Uni " + rnd.nextInt(1_000_000) : u.getName(),
+                u.getCountry(),
+                fresh ? "City " + rnd.nextInt(50) : u.getCity(),
+                rnd.nextInt(3) == 0 ? regions[rnd.nextInt(regions.length)] : u.getRegion(),
+                rnd.nextInt(4) == 0 ? types[rnd.nextInt(types.length)] : u.getCourseType(),
+                u.getProgram(),
+                u.getDegree(),
+                5 + rnd.nextInt(8) * 0.5,
+                rnd.nextBoolean(),
+                rnd.nextInt(600),
+                rnd.nextInt(60),
+                10_000 + rnd.nextInt(90_000),
+                5_000 + rnd.nextInt(50_000),
+                rnd.nextBoolean(),
+                rnd.nextBoolean(),
+                rnd.nextInt(3) == 0 ? "zzznew+systems" : u.getFocus(),
+                null);
+    }
+
+    private static University row(String name, String program, CourseType type, Region region, int rank) {
+        return new University(name, "Country", "City", region, type, program, "MS", 6.5, false, rank, 0,
+                30_000, 20_000, false, true, "systems+crypto", null);
+    }
+
+    private static String program(Random rnd) {
+        String[] programs = {"MS in Network Security", "MS in Computer Science", "MBA", "MS in AI", "MPH"};
+        return programs[rnd.nextInt(programs.length)];
+    }
+
+    private static String key(University u) {
+        return UniversityTable.rowKey(u.getName(), u.getProgram(), u.getDegree());
+    }
+
+    private static String describe(UniversityTable t, int row) {
+        return String.join("|", t.name(row), t.country(row), t.city(row), t.region(row).name(),
+                t.courseType(row).name(), t.program(row), t.degree(row), Double.toString(t.ieltsMin(row)),
+                Boolean.toString(t.isGreRequired(row)), Integer.toString(t.globalRank(row)),
+                Integer.toString(t.subjectRank(row)), Double.toString(t.totalUsd(row)),
+                Double.toString(t.tuitionUsd(row)), Boolean.toString(t.hasResearchLab(row)),
+                Boolean.toString(t.isOnCampus(row)), t.focus(row));
+    }
+}
@@ -0,0 +1,152 @@
+package logic;
+
+import data.UniversityTable;
+import logic.RecommendationEngine.Mode;
+import logic.RecommendationEngine.Result;
+import logic.RecommendationEngine.ScoredUniversity;
+import model.CourseType;
+import model.Region;
+import model.University;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static check.Check.equal;
+import static check.Check.that;
+
+/**
+ * {@link RecommendationCache}: IELTS scores share an entry exactly when the
+ * table's program minimums cannot tell them apart, and a cached result is
+ * always the one the engine would have returned.
+ */
+public final class RecommendationCacheTest {
+
+    private static final double[] HALF_BANDS = {0.0, 5.5, 6.0, 6.5, 7.0, 7.5, 8.0};
+
+    private RecommendationCacheTest() {
+    }
+
+    public static void run() {
+        Random rnd = new Random(14);
+        UniversityTable halfBands = UniversityTable.of(catalog(rnd, 1500, HALF_BANDS));
+        UniversityTable offGrid = UniversityTable.of(catalog(rnd, 1500, new double[]{0.0, 6.0, 6.5, 6.8, 7.0, 7.25}));
+
+        sharesWithinHalfBand(halfBands);
+        separatesOffGridScores(offGrid);
+        newTableVersionChangesKeying(halfBands, rnd);
+        matchesEngine(halfBands, rnd, "half-band table");
+        matchesEngine(offGrid, rnd, "off-grid table");
+    }
+
+    private static void sharesWithinHalfBand(UniversityTable table) {
+        RecommendationCache cache = cache();
+        cached(cache, table, profile(7.0), "7.0");
+        cached(cache, table, profile(7.4), "7.4");
+        cached(cache, table, profile(7.0 - 1e-10), "just under 7.0");
+        hitsAndMisses(cache, 2, 1, "7.0, 7.4 and 7.0 - 1e-10 share the 7.0 band");
+
+        cached(cache, table, profile(6.99), "6.99");
+        cached(cache, table, profile(7.5), "7.5");
+        hitsAndMisses(cache, 2, 3, "6.99 and 7.5 are other bands");
+        equal(3, cache.size(), "one entry per band");
+    }
+
+    private static void separatesOffGridScores(UniversityTable table) {
+        RecommendationCache cache = cache();
+        cached(cache, table, profile(6.7), "6.7");
+        cached(cache, table, profile(6.9), "6.9");
+        cached(cache, table, profile(7.0), "7.0");
+        cached(cache, table, profile(7.4), "7.4");
+        hitsAndMisses(cache, 0, 4, "a 6.8 minimum keys on the exact score");
+        cached(cache, table, profile(6.9), "6.9 again");
+        hitsAndMisses(cache, 1, 4, "the exact score still hits");
+    }
+
+    /** A delta that adds an off-grid minimum drops the entries and stops sharing bands. */
+    private static void newTableVersionChangesKeying(UniversityTable table, Random rnd) {
+        RecommendationCache cache = cache();
+        cached(cache, table, profile(7.0), "7.0 before");
+        cached(cache, table, profile(7.4), "7.4 before");
+        hitsAndMisses(cache, 1, 1, "shared before the delta");
+
+        UniversityTable next = table.withChanges(
+                List.of(university(rnd, "Off Grid U", CourseType.STEM, Region.USA, 7.3)), List.of());
+        cached(cache, next, profile(7.0), "7.0 after");
+        cached(cache, next, profile(7.4), "7.4 after");
+        hitsAndMisses(cache, 1, 3, "not shared after the delta");
+        equal(1L, cache.stats().invalidations, "invalidations");
+    }
+
+    private static void matchesEngine(UniversityTable table, Random rnd, String what) {
+        RecommendationCache cache = cache();
+        CourseType[] types = {CourseType.STEM, CourseType.MBA};
+        for (int i = 0; i < 600; i++) {
+            double ielts = rnd.nextInt(41) / 10.0 + 5.0;
+            EligibilityProfile p = new EligibilityProfile(5 + rnd.nextInt(6), ielts, false, 0, 0, rnd.nextInt(3),
+                    rnd.nextInt(3), rnd.nextBoolean() ? 0 : 30_000 + rnd.nextInt(4) * 10_000,
+                    types[rnd.nextInt(types.length)], rnd.nextBoolean() ? Set.of(Region.USA)
+                    : Set.of(Region.USA, Region.EUROPE));
+            Mode mode = rnd.nextInt(3) == 0 ? Mode.VIEW_ALL : Mode.PREDICT;
+            int count = rnd.nextInt(4) * 5;
+            Result direct = RecommendationEngine.recommend(table, p, mode, count);
+            equal(describe(direct), describe(cache.recommend(table, p, mode, count)),
+                    what + ": IELTS " + ielts + " " + mode + " " + count);
+        }
+        that(cache.stats().hits > 0, what + ": some requests hit");
+    }
+
+    // ---------- Helpers ----------
+
+    private static RecommendationCache cache() {
+        return new RecommendationCache(1000, 1, TimeUnit.HOURS);
+    }
+
+    private static void cached(RecommendationCache cache, UniversityTable table, EligibilityProfile p, String what) {
+        Result direct = RecommendationEngine.recommend(table, p, Mode.PREDICT, 10);
+        equal(describe(direct), describe(cache.recommend(table, p, Mode.PREDICT, 10)), "IELTS " + what);
+    }
+
+    private static void hitsAndMisses(RecommendationCache cache, long hits, long misses, String what) {
+        RecommendationCache.Stats s = cache.stats();
+        equal(hits + "/" + misses, s.hits + "/" + s.misses, what + ": hits/misses");
+    }
+
+    private static EligibilityProfile profile(double ielts) {
+        return new EligibilityProfile(8.0, ielts, false, 0, 0, 1, 1, 0, CourseType.STEM, Set.of(Region.USA));
+    }
+
+    private static String describe(Result r) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(r.mode).append(' ').append(r.profileScore).append(' ').append(r.tier).append(' ')
+                .append(r.totalUniversities).append(' ').append(r.excludedByIelts);
+        for (List<ScoredUniversity> bucket : List.of(r.ambitious, r.target, r.safe)) {
+            sb.append(" [");
+            for (ScoredUniversity s : bucket) {
+                sb.append(s.uni.getName()).append('/').append(s.uni.getProgram()).append('/')
+                        .append(s.bucket).append('/').append(s.fitScore).append(';');
+            }
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    private static List<University> catalog(Random rnd, int rows, double[] minimums) {
+        List<University> out = new ArrayList<>(rows);
+        CourseType[] types = {CourseType.STEM, CourseType.MBA};
+        Region[] regions = {Region.USA, Region.EUROPE};
+        for (int i = 0; i < rows; i++) {
+            out.add(university(rnd, "Uni " + i, types[rnd.nextInt(types.length)], regions[rnd.nextInt(regions.length)],
+                    minimums[rnd.nextInt(minimums.length)]));
+        }
+        return out;
+    }
+
+    private static University university(Random rnd, String name, CourseType type, Region region, double ielts) {
+        return new University(name, "Country", "City", region, type, "MS in Computer Science", "MS", ielts,
+                rnd.nextBoolean(), 1 + rnd.nextInt(700), rnd.nextInt(50), 20_000 + rnd.nextInt(60_000),
+                10_000 + rnd.nextInt(30_000), rnd.nextBoolean(), rnd.nextBoolean(), "systems", null);
+    }
+}
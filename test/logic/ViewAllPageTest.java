@@ -0,0 +1,170 @@
+package logic;
+
+import data.UniversityTable;
+import logic.RecommendationEngine.Mode;
+import logic.RecommendationEngine.Page;
+import logic.RecommendationEngine.Result;
+import logic.RecommendationEngine.ScoredUniversity;
+import model.CourseType;
+import model.Region;
+import model.University;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static check.Check.equal;
+import static check.Check.fails;
+import static check.Check.that;
+
+/**
+ * {@link RecommendationEngine#viewAllPage}: pages chained by their cursors
+ * list exactly the streamed VIEW_ALL order, the last page has no cursor,
+ * and bad page sizes and malformed or stale cursors are rejected.
+ */
+public final class ViewAllPageTest {
+
+    private ViewAllPageTest() {
+    }
+
+    public static void run() {
+        Random rnd = new Random(18);
+        UniversityTable table = UniversityTable.of(catalog(rnd, 2000));
+        List<EligibilityProfile> profiles = List.of(
+                profile(7.0, 0, Set.of(Region.USA), List.of()),
+                profile(6.5, 40_000, Set.of(Region.USA, Region.EUROPE, Region.ASIA), List.of()),
+                profile(9.0, 0, Set.of(Region.values()), List.of("crypto")),
+                profile(8.0, 25_000, Set.of(Region.EUROPE), List.of("ai", "systems")),
+                profile(4.0, 0, Set.of(Region.USA), List.of()));
+
+        for (EligibilityProfile p : profiles) {
+            List<String> streamed = streamed(table, p);
+            for (int pageSize : new int[]{1, 3, 7, 50, 1000}) {
+                pagesMatchStream(table, p, pageSize, streamed);
+            }
+            if (!streamed.isEmpty()) pagesMatchStream(table, p, streamed.size(), streamed);
+            matchesViewAll(table, p, streamed);
+        }
+        that(!streamed(table, profiles.get(0)).isEmpty(), "the first profile has matches");
+        that(streamed(table, profiles.get(4)).isEmpty(), "the last profile has none");
+
+        badPageSizes(table, profiles.get(0));
+        badCursors(table, profiles.get(0), rnd);
+    }
+
+    private static void pagesMatchStream(UniversityTable table, EligibilityProfile p, int pageSize,
+                                         List<String> streamed) {
+        String what = "pageSize " + pageSize + ", " + streamed.size() + " matches";
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Page page = RecommendationEngine.viewAllPage(table, p, cursor, pageSize);
+            if (page.nextCursor != null) {
+                equal(pageSize, page.items.size(), what + ": page " + pages + " is full");
+                // The same cursor gives the same page
+                equal(describe(page.items), describe(RecommendationEngine.viewAllPage(table, p, cursor,
+                        pageSize).items), what + ": page " + pages + " again");
+            }
+            paged.addAll(describe(page.items));
+            cursor = page.nextCursor;
+            pages++;
+        } while (cursor != null && pages <= streamed.size());
+        equal(null, cursor, what + ": last page has no cursor");
+        equal(Math.max(1, (streamed.size() + pageSize - 1) / pageSize), pages, what + ": pages");
+        that(streamed.equals(paged), what + ": pages list the stream in order");
+    }
+
+    /** Page counts and the streamed order agree with the whole VIEW_ALL result. */
+    private static void matchesViewAll(UniversityTable table, EligibilityProfile p, List<String> streamed) {
+        Result all = RecommendationEngine.recommend(table, p, Mode.VIEW_ALL, 0);
+        Page first = RecommendationEngine.viewAllPage(table, p, null, 5);
+        equal(all.totalUniversities, first.totalUniversities, "total universities");
+        equal(all.excludedByIelts, first.excludedByIelts, "excluded by IELTS");
+        equal(all.profileScore, first.profileScore, "profile score");
+        equal(all.tier, first.tier, "tier");
+        List<String> buckets = new ArrayList<>(describe(all.ambitious));
+        buckets.addAll(describe(all.target));
+        buckets.addAll(describe(all.safe));
+        that(buckets.equals(streamed), "stream is Ambitious, Target, then Safe in rank order");
+    }
+
+    private static void badPageSizes(UniversityTable table, EligibilityProfile p) {
+        for (int size : new int[]{0, -1, Integer.MIN_VALUE}) {
+            fails(IllegalArgumentException.class, () -> RecommendationEngine.viewAllPage(table, p, null, size),
+                    "pageSize " + size);
+        }
+    }
+
+    private static void badCursors(UniversityTable table, EligibilityProfile p, Random rnd) {
+        String valid = RecommendationEngine.viewAllPage(table, p, null, 2).nextCursor;
+        that(valid != null, "first page of two has a cursor");
+        String version = Long.toString(table.version());
+        List<String> malformed = List.of("", "%%%", "not base64!", encode("abc"), encode(":5"),
+                encode(version + ":"), encode(version + ":x"), encode(version + ":-1"),
+                encode(version + ":" + table.size()), encode(version + ":99999999999"), valid + "A");
+        for (String cursor : malformed) {
+            fails(IllegalArgumentException.class, () -> RecommendationEngine.viewAllPage(table, p, cursor, 10),
+                    "cursor '" + cursor + "'");
+        }
+
+        UniversityTable next = table.withChanges(List.of(university(rnd, "Late U", CourseType.STEM, Region.USA)),
+                List.of());
+        fails(IllegalArgumentException.class, () -> RecommendationEngine.viewAllPage(next, p, valid, 10),
+                "cursor from an older table version");
+        String fromNext = RecommendationEngine.viewAllPage(next, p, null, 2).nextCursor;
+        fails(IllegalArgumentException.class, () -> RecommendationEngine.viewAllPage(table, p, fromNext, 10),
+                "cursor from a newer table version");
+        equal(2, RecommendationEngine.viewAllPage(table, p, valid, 2).items.size(), "old table still pages");
+    }
+
+    // ---------- Helpers ----------
+
+    private static List<String> streamed(UniversityTable table, EligibilityProfile p) {
+        List<ScoredUniversity> out = new ArrayList<>();
+        Iterator<ScoredUniversity> it = RecommendationEngine.viewAllIterator(table, p);
+        while (it.hasNext()) out.add(it.next());
+        return describe(out);
+    }
+
+    private static List<String> describe(List<ScoredUniversity> items) {
+        List<String> out = new ArrayList<>(items.size());
+        for (ScoredUniversity s : items) {
+            out.add(s.uni.getName() + "/" + s.uni.getProgram() + "/" + s.uni.getRegion() + "/" + s.bucket);
+        }
+        return out;
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static EligibilityProfile profile(double ielts, double budget, Set<Region> regions, List<String> topics) {
+        return new EligibilityProfile(8.0, ielts, false, 0, 0, 1, 1, budget, CourseType.STEM, regions,
+                List.of(), topics);
+    }
+
+    private static List<University> catalog(Random rnd, int rows) {
+        List<University> out = new ArrayList<>(rows);
+        CourseType[] types = {CourseType.STEM, CourseType.MBA};
+        Region[] regions = {Region.USA, Region.EUROPE, Region.ASIA};
+        for (int i = 0; i < rows; i++) {
+            // Few distinct ranks, so (rank, name) ties are common
+            out.add(university(rnd, "Uni " + rnd.nextInt(rows), types[rnd.nextInt(types.length)],
+                    regions[rnd.nextInt(regions.length)]));
+        }
+        return out;
+    }
+
+    private static University university(Random rnd, String name, CourseType type, Region region) {
+        String[] focus = {"systems+crypto", "ai", "security", ""};
+        return new University(name, "Country", "City", region, type, "MS in Computer Science", "MS",
+                5.5 + rnd.nextInt(6) * 0.5, rnd.nextBoolean(), 1 + rnd.nextInt(300), rnd.nextInt(50),
+                15_000 + rnd.nextInt(50_000), 10_000 + rnd.nextInt(30_000), rnd.nextBoolean(), rnd.nextBoolean(),
+                focus[rnd.nextInt(focus.length)], null);
+    }
+}
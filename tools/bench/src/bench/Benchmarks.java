@@ -0,0 +1,293 @@
+package bench;
+
+import data.TableSnapshot;
+import data.UniversityRepository;
+import data.UniversityTable;
+import datagen.SyntheticApplicants;
+import datagen.SyntheticCatalog;
+import logic.EligibilityProfile;
+import logic.EngineProbe;
+import logic.RecommendationEngine;
+import logic.RecommendationEngine.Mode;
+import logic.RecommendationEngine.ProfileTier;
+import logic.RecommendationEngine.Result;
+import model.CourseType;
+import model.Region;
+import model.University;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Micro-benchmarks for loading, per-row helpers and end-to-end recommend.
+ *
+ * A small JMH-style harness (JMH itself needs a Maven/Gradle build): every
+ * benchmark runs time-boxed warmup iterations, then measured iterations,
+ * and reports the mean time per operation with its standard deviation.
+ * Results are consumed by a volatile sink so the JIT cannot drop the work.
+ *
+ * Catalog sizes are the real dataset (470 rows) plus deterministic
+ * scale-ups from {@link SyntheticCatalog} (fixed seed).
+ *
+ * Usage:
+ *   java -cp out:out-bench bench.Benchmarks [--sizes 470,100000,1000000]
+ *        [--warmup-ms 1000] [--measure-ms 1000] [--iterations 5]
+ *        [--filter SUBSTRING] [--out bench_results.json]
+ */
+public class Benchmarks {
+
+    private static final Path DATA_PATH = Paths.get("data", "universities_complete.csv");
+    private static final long SEED = 42L;
+
+    private static volatile long sink;
+    private static SyntheticCatalog catalog;
+
+    private final long warmupNanos;
+    private final long measureNanos;
+    private final int iterations;
+    private final String filter;
+    private final List<Map<String, Object>> results = new ArrayList<>();
+
+    private Benchmarks(long warmupMs, long measureMs, int iterations, String filter) {
+        this.warmupNanos = warmupMs * 1_000_000L;
+        this.measureNanos = measureMs * 1_000_000L;
+        this.iterations = iterations;
+        this.filter = filter;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Integer> sizes = List.of(470, 100_000, 1_000_000);
+        long warmupMs = 1000;
+        long measureMs = 1000;
+        int iterations = 5;
+        String filter = null;
+        Path out = Paths.get("bench_results.json");
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String v = args[i + 1];
+            switch (args[i]) {
+                case "--sizes" -> {
+                    List<Integer> s = new ArrayList<>();
+                    for (String p : v.split(",")) s.add(Integer.parseInt(p.trim()));
+                    sizes = s;
+                }
+                case "--warmup-ms" -> warmupMs = Long.parseLong(v);
+                case "--measure-ms" -> measureMs = Long.parseLong(v);
+                case "--iterations" -> iterations = Integer.parseInt(v);
+                case "--filter" -> filter = v;
+                case "--out" -> out = Paths.get(v);
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        Benchmarks b = new Benchmarks(warmupMs, measureMs, iterations, filter);
+        for (int size : sizes) {
+            b.runAll(size);
+        }
+        b.writeJson(out);
+        System.out.println("Wrote " + out);
+    }
+
+    // ---------- Benchmarks ----------
+
+    private void runAll(int size) throws IOException {
+        // Always a temp copy, so a compiled snapshot next to the real CSV is not picked up
+        Path csv = scaledCsv(size);
+        Path snapshot = TableSnapshot.siblingOf(csv);
+        try {
+            UniversityTable table = new UniversityRepository(csv).getTable();
+            List<University> list = new ArrayList<>(table.asList());
+
+            bench("load.csv", size, null, () -> new UniversityRepository(csv).getTable().size());
+
+            TableSnapshot.write(table, csv, TableSnapshot.checksum(csv), snapshot);
+            bench("load.snapshot", size, null, () -> TableSnapshot.read(snapshot).size());
+
+            bench("university.getters", size, null, () -> {
+                long acc = 0;
+                for (University u : list) {
+                    acc += u.getName().length() + u.getCountry().length() + u.getCity().length()
+                            + u.getRegion().ordinal() + u.getCourseType().ordinal()
+                            + u.getProgram().length() + u.getDegree().length()
+                            + (long) u.getMinIelts() + (u.isGreRequired() ? 1 : 0)
+                            + u.getGlobalRank() + u.getSubjectRank()
+                            + (long) u.getEstimatedTotalUsd()
+                            + (u.hasResearchLab() ? 1 : 0) + (u.isOnCampus() ? 1 : 0);
+                }
+                return acc;
+            });
+
+            ProfileTier[] tiers = ProfileTier.values();
+            bench("engine.classifyBucket", size, null, () -> {
+                long acc = 0;
+                for (int row = 0; row < table.size(); row++) {
+                    acc += EngineProbe.classifyBucket(table.globalRank(row), tiers[row % tiers.length]).ordinal();
+                }
+                return acc;
+            });
+
+            EligibilityProfile fitProfile = profiles("mixed").get(0);
+            bench("engine.computeFitScore", size, null, () -> {
+                double acc = 0;
+                for (int row = 0; row < table.size(); row++) {
+                    acc += EngineProbe.computeFitScore(table, row, fitProfile);
+                }
+                return (long) acc;
+            });
+
+            for (String mix : List.of("mixed", "broad")) {
+                List<EligibilityProfile> profiles = profiles(mix);
+                for (Mode mode : Mode.values()) {
+                    int[] next = {0};
+                    bench("engine.recommend." + mode.name().toLowerCase(Locale.ROOT), size, mix, () -> {
+                        EligibilityProfile p = profiles.get(next[0]++ % profiles.size());
+                        Result r = RecommendationEngine.recommend(table, p, mode, 10);
+                        return r.ambitious.size() + r.target.size() + r.safe.size() + r.totalUniversities;
+                    });
+                    bench("engine.recommendList." + mode.name().toLowerCase(Locale.ROOT), size, mix, () -> {
+                        EligibilityProfile p = profiles.get(next[0]++ % profiles.size());
+                        Result r = RecommendationEngine.recommend(list, p, mode, 10);
+                        return r.ambitious.size() + r.target.size() + r.safe.size() + r.totalUniversities;
+                    });
+                }
+            }
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    /**
+     * Profile mixes: "mixed" is {@link SyntheticApplicants} output (spans
+     * tiers / regions / budgets), "broad" is all-match heavy.
+     */
+    private static List<EligibilityProfile> profiles(String mix) {
+        List<EligibilityProfile> out = new ArrayList<>();
+        if (mix.equals("broad")) {
+            for (CourseType ct : List.of(CourseType.STEM, CourseType.MBA)) {
+                out.add(new EligibilityProfile(8.0, 9.0, false, 0, 0, 2, 1, 0, ct,
+                        EnumSet.of(Region.USA, Region.EUROPE, Region.ASIA)));
+            }
+            return out;
+        }
+        try {
+            out.addAll(new SyntheticApplicants(catalog()).profiles(64, SEED));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    // ---------- Harness ----------
+
+    private interface Op {
+        long run() throws Exception;
+    }
+
+    private void bench(String name, int size, String mix, Op op) {
+        if (filter != null && !name.contains(filter)) return;
+        try {
+            // Warmup: let the JIT settle
+            long end = System.nanoTime() + warmupNanos;
+            do {
+                sink += op.run();
+            } while (System.nanoTime() < end);
+
+            double[] nsPerOp = new double[iterations];
+            long totalOps = 0;
+            for (int i = 0; i < iterations; i++) {
+                long ops = 0;
+                long start = System.nanoTime();
+                long stop = start + measureNanos;
+                long now;
+                do {
+                    sink += op.run();
+                    ops++;
+                    now = System.nanoTime();
+                } while (now < stop);
+                nsPerOp[i] = (double) (now - start) / ops;
+                totalOps += ops;
+            }
+
+            double mean = 0;
+            for (double v : nsPerOp) mean += v;
+            mean /= iterations;
+            double var = 0;
+            for (double v : nsPerOp) var += (v - mean) * (v - mean);
+            double stddev = iterations > 1 ? Math.sqrt(var / (iterations - 1)) : 0.0;
+
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("benchmark", name);
+            r.put("size", size);
+            if (mix != null) r.put("profileMix", mix);
+            r.put("unit", "ns/op");
+            r.put("score", mean);
+            r.put("error", stddev);
+            r.put("opsPerSec", 1e9 / mean);
+            r.put("iterations", iterations);
+            r.put("ops", totalOps);
+            results.add(r);
+            System.out.printf(Locale.US, "%-34s size=%-8d %-6s %14.1f ± %10.1f ns/op%n",
+                    name, size, mix == null ? "" : mix, mean, stddev);
+        } catch (Exception e) {
+            System.err.println(name + " (size " + size + ") failed: " + e);
+        }
+    }
+
+    private void writeJson(Path out) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        sb.append("  \"cores\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        sb.append("  \"results\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            sb.append("    {");
+            int k = 0;
+            for (Map.Entry<String, Object> e : results.get(i).entrySet()) {
+                if (k++ > 0) sb.append(", ");
+                sb.append('"').append(e.getKey()).append("\": ");
+                Object v = e.getValue();
+                if (v instanceof String s) sb.append('"').append(s).append('"');
+                else if (v instanceof Double d) sb.append(String.format(Locale.US, "%.3f", d));
+                else sb.append(v);
+            }
+            sb.append(i + 1 < results.size() ? "},\n" : "}\n");
+        }
+        sb.append("  ]\n}\n");
+        Files.writeString(out, sb.toString(), StandardCharsets.UTF_8);
+    }
+
+    // ---------- Scaled datasets ----------
+
+    /**
+     * Writes a CSV of {@code size} rows: the first rows of the real file
+     * when it has enough, otherwise a {@link SyntheticCatalog} fitted to it.
+     */
+    private static Path scaledCsv(int size) throws IOException {
+        Path out = Files.createTempFile("universities_" + size + "_", ".csv");
+        List<String> lines = Files.readAllLines(DATA_PATH, StandardCharsets.UTF_8);
+        if (size < lines.size()) {
+            Files.write(out, lines.subList(0, size + 1), StandardCharsets.UTF_8);
+        } else {
+            catalog().write(out, size, SEED);
+        }
+        return out;
+    }
+
+    private static SyntheticCatalog catalog() throws IOException {
+        if (catalog == null) catalog = SyntheticCatalog.fit(DATA_PATH);
+        return catalog;
+    }
+}
@@ -0,0 +1,23 @@
+package logic;
+
+import data.UniversityTable;
+import logic.RecommendationEngine.Bucket;
+import logic.RecommendationEngine.ProfileTier;
+
+/**
+ * Benchmark-only access to the engine's package-private steps. Lives in the
+ * {@code logic} package on the benchmark classpath; not part of the app.
+ */
+public final class EngineProbe {
+
+    private EngineProbe() {
+    }
+
+    public static Bucket classifyBucket(int globalRank, ProfileTier tier) {
+        return RecommendationEngine.classifyBucket(globalRank, tier);
+    }
+
+    public static double computeFitScore(UniversityTable table, int row, EligibilityProfile profile) {
+        return RecommendationEngine.computeFitScore(table, row, profile);
+    }
+}
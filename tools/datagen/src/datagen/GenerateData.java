@@ -0,0 +1,62 @@
+package datagen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Writes a synthetic catalog and a matching applicant file.
+ *
+ * Usage:
+ *   java -cp out:out-datagen datagen.GenerateData [--rows 100000] [--applicants 10000]
+ *        [--seed 42] [--source data/universities_complete.csv] [--out-dir data/synthetic]
+ *
+ * Produces {@code universities_<rows>.csv} and {@code applicants_<n>.csv}
+ * in the output directory. The same arguments always give the same files.
+ */
+public class GenerateData {
+
+    private static final Path DATA_PATH = Paths.get("data", "universities_complete.csv");
+
+    public static void main(String[] args) {
+        int rows = 100_000;
+        int applicants = 10_000;
+        long seed = 42L;
+        Path source = DATA_PATH;
+        Path outDir = Paths.get("data", "synthetic");
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String v = args[i + 1];
+            switch (args[i]) {
+                case "--rows" -> rows = Integer.parseInt(v);
+                case "--applicants" -> applicants = Integer.parseInt(v);
+                case "--seed" -> seed = Long.parseLong(v);
+                case "--source" -> source = Paths.get(v);
+                case "--out-dir" -> outDir = Paths.get(v);
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        try {
+            long start = System.nanoTime();
+            SyntheticCatalog catalog = SyntheticCatalog.fit(source);
+            Files.createDirectories(outDir);
+
+            Path catalogOut = outDir.resolve("universities_" + rows + ".csv");
+            catalog.write(catalogOut, rows, seed);
+            // Distinct stream, so changing --rows does not change the applicants
+            Path applicantsOut = outDir.resolve("applicants_" + applicants + ".csv");
+            new SyntheticApplicants(catalog).write(applicantsOut, applicants, seed ^ 0x5DEECE66DL);
+
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Wrote " + catalogOut + " (" + rows + " rows) and "
+                    + applicantsOut + " (" + applicants + " applicants) in " + ms + " ms");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to generate data from " + source + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package datagen;
+
+import logic.EligibilityProfile;
+import model.CourseType;
+import model.Region;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates applicant profiles to drive a {@link SyntheticCatalog}.
+ *
+ * Course types and regions are drawn in proportion to how many catalog
+ * rows offer them, and budgets from the catalog's total-cost quantiles, so
+ * the mix of cheap / expensive and narrow / broad queries follows the
+ * catalog. Academic fields use fixed, plausible shapes: CGPA and GRE are
+ * clipped normals, IELTS sits on the half-band grid, experience and papers
+ * are skewed towards zero.
+ *
+ * Output uses the {@code BatchRunner} CSV columns and is a pure function
+ * of the fitted catalog, the count and the seed.
+ */
+public final class SyntheticApplicants {
+
+    static final String HEADER = "id,cgpa,ielts,gre,gre_quant,gre_verbal,experience,papers,budget,course_type,regions";
+
+    private final List<CourseType> courseTypes = new ArrayList<>();
+    private final double[] courseTypeCdf;
+    private final List<Region> regions = new ArrayList<>();
+    private final double[] regionCdf;
+    private final SyntheticCatalog catalog;
+
+    public SyntheticApplicants(SyntheticCatalog catalog) {
+        this.catalog = catalog;
+        List<Integer> ctWeights = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : catalog.courseTypeRows().entrySet()) {
+            CourseType ct = CourseType.fromString(e.getKey());
+            // Applicants must name a known course type (BatchRunner rejects OTHER)
+            if (ct == CourseType.OTHER) continue;
+            courseTypes.add(ct);
+            ctWeights.add(e.getValue());
+        }
+        List<Integer> regionWeights = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : catalog.regionRows().entrySet()) {
+            Region r = Region.fromString(e.getKey(), null);
+            if (r == Region.OTHER || regions.contains(r)) continue;
+            regions.add(r);
+            regionWeights.add(e.getValue());
+        }
+        if (courseTypes.isEmpty() || regions.isEmpty()) {
+            throw new IllegalArgumentException("Catalog has no known course types or regions");
+        }
+        courseTypeCdf = cdf(ctWeights);
+        regionCdf = cdf(regionWeights);
+    }
+
+    /** {@code count} profiles for the given seed. */
+    public List<EligibilityProfile> profiles(int count, long seed) {
+        Random rnd = new Random(seed);
+        List<EligibilityProfile> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) out.add(next(rnd));
+        return out;
+    }
+
+    /** Writes {@code count} profiles as a BatchRunner input CSV (ids {@code a1..aN}). */
+    public void write(Path out, int count, long seed) throws IOException {
+        Random rnd = new Random(seed);
+        StringBuilder sb = new StringBuilder(128);
+        try (BufferedWriter w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            w.write(HEADER);
+            w.write('\n');
+            for (int i = 1; i <= count; i++) {
+                EligibilityProfile p = next(rnd);
+                sb.setLength(0);
+                sb.append('a').append(i).append(',');
+                sb.append(p.getCgpa10()).append(',');
+                sb.append(p.getIeltsOverall()).append(',');
+                sb.append(p.hasGre()).append(',');
+                sb.append(p.hasGre() ? Integer.toString(p.getGreQuant()) : "").append(',');
+                sb.append(p.hasGre() ? Integer.toString(p.getGreVerbal()) : "").append(',');
+                sb.append(p.getYearsExperience()).append(',');
+                sb.append(p.getNumPapers()).append(',');
+                sb.append((long) p.getBudgetUsd()).append(',');
+                sb.append(p.getCourseType().name()).append(',');
+                int k = 0;
+                for (Region r : p.getRegions()) {
+                    if (k++ > 0) sb.append(';');
+                    sb.append(r.name());
+                }
+                sb.append('\n');
+                w.write(sb.toString());
+            }
+        }
+    }
+
+    private EligibilityProfile next(Random rnd) {
+        double cgpa = Math.round(clip(7.8 + rnd.nextGaussian() * 0.9, 5.0, 10.0) * 100) / 100.0;
+        double ielts = Math.round(clip(6.8 + rnd.nextGaussian() * 0.6, 5.0, 9.0) * 2) / 2.0;
+
+        boolean gre = rnd.nextDouble() < 0.6;
+        int quant = gre ? (int) Math.round(clip(160 + rnd.nextGaussian() * 6, 130, 170)) : 0;
+        int verbal = gre ? (int) Math.round(clip(153 + rnd.nextGaussian() * 6, 130, 170)) : 0;
+
+        // Geometric-ish: most applicants have little experience and no papers
+        int experience = Math.min(15, (int) (-Math.log(1 - rnd.nextDouble()) * 1.5));
+        int papers = Math.min(10, (int) (-Math.log(1 - rnd.nextDouble()) * 0.7));
+
+        // 40% set no limit; the rest anchor on a catalog cost quantile with some headroom
+        double budget = rnd.nextDouble() < 0.4 ? 0.0
+                : Math.round(catalog.totalUsdQuantile(rnd.nextDouble()) * (0.9 + rnd.nextDouble() * 0.6) / 1000.0) * 1000.0;
+
+        CourseType ct = courseTypes.get(pick(courseTypeCdf, rnd));
+        Set<Region> chosen = EnumSet.noneOf(Region.class);
+        int want = Math.min(regions.size(), 1 + pick(new double[]{0.5, 0.85, 1.0}, rnd));
+        while (chosen.size() < want) chosen.add(regions.get(pick(regionCdf, rnd)));
+
+        return new EligibilityProfile(cgpa, ielts, gre, quant, verbal, experience, papers, budget, ct, chosen);
+    }
+
+    private static double[] cdf(List<Integer> weights) {
+        double total = 0;
+        for (int w : weights) total += w;
+        double[] cdf = new double[weights.size()];
+        double acc = 0;
+        for (int i = 0; i < cdf.length; i++) {
+            acc += weights.get(i);
+            cdf[i] = acc / total;
+        }
+        cdf[cdf.length - 1] = 1.0;
+        return cdf;
+    }
+
+    private static int pick(double[] cdf, Random rnd) {
+        double u = rnd.nextDouble();
+        int i = 0;
+        while (i < cdf.length - 1 && u >= cdf[i]) i++;
+        return i;
+    }
+
+    private static double clip(double v, double lo, double hi) {
+        return Math.max(lo, Math.min(hi, v));
+    }
+}
@@ -0,0 +1,309 @@
+package datagen;
+
+import data.CsvReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates university catalogs of any size with the same schema as
+ * {@code data/universities_complete.csv}, using distributions fitted from a
+ * real catalog.
+ *
+ * The real file is read as two kinds of template:
+ * <ul>
+ *   <li>campuses: country, region, city and global / subject rank of each
+ *       distinct university, plus how many programs each one offers;</li>
+ *   <li>programs: course type, program, degree, focus tags, flags, IELTS
+ *       minimum, tuition and living cost, indexed by region.</li>
+ * </ul>
+ * A synthetic university draws a campus template, gets a new unique name
+ * and a rank drawn from the real rank distribution, then draws its programs from
+ * program templates in the same region. Costs are jittered log-normally
+ * around the template and IELTS occasionally moves by half a band, so the
+ * joint shape of the real file (region ↔ cost, course type ↔ degree ↔
+ * focus) is kept without copying rows verbatim. Ranks are not stretched
+ * for large catalogs: the engine buckets on absolute rank thresholds, so
+ * keeping the real distribution keeps the Ambitious / Target / Safe split
+ * of the real file at any size (ties are broken by name).
+ *
+ * Output is a pure function of the source file, the row count and the seed.
+ */
+public final class SyntheticCatalog {
+
+    static final String HEADER = "name,country,region,city,course_type,program,degree,global_rank,subject_rank,"
+            + "ielts_min,gre_required,on_campus,security_focus,has_research_lab,tuition_usd,total_usd";
+
+    private static final String[] NAME_PATTERNS = {
+            "University of %s", "%s Institute of Technology", "%s State University",
+            "%s Technical University", "%s University", "%s Polytechnic", "%s School of Management",
+            "%s College of Engineering"
+    };
+
+    private final List<Campus> campuses = new ArrayList<>();
+    private final int[] programsPerCampus;
+    private final Map<String, List<Program>> programsByRegion = new HashMap<>();
+    private final List<Program> allPrograms = new ArrayList<>();
+    private final double[] rankedQuantiles;
+    private final double unrankedShare;
+    private final Map<String, Integer> courseTypeRows = new LinkedHashMap<>();
+    private final Map<String, Integer> regionRows = new LinkedHashMap<>();
+    private final double[] totalUsd;
+
+    private SyntheticCatalog(List<Map<String, String>> rows) {
+        Map<String, Campus> byName = new LinkedHashMap<>();
+        Map<String, Integer> programCount = new HashMap<>();
+        List<Double> ranks = new ArrayList<>();
+        int unranked = 0;
+        totalUsd = new double[rows.size()];
+        int t = 0;
+
+        for (Map<String, String> r : rows) {
+            String name = r.get("name");
+            programCount.merge(name, 1, Integer::sum);
+            Campus c = byName.get(name);
+            if (c == null) {
+                c = new Campus(r.get("country"), r.get("region"), r.get("city"),
+                        intOr(r.get("global_rank")), intOr(r.get("subject_rank")));
+                byName.put(name, c);
+                if (c.globalRank > 0) ranks.add((double) c.globalRank);
+                else unranked++;
+            }
+
+            Program p = new Program(r.get("course_type"), r.get("program"), r.get("degree"),
+                    r.get("gre_required"), r.get("on_campus"), r.get("security_focus"), r.get("has_research_lab"),
+                    doubleOr(r.get("ielts_min")), doubleOr(r.get("tuition_usd")), doubleOr(r.get("total_usd")));
+            programsByRegion.computeIfAbsent(r.get("region"), k -> new ArrayList<>()).add(p);
+            allPrograms.add(p);
+            courseTypeRows.merge(r.get("course_type"), 1, Integer::sum);
+            regionRows.merge(r.get("region"), 1, Integer::sum);
+            totalUsd[t++] = p.total;
+        }
+        if (byName.isEmpty()) {
+            throw new IllegalArgumentException("Source catalog has no rows");
+        }
+
+        campuses.addAll(byName.values());
+        programsPerCampus = new int[campuses.size()];
+        int i = 0;
+        for (String name : byName.keySet()) programsPerCampus[i++] = programCount.get(name);
+
+        rankedQuantiles = ranks.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        unrankedShare = (double) unranked / campuses.size();
+        Arrays.sort(totalUsd);
+    }
+
+    /** Fits the generator to a catalog CSV (header row required). */
+    public static SyntheticCatalog fit(Path sourceCsv) throws IOException {
+        CsvReader reader = CsvReader.open(sourceCsv);
+        if (!reader.next()) {
+            throw new IOException("Empty catalog: " + sourceCsv);
+        }
+        List<String> headers = new ArrayList<>();
+        for (String h : reader.fields()) headers.add(h.trim().toLowerCase(Locale.ROOT));
+
+        List<Map<String, String>> rows = new ArrayList<>();
+        while (reader.next()) {
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < headers.size(); i++) {
+                row.put(headers.get(i), i < reader.fieldCount() ? reader.field(i).trim() : "");
+            }
+            rows.add(row);
+        }
+        return new SyntheticCatalog(rows);
+    }
+
+    // ---------- Generation ----------
+
+    /** Writes a catalog of exactly {@code rows} programs to {@code out}. */
+    public void write(Path out, int rows, long seed) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            write(w, rows, seed);
+        }
+    }
+
+    public void write(Writer w, int rows, long seed) throws IOException {
+        Random rnd = new Random(seed);
+        Map<String, Integer> nameCounts = new HashMap<>();
+        StringBuilder sb = new StringBuilder(256);
+
+        w.write(HEADER);
+        w.write('\n');
+        int written = 0;
+        while (written < rows) {
+            Campus c = campuses.get(rnd.nextInt(campuses.size()));
+            String name = uniqueName(c, nameCounts, rnd);
+            int globalRank = drawRank(rnd);
+            int subjectRank = c.globalRank > 0 && c.subjectRank > 0 && globalRank > 0
+                    ? Math.max(1, (int) Math.round(globalRank * (double) c.subjectRank / c.globalRank))
+                    : (rnd.nextDouble() < 0.5 ? 0 : 1 + rnd.nextInt(120));
+
+            List<Program> pool = programsByRegion.getOrDefault(c.region, allPrograms);
+            int programs = Math.min(rows - written, programsPerCampus[rnd.nextInt(programsPerCampus.length)]);
+            Set<String> used = new HashSet<>();
+            for (int k = 0; k < programs; k++) {
+                Program p = pool.get(rnd.nextInt(pool.size()));
+                // The loader keys rows on (name, program, degree); skip repeats within a university
+                if (!used.add(p.program + '\u0000' + p.degree)) continue;
+                sb.setLength(0);
+                appendRow(sb, name, c, p, globalRank, subjectRank, rnd);
+                w.write(sb.toString());
+                written++;
+            }
+        }
+    }
+
+    /** Pattern + city, numbered from the second use on ("University of Boston 2"). */
+    private static String uniqueName(Campus c, Map<String, Integer> counts, Random rnd) {
+        String base = NAME_PATTERNS[rnd.nextInt(NAME_PATTERNS.length)]
+                .replace("%s", c.city.isEmpty() ? c.country : c.city);
+        int n = counts.merge(base, 1, Integer::sum);
+        return n == 1 ? base : base + " " + n;
+    }
+
+    /** Inverse empirical CDF of the real ranks, interpolated; 0 means unranked. */
+    private int drawRank(Random rnd) {
+        if (rankedQuantiles.length == 0 || rnd.nextDouble() < unrankedShare) return 0;
+        double q = rnd.nextDouble() * (rankedQuantiles.length - 1);
+        int lo = (int) q;
+        int hi = Math.min(lo + 1, rankedQuantiles.length - 1);
+        double v = rankedQuantiles[lo] + (rankedQuantiles[hi] - rankedQuantiles[lo]) * (q - lo);
+        return Math.max(1, (int) Math.round(v));
+    }
+
+    private static void appendRow(StringBuilder sb, String name, Campus c, Program p,
+                                  int globalRank, int subjectRank, Random rnd) {
+        double ielts = p.ielts;
+        double u = rnd.nextDouble();
+        if (ielts > 0 && u < 0.1) ielts = Math.max(5.0, ielts - 0.5);
+        else if (ielts > 0 && u > 0.9) ielts = Math.min(8.0, ielts + 0.5);
+
+        // Tuition and living cost move independently; totals keep tuition + living
+        double living = Math.max(0, p.total - p.tuition) * jitter(rnd, 0.10);
+        double tuition = p.tuition * jitter(rnd, 0.20);
+        long tuitionUsd = Math.round(tuition / 500.0) * 500;
+        long totalUsd = Math.max(1000, Math.round((tuitionUsd + living) / 500.0) * 500);
+
+        cell(sb, name).append(',');
+        cell(sb, c.country).append(',');
+        cell(sb, c.region).append(',');
+        cell(sb, c.city).append(',');
+        cell(sb, p.courseType).append(',');
+        cell(sb, p.program).append(',');
+        cell(sb, p.degree).append(',');
+        sb.append(globalRank).append(',');
+        sb.append(subjectRank).append(',');
+        sb.append(ielts).append(',');
+        cell(sb, p.greRequired).append(',');
+        cell(sb, p.onCampus).append(',');
+        cell(sb, p.focus).append(',');
+        cell(sb, p.researchLab).append(',');
+        sb.append(tuitionUsd).append(',');
+        sb.append(totalUsd).append('\n');
+    }
+
+    /** Multiplicative log-normal noise with roughly {@code sigma} relative spread. */
+    private static double jitter(Random rnd, double sigma) {
+        return Math.exp(rnd.nextGaussian() * sigma);
+    }
+
+    static StringBuilder cell(StringBuilder sb, String v) {
+        if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0) {
+            return sb.append('"').append(v.replace("\"", "\"\"")).append('"');
+        }
+        return sb.append(v);
+    }
+
+    // ---------- Fitted marginals (used by the applicant generator) ----------
+
+    /** Row count per raw course_type value, in first-seen order. */
+    Map<String, Integer> courseTypeRows() {
+        return courseTypeRows;
+    }
+
+    /** Row count per raw region value, in first-seen order. */
+    Map<String, Integer> regionRows() {
+        return regionRows;
+    }
+
+    /** Total cost at quantile {@code q} in [0, 1]. */
+    double totalUsdQuantile(double q) {
+        int i = (int) Math.round(q * (totalUsd.length - 1));
+        return totalUsd[Math.max(0, Math.min(totalUsd.length - 1, i))];
+    }
+
+    private static int intOr(String s) {
+        try {
+            return s == null || s.isEmpty() ? 0 : (int) Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static double doubleOr(String s) {
+        try {
+            return s == null || s.isEmpty() ? 0.0 : Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    // ---------- Helper types ----------
+
+    private static final class Campus {
+        final String country;
+        final String region;
+        final String city;
+        final int globalRank;
+        final int subjectRank;
+
+        Campus(String country, String region, String city, int globalRank, int subjectRank) {
+            this.country = country;
+            this.region = region;
+            this.city = city;
+            this.globalRank = globalRank;
+            this.subjectRank = subjectRank;
+        }
+    }
+
+    private static final class Program {
+        final String courseType;
+        final String program;
+        final String degree;
+        final String greRequired;
+        final String onCampus;
+        final String focus;
+        final String researchLab;
+        final double ielts;
+        final double tuition;
+        final double total;
+
+        Program(String courseType, String program, String degree, String greRequired, String onCampus,
+                String focus, String researchLab, double ielts, double tuition, double total) {
+            this.courseType = courseType;
+            this.program = program;
+            this.degree = degree;
+            this.greRequired = greRequired;
+            this.onCampus = onCampus;
+            this.focus = focus;
+            this.researchLab = researchLab;
+            this.ielts = ielts;
+            this.tuition = tuition;
+            this.total = total;
+        }
+    }
+}